@@ -0,0 +1,260 @@
+package com.dsm.api;
+
+import com.dsm.event.DockerEventReceivedEvent;
+import com.dsm.event.DockerEventStreamGapEvent;
+import com.dsm.utils.LogUtil;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventActor;
+import com.github.dockerjava.api.model.EventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 容器状态缓存
+ * 首次访问时全量加载一次，之后由 Docker 事件流增量维护；
+ * 事件流出现断档时才重新全量同步
+ */
+@Slf4j
+@Component
+public class ContainerStateCache {
+
+    /**
+     * 不影响容器列表信息的事件，直接忽略
+     */
+    private static final Set<String> IGNORED_ACTIONS = Set.of("attach", "detach", "commit", "copy", "archive-path", "extract-to-dir", "export", "resize", "top");
+
+    @Resource
+    private DockerClientWrapper dockerClientWrapper;
+
+    /**
+     * 容器ID -> 容器
+     */
+    private volatile Map<String, Container> containers = new ConcurrentHashMap<>();
+    /**
+     * 容器名称（不带前导 /） -> 容器ID
+     */
+    private volatile Map<String, String> nameIndex = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    /**
+     * 获取所有容器（包括已停止的）
+     */
+    public List<Container> listContainers() {
+        ensureLoaded();
+        List<Container> result = new ArrayList<>(containers.values());
+        // 与 docker ps 保持一致，新创建的在前
+        result.sort(Comparator.comparing(Container::getCreated, Comparator.nullsLast(Comparator.reverseOrder())));
+        return result;
+    }
+
+    /**
+     * 根据容器ID或名称查找容器
+     *
+     * @param containerIdOrName 容器ID或名称（可带前导 /）
+     * @return 容器对象，未找到返回 null
+     */
+    public Container findContainer(String containerIdOrName) {
+        if (containerIdOrName == null) {
+            return null;
+        }
+        ensureLoaded();
+        Container container = containers.get(containerIdOrName);
+        if (container != null) {
+            return container;
+        }
+        String id = nameIndex.get(stripSlash(containerIdOrName));
+        return id != null ? containers.get(id) : null;
+    }
+
+    /**
+     * 容器是否处于运行状态
+     */
+    public boolean isRunning(String containerIdOrName) {
+        Container container = findContainer(containerIdOrName);
+        return container != null && "running".equals(container.getState());
+    }
+
+    /**
+     * 立即从守护进程刷新单个容器，用于本进程发起的变更操作之后保证读到最新状态
+     *
+     * @param containerIdOrName 容器ID或名称
+     */
+    public void refresh(String containerIdOrName) {
+        if (!loaded) {
+            return;
+        }
+        Container cached = findContainer(containerIdOrName);
+        String id = cached != null ? cached.getId() : containerIdOrName;
+        try {
+            List<Container> found = dockerClientWrapper.listContainersById(id);
+            Container latest = found.stream().filter(c -> c.getId().startsWith(id)).findFirst().orElse(null);
+            if (latest != null) {
+                put(latest);
+            } else if (cached != null) {
+                remove(cached.getId());
+            }
+        } catch (Exception e) {
+            // 刷新失败不影响本次操作结果，后续由事件流修正
+            log.warn("刷新容器缓存失败: {}, {}", containerIdOrName, e.getMessage());
+        }
+    }
+
+    /**
+     * 从缓存中移除容器
+     */
+    public void evict(String containerIdOrName) {
+        Container cached = findContainer(containerIdOrName);
+        if (cached != null) {
+            remove(cached.getId());
+        }
+    }
+
+    /**
+     * 全量同步
+     */
+    public synchronized void resync() {
+        List<Container> all = dockerClientWrapper.listContainers();
+        Map<String, Container> newContainers = new ConcurrentHashMap<>();
+        Map<String, String> newNameIndex = new ConcurrentHashMap<>();
+        for (Container container : all) {
+            newContainers.put(container.getId(), container);
+            indexNames(newNameIndex, container);
+        }
+        containers = newContainers;
+        nameIndex = newNameIndex;
+        loaded = true;
+        log.info("容器缓存全量同步完成，共 {} 个容器", all.size());
+    }
+
+    @EventListener
+    public void onStreamGap(DockerEventStreamGapEvent event) {
+        try {
+            resync();
+        } catch (Exception e) {
+            // 同步失败时标记为未加载，下次读取时再尝试
+            loaded = false;
+            LogUtil.logSysError("容器缓存全量同步失败: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onDockerEvent(DockerEventReceivedEvent receivedEvent) {
+        if (!loaded) {
+            return;
+        }
+        Event event = receivedEvent.getEvent();
+        String action = event.getAction() != null ? event.getAction() : event.getStatus();
+        if (action == null) {
+            return;
+        }
+        try {
+            if (event.getType() == EventType.CONTAINER) {
+                onContainerEvent(event.getId(), action);
+            } else if (event.getType() == EventType.NETWORK) {
+                // 网络连接/断开会改变容器的网络信息
+                EventActor actor = event.getActor();
+                String containerId = actor != null && actor.getAttributes() != null ? actor.getAttributes().get("container") : null;
+                if (containerId != null && (action.equals("connect") || action.equals("disconnect"))) {
+                    refreshFromEvent(containerId);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("根据事件更新容器缓存失败: {} {}, {}", event.getId(), action, e.getMessage());
+        }
+    }
+
+    /**
+     * 去掉动作的后缀，exec_create: xxx / health_status: healthy 这类动作带有后缀
+     */
+    public static String baseAction(String action) {
+        return action.contains(":") ? action.substring(0, action.indexOf(':')).trim() : action;
+    }
+
+    /**
+     * 不改变容器列表信息的容器动作：IGNORED_ACTIONS 以及健康检查等产生的 exec_*
+     *
+     * @param baseAction 去掉后缀的动作
+     */
+    public static boolean isNoOpAction(String baseAction) {
+        return IGNORED_ACTIONS.contains(baseAction) || baseAction.startsWith("exec_");
+    }
+
+    private void onContainerEvent(String containerId, String action) {
+        if (containerId == null) {
+            return;
+        }
+        String baseAction = baseAction(action);
+        if (isNoOpAction(baseAction)) {
+            return;
+        }
+        if ("destroy".equals(baseAction)) {
+            remove(containerId);
+        } else {
+            refreshFromEvent(containerId);
+        }
+    }
+
+    private void refreshFromEvent(String containerId) {
+        List<Container> found = dockerClientWrapper.listContainersById(containerId);
+        if (found.isEmpty()) {
+            remove(containerId);
+        } else {
+            found.forEach(this::put);
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    resync();
+                }
+            }
+        }
+    }
+
+    private synchronized void put(Container container) {
+        Container previous = containers.put(container.getId(), container);
+        if (previous != null) {
+            unindexNames(previous);
+        }
+        indexNames(nameIndex, container);
+    }
+
+    private synchronized void remove(String containerId) {
+        Container previous = containers.remove(containerId);
+        if (previous != null) {
+            unindexNames(previous);
+        }
+    }
+
+    private void indexNames(Map<String, String> index, Container container) {
+        if (container.getNames() != null) {
+            for (String name : container.getNames()) {
+                index.put(stripSlash(name), container.getId());
+            }
+        }
+    }
+
+    private void unindexNames(Container container) {
+        if (container.getNames() != null) {
+            for (String name : container.getNames()) {
+                nameIndex.remove(stripSlash(name), container.getId());
+            }
+        }
+    }
+
+    private static String stripSlash(String name) {
+        return name.startsWith("/") ? name.substring(1) : name;
+    }
+}
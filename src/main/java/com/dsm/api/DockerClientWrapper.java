@@ -1,27 +1,27 @@
 package com.dsm.api;
 
-import com.dsm.config.DockerConfig;
+import com.dsm.api.guard.DockerCallGuard;
+import com.dsm.api.guard.DockerOperationClass;
+import com.dsm.api.guard.DockerReadCoalescer;
+import com.dsm.api.metrics.DockerOperationMetrics;
 import com.dsm.exception.DockerErrorResolver;
+import com.dsm.exception.DockerOperationException;
+import com.dsm.model.dto.DockerCoalesceStatsDTO;
 import com.dsm.utils.ContainerCmdFactory;
 import com.dsm.utils.LogUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.*;
 import com.github.dockerjava.api.model.*;
-import com.github.dockerjava.core.DefaultDockerClientConfig;
-import com.github.dockerjava.core.DockerClientConfig;
-import com.github.dockerjava.core.DockerClientImpl;
 import com.github.dockerjava.core.InvocationBuilder;
 import com.github.dockerjava.core.command.LogContainerResultCallback;
-import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
-import com.github.dockerjava.transport.DockerHttpClient;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.io.IOException;
-import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
@@ -34,135 +34,163 @@ public class DockerClientWrapper {
     private DockerClient dockerClient;
 
     @Resource
-    private DockerConfig dockerConfig;
+    private DockerCallGuard callGuard;
 
-    @PostConstruct
-    public void init() {
-        DockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
-                .withDockerHost(dockerConfig.getHost())
-                .build();
+    @Resource
+    private DockerReadCoalescer readCoalescer;
 
-        ApacheDockerHttpClient.Builder httpClientBuilder = new ApacheDockerHttpClient.Builder()
-                .dockerHost(config.getDockerHost())
-                .maxConnections(dockerConfig.getMaxConnections())
-                .connectionTimeout(Duration.ofMillis(dockerConfig.getConnectionTimeout()))
-                .responseTimeout(Duration.ofMillis(dockerConfig.getResponseTimeout()));
+    @Resource
+    private DockerOperationMetrics operationMetrics;
 
-        DockerHttpClient httpClient = httpClientBuilder.build();
-        dockerClient = DockerClientImpl.getInstance(config, httpClient);
+    public List<Container> listContainers() {
+        return readCoalescer.read("listContainers", null, () -> executeDockerCommandWithResult(DockerOperationClass.LIST, () -> dockerClient.listContainersCmd().withShowAll(true).exec(), "获取容器列表", "all"));
     }
 
-    public List<Container> listContainers() {
-        return executeDockerCommandWithResult(() -> dockerClient.listContainersCmd().withShowAll(true).exec(), "获取容器列表", "all");
+    public List<Container> listContainersById(String containerId) {
+        return readCoalescer.read("listContainersById", containerId, () -> executeDockerCommandWithResult(DockerOperationClass.INSPECT, () -> dockerClient.listContainersCmd().withShowAll(true).withIdFilter(Collections.singletonList(containerId)).exec(), "获取容器信息", containerId));
     }
 
     public List<Image> listImages() {
-        return executeDockerCommandWithResult(() -> dockerClient.listImagesCmd().withShowAll(true).exec(), "获取镜像列表", "all");
+        return readCoalescer.read("listImages", null, () -> executeDockerCommandWithResult(DockerOperationClass.LIST, () -> dockerClient.listImagesCmd().withShowAll(true).exec(), "获取镜像列表", "all"));
     }
 
     public void startContainer(String containerId) {
-        executeDockerCommand(() -> {
+        executeDockerCommand(DockerOperationClass.LIFECYCLE, () -> {
             dockerClient.startContainerCmd(containerId).exec();
             LogUtil.log("启动容器成功: " + containerId);
         }, "启动容器", containerId);
     }
 
     public void stopContainer(String containerId) {
-        executeDockerCommand(() -> {
+        executeDockerCommand(DockerOperationClass.LIFECYCLE, () -> {
             dockerClient.stopContainerCmd(containerId).exec();
             LogUtil.log("停止容器成功: " + containerId);
         }, "停止容器", containerId);
     }
 
     public void restartContainer(String containerId) {
-        executeDockerCommand(() -> {
+        executeDockerCommand(DockerOperationClass.LIFECYCLE, () -> {
             dockerClient.restartContainerCmd(containerId).exec();
             LogUtil.log("重启容器成功: " + containerId);
         }, "重启容器", containerId);
     }
 
     public void removeContainer(String containerId) {
-        executeDockerCommand(() -> {
+        executeDockerCommand(DockerOperationClass.LIFECYCLE, () -> {
             dockerClient.removeContainerCmd(containerId).withForce(true).exec();
             LogUtil.log("删除容器成功: " + containerId);
         }, "删除容器", containerId);
     }
 
     public Statistics getContainerStats(String containerId) {
-        return executeDockerCommandWithResult(() -> {
+        return executeDockerCommandWithResult(DockerOperationClass.STREAM, () -> {
             InvocationBuilder.AsyncResultCallback<Statistics> callback = new InvocationBuilder.AsyncResultCallback<>();
             dockerClient.statsCmd(containerId).exec(callback);
             try {
-                Statistics stats = callback.awaitResult();
-                callback.close();
-                return stats;
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to close stats callback", e);
+                return callback.awaitResult();
+            } finally {
+                // 超时被中断时也要关闭统计流，否则连接会一直占用
+                try {
+                    callback.close();
+                } catch (IOException e) {
+                    LogUtil.logSysError("关闭统计流失败: " + e.getMessage());
+                }
             }
         }, "获取容器统计信息", containerId);
     }
 
     public boolean isDockerAvailable() {
-        return executeDockerCommandWithResult(() -> {
-            try {
-                dockerClient.pingCmd().exec();
-                return true;
-            } catch (Exception e) {
-                LogUtil.logSysError("Docker服务不可用: " + e.getMessage());
-                return false;
-            }
-        }, "检查Docker服务可用性", "system");
+        try {
+            executeDockerCommand(DockerOperationClass.INSPECT, () -> dockerClient.pingCmd().exec(), "检查Docker服务可用性", null);
+            return true;
+        } catch (Exception e) {
+            LogUtil.logSysError("Docker服务不可用: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 获取 Docker 守护进程信息（架构、仓库配置等）
+     */
+    public Info getInfo() {
+        return executeDockerCommandWithResult(DockerOperationClass.INSPECT, () -> dockerClient.infoCmd().exec(), "获取Docker信息", null);
     }
 
     public String getContainerLogs(String containerId, int tail, boolean follow, boolean timestamps) {
-        return executeDockerCommandWithResult(() -> {
+        return executeDockerCommandWithResult(DockerOperationClass.STREAM, () -> {
             LogContainerCmd logContainerCmd = dockerClient.logContainerCmd(containerId).withTail(tail).withFollowStream(follow).withTimestamps(timestamps).withStdOut(true).withStdErr(true);
 
             StringBuilder logs = new StringBuilder();
-            try {
-                logContainerCmd.exec(new LogContainerResultCallback() {
-                    @Override
-                    public void onNext(Frame frame) {
+            LogContainerResultCallback callback = new LogContainerResultCallback() {
+                @Override
+                public void onNext(Frame frame) {
+                    synchronized (logs) {
                         logs.append(new String(frame.getPayload())).append("\n");
                     }
-                }).awaitCompletion();
+                }
+            };
+            try {
+                // follow 模式下日志流不会自然结束，在截止时间前返回已读取的部分
+                logContainerCmd.exec(callback).awaitCompletion(callGuard.getDeadline(DockerOperationClass.STREAM) - 1000, TimeUnit.MILLISECONDS);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 throw new RuntimeException("获取容器日志被中断", e);
+            } finally {
+                try {
+                    callback.close();
+                } catch (IOException e) {
+                    LogUtil.logSysError("关闭日志流失败: " + e.getMessage());
+                }
             }
 
-            return logs.toString();
+            synchronized (logs) {
+                return logs.toString();
+            }
         }, "获取容器日志", containerId);
     }
 
     public void removeImage(String imageId) {
-        executeDockerCommand(() -> {
+        executeDockerCommand(DockerOperationClass.LIFECYCLE, () -> {
             dockerClient.removeImageCmd(imageId).withForce(true).exec();
             LogUtil.log("删除镜像成功: " + imageId);
         }, "删除镜像", imageId);
     }
 
+    /**
+     * 给镜像加标签，已存在同名标签时覆盖
+     */
+    public void tagImage(String imageRef, String repository, String tag) {
+        executeDockerCommand(DockerOperationClass.LIFECYCLE, () -> dockerClient.tagImageCmd(imageRef, repository, tag).withForce().exec(), "标记镜像", imageRef);
+    }
+
+    /**
+     * 只移除一个标签，镜像还有其他标签时不会被删除
+     */
+    public void untagImage(String imageRef) {
+        executeDockerCommand(DockerOperationClass.LIFECYCLE, () -> dockerClient.removeImageCmd(imageRef).withNoPrune(true).exec(), "移除镜像标签", imageRef);
+    }
+
     public InspectImageResponse getInspectImage(String imageId) {
-        return executeDockerCommandWithResult(() -> dockerClient.inspectImageCmd(imageId).exec(), "获取镜像详细信息", imageId);
+        return readCoalescer.read("inspectImage", imageId, () -> executeDockerCommandWithResult(DockerOperationClass.INSPECT, () -> dockerClient.inspectImageCmd(imageId).exec(), "获取镜像详细信息", imageId));
     }
 
     public InspectContainerResponse inspectContainerCmd(String containerId) {
-        return executeDockerCommandWithResult(() -> dockerClient.inspectContainerCmd(containerId).exec(), "获取容器详细信息", containerId);
+        return readCoalescer.read("inspectContainer", containerId, () -> executeDockerCommandWithResult(DockerOperationClass.INSPECT, () -> dockerClient.inspectContainerCmd(containerId).exec(), "获取容器详细信息", containerId));
     }
 
     public void renameContainer(String containerId, String newName) {
-        executeDockerCommand(() -> {
+        executeDockerCommand(DockerOperationClass.LIFECYCLE, () -> {
             dockerClient.renameContainerCmd(containerId).withName(newName).exec();
             LogUtil.log("重命名容器成功: " + containerId + " -> " + newName);
         }, "重命名容器", containerId);
     }
 
     public List<Network> listNetworks() {
-        return executeDockerCommandWithResult(() -> dockerClient.listNetworksCmd().exec(), "获取网络列表", "all");
+        return readCoalescer.read("listNetworks", null, () -> executeDockerCommandWithResult(DockerOperationClass.LIST, () -> dockerClient.listNetworksCmd().exec(), "获取网络列表", "all"));
     }
 
     public CreateContainerResponse createContainer(CreateContainerCmd cmd) {
-        return executeDockerCommandWithResult(cmd::exec, "创建容器", cmd.getName());
+        return executeDockerCommandWithResult(DockerOperationClass.LIFECYCLE, cmd::exec, "创建容器", cmd.getName());
     }
 
     public CreateContainerCmd createContainerCmd(String imageName) {
@@ -181,21 +209,43 @@ public class DockerClientWrapper {
         return dockerClient.listContainersCmd();
     }
 
-    private void executeDockerCommand(Runnable command, String action, String containerId) {
-        try {
+    public StatsCmd statsCmd(String containerId) {
+        return dockerClient.statsCmd(containerId);
+    }
+
+    public EventsCmd eventsCmd() {
+        return dockerClient.eventsCmd();
+    }
+
+    public List<DockerCoalesceStatsDTO> getCoalesceStats() {
+        return readCoalescer.getStats();
+    }
+
+    private void executeDockerCommand(DockerOperationClass operationClass, Runnable command, String action, String containerId) {
+        executeDockerCommandWithResult(operationClass, () -> {
             command.run();
-        } catch (Exception e) {
-            LogUtil.logSysError(action + "失败: " + e.getMessage());
-            throw DockerErrorResolver.resolve(action, containerId, e);
-        }
+            return null;
+        }, action, containerId);
     }
 
-    private <T> T executeDockerCommandWithResult(Supplier<T> supplier, String operationName, String containerId) {
+    private <T> T executeDockerCommandWithResult(DockerOperationClass operationClass, Supplier<T> supplier, String operationName, String containerId) {
+        long start = System.nanoTime();
         try {
-            return supplier.get();
+            T result = callGuard.execute(operationClass, operationName, supplier);
+            operationMetrics.record(operationName, System.nanoTime() - start, null);
+            if (operationClass == DockerOperationClass.LIFECYCLE) {
+                readCoalescer.invalidate();
+            }
+            return result;
+        } catch (DockerOperationException e) {
+            // 限流、超时、熔断已由保护层记录
+            operationMetrics.record(operationName, System.nanoTime() - start, e.getErrorCode());
+            throw e;
         } catch (Exception e) {
+            DockerOperationException resolved = DockerErrorResolver.resolve(operationName, containerId, e);
+            operationMetrics.record(operationName, System.nanoTime() - start, resolved.getErrorCode());
             LogUtil.logSysError(operationName + "失败: " + e.getMessage());
-            throw DockerErrorResolver.resolve(operationName, containerId, e);
+            throw resolved;
         }
     }
 
@@ -204,8 +254,10 @@ public class DockerClientWrapper {
     }
 
     public String startContainerWithCmd(CreateContainerCmd containerCmd) {
-        String containerId = containerCmd.exec().getId();
-        dockerClient.startContainerCmd(containerId).exec();
-        return containerId;
+        return executeDockerCommandWithResult(DockerOperationClass.LIFECYCLE, () -> {
+            String id = containerCmd.exec().getId();
+            dockerClient.startContainerCmd(id).exec();
+            return id;
+        }, "创建并启动容器", null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.dsm.api;
+
+import com.dsm.api.transport.RoutingDockerHttpClient;
+import com.github.dockerjava.api.DockerClient;
+
+/**
+ * 已注册的 Docker 端点
+ */
+public class DockerEndpoint {
+
+    private final String name;
+    private final String host;
+    private final boolean tls;
+    private final boolean local;
+    private final long timeout;
+    private final DockerClient client;
+    /**
+     * 端点独占的传输层，本机端点复用全局 Bean，此处为 null
+     */
+    private final RoutingDockerHttpClient httpClient;
+
+    public DockerEndpoint(String name, String host, boolean tls, boolean local, long timeout, DockerClient client, RoutingDockerHttpClient httpClient) {
+        this.name = name;
+        this.host = host;
+        this.tls = tls;
+        this.local = local;
+        this.timeout = timeout;
+        this.client = client;
+        this.httpClient = httpClient;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public boolean isTls() {
+        return tls;
+    }
+
+    public boolean isLocal() {
+        return local;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public DockerClient getClient() {
+        return client;
+    }
+
+    RoutingDockerHttpClient getHttpClient() {
+        return httpClient;
+    }
+}
@@ -0,0 +1,196 @@
+package com.dsm.api;
+
+import com.dsm.api.transport.RoutingDockerHttpClient;
+import com.dsm.config.DockerConfig;
+import com.dsm.model.dto.EndpointStatusDTO;
+import com.dsm.model.dto.FederatedResultDTO;
+import com.dsm.utils.LogUtil;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientConfig;
+import com.github.dockerjava.core.DockerClientImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Docker 端点注册表
+ * 本机端点（docker.host）复用全局 DockerClient，docker.endpoints 中的每台主机各自持有独立的客户端和连接池；
+ * 多主机查询并发执行，每台主机单独计时，慢主机超时后直接丢弃其结果。
+ * 每台主机有独立的有界线程池（舱壁），超时后仍阻塞在读取上的请求只会占满该主机自己的线程，
+ * 不会让其他主机的查询排队
+ */
+@Slf4j
+@Component
+public class DockerEndpointRegistry {
+
+    @Resource
+    private DockerConfig dockerConfig;
+
+    @Resource
+    private DockerClient dockerClient;
+
+    /**
+     * 每台主机同时执行的查询数和排队上限，超出时该主机本次直接判为繁忙
+     */
+    private static final int ENDPOINT_THREADS = 2;
+    private static final int ENDPOINT_QUEUE = 8;
+
+    private final Map<String, DockerEndpoint> endpoints = new LinkedHashMap<>();
+    private final Map<String, ExecutorService> bulkheads = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        long defaultTimeout = dockerConfig.getFanOutTimeout();
+        endpoints.put(dockerConfig.getLocalName(), new DockerEndpoint(dockerConfig.getLocalName(), dockerConfig.getHost(), false, true, defaultTimeout, dockerClient, null));
+
+        for (DockerConfig.Endpoint endpoint : dockerConfig.getEndpoints()) {
+            if (endpoint.getName() == null || endpoint.getHost() == null) {
+                LogUtil.logSysError("Docker 端点配置缺少 name 或 host，已忽略");
+                continue;
+            }
+            if (endpoints.containsKey(endpoint.getName())) {
+                LogUtil.logSysError("Docker 端点名称重复，已忽略: " + endpoint.getName());
+                continue;
+            }
+            try {
+                endpoints.put(endpoint.getName(), createEndpoint(endpoint, defaultTimeout));
+                LogUtil.logSysInfo("已注册 Docker 端点: " + endpoint.getName() + " -> " + endpoint.getHost());
+            } catch (Exception e) {
+                LogUtil.logSysError("注册 Docker 端点失败: " + endpoint.getName() + ", " + e.getMessage());
+            }
+        }
+
+        for (String name : endpoints.keySet()) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(ENDPOINT_THREADS, ENDPOINT_THREADS, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(ENDPOINT_QUEUE), r -> {
+                Thread thread = new Thread(r, "docker-fanout-" + name + "-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            bulkheads.put(name, executor);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        bulkheads.values().forEach(ExecutorService::shutdownNow);
+        for (DockerEndpoint endpoint : endpoints.values()) {
+            RoutingDockerHttpClient httpClient = endpoint.getHttpClient();
+            if (httpClient != null) {
+                try {
+                    httpClient.close();
+                } catch (Exception e) {
+                    log.warn("关闭 Docker 端点连接失败: {}, {}", endpoint.getName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 所有已注册的端点，本机端点在最前
+     */
+    public Collection<DockerEndpoint> getEndpoints() {
+        return Collections.unmodifiableCollection(endpoints.values());
+    }
+
+    /**
+     * 根据名称获取端点
+     *
+     * @return 端点，未注册返回 null
+     */
+    public DockerEndpoint getEndpoint(String name) {
+        return endpoints.get(name);
+    }
+
+    /**
+     * 在所有端点上并发执行查询并合并结果
+     * 每台主机在各自的超时时间内未返回即视为失败，不会拖慢整体响应
+     *
+     * @param query 单个端点上的查询，返回的数据应已标记来源主机
+     */
+    public <T> FederatedResultDTO<T> fanOut(Function<DockerEndpoint, List<T>> query) {
+        long start = System.currentTimeMillis();
+        Map<DockerEndpoint, Future<List<T>>> futures = new LinkedHashMap<>();
+        List<EndpointStatusDTO> statuses = new ArrayList<>();
+        for (DockerEndpoint endpoint : endpoints.values()) {
+            try {
+                futures.put(endpoint, bulkheads.get(endpoint.getName()).submit(() -> query.apply(endpoint)));
+            } catch (RejectedExecutionException e) {
+                // 该主机之前的请求仍未返回，本次不再排队
+                statuses.add(EndpointStatusDTO.builder().name(endpoint.getName()).host(endpoint.getHost()).success(false).count(0)
+                        .error("主机繁忙，之前的请求尚未返回").elapsed(0L).build());
+                log.warn("Docker 端点查询被拒绝: {}, 之前的请求尚未返回", endpoint.getName());
+            }
+        }
+
+        List<T> items = new ArrayList<>();
+        for (Map.Entry<DockerEndpoint, Future<List<T>>> entry : futures.entrySet()) {
+            DockerEndpoint endpoint = entry.getKey();
+            Future<List<T>> future = entry.getValue();
+            EndpointStatusDTO status = EndpointStatusDTO.builder().name(endpoint.getName()).host(endpoint.getHost()).success(false).count(0).build();
+            // 所有请求同时发出，按各自的截止时间等待剩余时长
+            long remaining = start + endpoint.getTimeout() - System.currentTimeMillis();
+            try {
+                List<T> result = future.get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+                if (result != null) {
+                    items.addAll(result);
+                    status.setCount(result.size());
+                }
+                status.setSuccess(true);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                status.setError("请求超时(" + endpoint.getTimeout() + "ms)");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                status.setError(cause.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                status.setError("请求被中断");
+            }
+            status.setElapsed(System.currentTimeMillis() - start);
+            if (!status.getSuccess()) {
+                log.warn("Docker 端点查询失败: {}, {}", endpoint.getName(), status.getError());
+            }
+            statuses.add(status);
+        }
+        return FederatedResultDTO.<T>builder().items(items).endpoints(statuses).build();
+    }
+
+    private DockerEndpoint createEndpoint(DockerConfig.Endpoint endpoint, long defaultTimeout) {
+        boolean tls = Boolean.TRUE.equals(endpoint.getTlsVerify());
+        DefaultDockerClientConfig.Builder builder = DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(endpoint.getHost())
+                .withDockerTlsVerify(tls);
+        if (tls && endpoint.getCertPath() != null) {
+            builder.withDockerCertPath(endpoint.getCertPath());
+        }
+        DockerClientConfig config = builder.build();
+        RoutingDockerHttpClient httpClient = dockerConfig.createHttpClient(config);
+        DockerClient client = DockerClientImpl.getInstance(config, httpClient);
+        long timeout = endpoint.getTimeout() != null ? endpoint.getTimeout() : defaultTimeout;
+        return new DockerEndpoint(endpoint.getName(), endpoint.getHost(), tls, false, timeout, client, httpClient);
+    }
+}
@@ -0,0 +1,191 @@
+package com.dsm.api;
+
+import com.dsm.config.DockerConfig;
+import com.dsm.event.DockerEventReceivedEvent;
+import com.dsm.event.DockerEventStreamGapEvent;
+import com.dsm.utils.LogUtil;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.EventsCmd;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Docker 事件订阅
+ * 维持一条到 /events 的长连接，把收到的事件转发为 Spring 事件；
+ * 断线后按 since 续传，断开过久则发布断档事件，由监听方全量同步
+ */
+@Slf4j
+@Component
+public class DockerEventWatcher {
+
+    private static final long INITIAL_RECONNECT_DELAY = 1000L;
+
+    @Resource
+    private DockerClientWrapper dockerClientWrapper;
+
+    @Resource
+    private DockerConfig dockerConfig;
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ScheduledExecutorService reconnectExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "docker-events-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running;
+    private volatile Closeable subscription;
+    /**
+     * 最后一条事件的守护进程时间（纳秒），用于 since 续传
+     */
+    private volatile long lastEventTimeNano;
+    /**
+     * 本地断线时间（毫秒），0 表示当前未断线
+     */
+    private volatile long disconnectedAt;
+    private long reconnectDelay = INITIAL_RECONNECT_DELAY;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        reconnectExecutor.execute(this::subscribe);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        closeSubscription();
+        reconnectExecutor.shutdownNow();
+    }
+
+    /**
+     * @return 事件流当前是否处于连接状态
+     */
+    public boolean isConnected() {
+        return subscription != null && disconnectedAt == 0;
+    }
+
+    private synchronized void subscribe() {
+        if (!running) {
+            return;
+        }
+        EventsCmd eventsCmd = dockerClientWrapper.eventsCmd().withEventTypeFilter(EventType.CONTAINER, EventType.IMAGE, EventType.NETWORK);
+        long since = lastEventTimeNano;
+        if (since > 0) {
+            eventsCmd.withSince(formatSince(since));
+        }
+        EventCallback callback = new EventCallback(since);
+        subscription = callback;
+        try {
+            eventsCmd.exec(callback);
+        } catch (Exception e) {
+            onDisconnected(callback, "订阅 Docker 事件失败: " + e.getMessage());
+        }
+    }
+
+    private void onConnected(long since) {
+        long gap = disconnectedAt == 0 ? -1 : System.currentTimeMillis() - disconnectedAt;
+        disconnectedAt = 0;
+        reconnectDelay = INITIAL_RECONNECT_DELAY;
+        LogUtil.logSysInfo("Docker 事件订阅已建立" + (since > 0 ? "，从 " + formatSince(since) + " 续传" : ""));
+        // 首次订阅或断开时间超过阈值时，since 续传无法保证完整（守护进程只缓存有限的历史事件）
+        if (since == 0 || gap > dockerConfig.getEvents().getMaxResumeGap()) {
+            eventPublisher.publishEvent(new DockerEventStreamGapEvent(gap));
+        }
+    }
+
+    private void onEvent(Event event) {
+        Long timeNano = event.getTimeNano();
+        if (timeNano != null && timeNano > lastEventTimeNano) {
+            lastEventTimeNano = timeNano;
+        }
+        try {
+            eventPublisher.publishEvent(new DockerEventReceivedEvent(event));
+        } catch (Exception e) {
+            log.error("处理 Docker 事件失败: {} {}", event.getType(), event.getAction(), e);
+        }
+    }
+
+    private synchronized void onDisconnected(Closeable callback, String reason) {
+        // 旧连接的迟到回调不应影响新连接
+        if (callback != subscription) {
+            return;
+        }
+        closeSubscription();
+        if (!running) {
+            return;
+        }
+        if (disconnectedAt == 0) {
+            disconnectedAt = System.currentTimeMillis();
+            LogUtil.logSysError(reason);
+        }
+        long delay = reconnectDelay;
+        reconnectDelay = Math.min(reconnectDelay * 2, dockerConfig.getEvents().getMaxReconnectDelay());
+        try {
+            reconnectExecutor.schedule(this::subscribe, delay, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("调度 Docker 事件重连失败: {}", e.getMessage());
+        }
+    }
+
+    private void closeSubscription() {
+        Closeable current = subscription;
+        subscription = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (Exception e) {
+                log.debug("关闭 Docker 事件流失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private class EventCallback extends ResultCallback.Adapter<Event> {
+        private final long since;
+
+        EventCallback(long since) {
+            this.since = since;
+        }
+
+        @Override
+        public void onStart(Closeable stream) {
+            super.onStart(stream);
+            onConnected(since);
+        }
+
+        @Override
+        public void onNext(Event event) {
+            onEvent(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            onDisconnected(this, "Docker 事件流异常: " + throwable.getMessage());
+        }
+
+        @Override
+        public void onComplete() {
+            onDisconnected(this, "Docker 事件流已关闭");
+        }
+    }
+
+    /**
+     * Docker API 的 since 参数支持 "秒.纳秒" 格式
+     */
+    private static String formatSince(long timeNano) {
+        return String.format("%d.%09d", timeNano / 1_000_000_000L, timeNano % 1_000_000_000L);
+    }
+}
@@ -1,9 +1,19 @@
 package com.dsm.api;
 
-import com.dsm.config.AppConfig;
+import com.dsm.api.pull.DaemonPullEngine;
+import com.dsm.api.pull.ImagePullEngine;
+import com.dsm.api.pull.SkopeoPullEngine;
+import com.dsm.api.task.CancellationToken;
+import com.dsm.api.registry.ImageReference;
+import com.dsm.api.registry.RegistryClient;
+import com.dsm.api.stats.ContainerStatsCollector;
+import com.dsm.api.transport.RoutingDockerHttpClient;
+import com.dsm.config.DockerConfig;
+import com.dsm.exception.RegistryException;
 import com.dsm.model.dockerApi.ContainerCreateRequest;
+import com.dsm.model.dto.DockerCoalesceStatsDTO;
+import com.dsm.model.dto.DockerPoolStatsDTO;
 import com.dsm.model.dto.ResourceUsageDTO;
-import com.dsm.utils.DockerStatsConverter;
 import com.dsm.utils.LogUtil;
 import com.dsm.websocket.callback.PullImageCallback;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -12,17 +22,15 @@ import com.github.dockerjava.api.command.CreateContainerResponse;
 import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.command.InspectImageResponse;
 import com.github.dockerjava.api.model.*;
+import org.apache.hc.core5.pool.PoolStats;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Docker服务类，提供与Docker引擎交互的各种操作
@@ -34,15 +42,53 @@ public class DockerService {
     private DockerClientWrapper dockerClientWrapper;
 
     @Resource
-    private AppConfig appConfig;
+    private List<ImagePullEngine> pullEngines;
+
+    @Resource
+    private DockerConfig dockerConfig;
+
+    @Resource
+    private ContainerStateCache containerStateCache;
+
+    @Resource
+    private ImageMetadataCache imageMetadataCache;
+
+    @Resource
+    private RegistryClient registryClient;
+
+    @Resource
+    private RoutingDockerHttpClient dockerHttpClient;
+
+    @Resource
+    private ContainerStatsCollector containerStatsCollector;
 
     /**
-     * 获取所有容器列表
+     * 获取所有容器列表（来自事件驱动的容器缓存）
      *
      * @return 容器列表，包括运行中和已停止的容器
      */
     public List<Container> listContainers() {
-        return dockerClientWrapper.listContainers();
+        return containerStateCache.listContainers();
+    }
+
+    /**
+     * 根据容器ID或名称查找容器（来自容器缓存）
+     *
+     * @param containerIdOrName 容器ID或名称
+     * @return 容器对象，未找到返回 null
+     */
+    public Container findContainer(String containerIdOrName) {
+        return containerStateCache.findContainer(containerIdOrName);
+    }
+
+    /**
+     * 判断容器是否在运行（来自容器缓存）
+     *
+     * @param containerIdOrName 容器ID或名称
+     * @return true 如果容器正在运行
+     */
+    public boolean isContainerRunning(String containerIdOrName) {
+        return containerStateCache.isRunning(containerIdOrName);
     }
 
     /**
@@ -51,7 +97,7 @@ public class DockerService {
      * @return 镜像列表，包括所有本地镜像
      */
     public List<Image> listImages() {
-        return dockerClientWrapper.listImages();
+        return imageMetadataCache.listImages();
     }
 
 
@@ -63,6 +109,7 @@ public class DockerService {
      */
     public void startContainer(String containerId) {
         dockerClientWrapper.startContainer(containerId);
+        containerStateCache.refresh(containerId);
     }
 
     /**
@@ -73,6 +120,7 @@ public class DockerService {
      */
     public void stopContainer(String containerId) {
         dockerClientWrapper.stopContainer(containerId);
+        containerStateCache.refresh(containerId);
     }
 
     /**
@@ -82,6 +130,7 @@ public class DockerService {
      */
     public void restartContainer(String containerId) {
         dockerClientWrapper.restartContainer(containerId);
+        containerStateCache.refresh(containerId);
     }
 
 
@@ -92,17 +141,26 @@ public class DockerService {
      */
     public void removeContainer(String containerId) {
         dockerClientWrapper.removeContainer(containerId);
+        containerStateCache.evict(containerId);
     }
 
     /**
-     * 获取容器的统计信息
+     * 获取容器的统计信息（统计流中最近一次的采样）
      *
      * @param containerId 容器ID
      * @return 容器统计信息对象
      */
     public ResourceUsageDTO getContainerStats(String containerId) {
-        Statistics containerStats = dockerClientWrapper.getContainerStats(containerId);
-        return DockerStatsConverter.convert(containerStats);
+        return containerStatsCollector.getLatest(containerId);
+    }
+
+    /**
+     * 获取所有运行中容器的统计信息
+     *
+     * @return 容器ID -> 容器统计信息
+     */
+    public Map<String, ResourceUsageDTO> getAllContainerStats() {
+        return containerStatsCollector.getAllLatest();
     }
 
 
@@ -115,6 +173,27 @@ public class DockerService {
         return dockerClientWrapper.isDockerAvailable();
     }
 
+    /**
+     * 获取 Docker HTTP 连接池的实时状态
+     *
+     * @return 普通请求与流式请求两个连接池的统计
+     */
+    public List<DockerPoolStatsDTO> getConnectionPoolStats() {
+        return Stream.of(dockerHttpClient.getRequestClient(), dockerHttpClient.getStreamingClient()).map(client -> {
+            PoolStats stats = client.getPoolStats();
+            return DockerPoolStatsDTO.builder().name(client.getName()).leased(stats.getLeased()).pending(stats.getPending()).available(stats.getAvailable()).max(stats.getMax()).requestCount(client.getRequestCount()).build();
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * 获取只读请求合并统计
+     *
+     * @return 各操作的调用数及被合并的调用数
+     */
+    public List<DockerCoalesceStatsDTO> getCoalesceStats() {
+        return dockerClientWrapper.getCoalesceStats();
+    }
+
     /**
      * 获取容器日志
      *
@@ -166,6 +245,7 @@ public class DockerService {
      */
     public void renameContainer(String containerId, String newName) {
         dockerClientWrapper.renameContainer(containerId, newName);
+        containerStateCache.refresh(containerId);
     }
 
 
@@ -180,86 +260,24 @@ public class DockerService {
 
 
     /**
-     * 取消镜像拉取操作
+     * 获取本地镜像的创建时间
      *
-     * @param imageWithTag 镜像名称和标签
+     * @param imageName 镜像名称
+     * @param tag       镜像标签
+     * @return 镜像创建时间字符串，本地不存在该镜像时返回 null
      */
-    public void cancelPullImage(String imageWithTag) {
-        try {
-            // 获取当前正在执行的拉取操作
-            List<Thread> threads = Thread.getAllStackTraces().keySet().stream().filter(thread -> thread.getName().startsWith("docker-pull-")).collect(Collectors.toList());
-
-            if (threads.isEmpty()) {
-                LogUtil.logSysInfo("未找到正在执行的镜像拉取线程");
-                return;
-            }
-
-            // 中断所有相关的拉取线程
-            for (Thread thread : threads) {
-                LogUtil.logSysInfo("正在中断镜像拉取线程: " + thread.getName());
-                thread.interrupt();
-            }
-
-            // 查找并终止 skopeo 进程
-            try {
-                ProcessBuilder processBuilder = new ProcessBuilder("pkill", "-f", "skopeo copy.*" + imageWithTag);
-                Process process = processBuilder.start();
-                int exitCode = process.waitFor();
-                if (exitCode == 0) {
-                    LogUtil.logSysInfo("成功终止 skopeo 进程");
-                } else {
-                    LogUtil.logSysInfo("终止 skopeo 进程失败，退出码: " + exitCode);
-                }
-            } catch (Exception e) {
-                LogUtil.logSysError("终止 skopeo 进程时出错: " + e.getMessage());
-            }
-
-            LogUtil.logSysInfo("已取消镜像拉取操作: " + imageWithTag);
-        } catch (Exception e) {
-            LogUtil.logSysError("取消镜像拉取操作失败: " + e.getMessage());
-            throw new RuntimeException("取消镜像拉取操作失败: " + e.getMessage());
-        }
+    public String getLocalImageCreateTime(String imageName, String tag) {
+        return imageMetadataCache.getCreated(imageName, tag);
     }
 
     /**
-     * 获取本地镜像的创建时间
+     * 根据镜像ID获取创建时间，同一ID只 inspect 一次
      *
-     * @param imageName 镜像名称
-     * @param tag       镜像标签
+     * @param imageId 镜像ID
      * @return 镜像创建时间字符串
      */
-    public String getLocalImageCreateTime(String imageName, String tag) {
-        try {
-            String fullImageName = tag != null && !tag.isEmpty() ? imageName + ":" + tag : imageName;
-            List<String> command = new ArrayList<>();
-            command.add("docker");
-            command.add("inspect");
-            command.add("--format");
-            command.add("{{ .Created }}");
-            command.add(fullImageName);
-
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line);
-                }
-            }
-
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                throw new RuntimeException("获取本地镜像创建时间失败，退出码: " + exitCode);
-            }
-
-            return output.toString().trim();
-        } catch (Exception e) {
-            LogUtil.logSysError("获取本地镜像创建时间失败: " + e.getMessage());
-            throw new RuntimeException("获取本地镜像创建时间失败: " + e.getMessage());
-        }
+    public String getImageCreateTime(String imageId) {
+        return imageMetadataCache.getCreated(imageId);
     }
 
     /**
@@ -270,126 +288,47 @@ public class DockerService {
      * @return 镜像创建时间字符串
      */
     public String getRemoteImageCreateTime(String imageName, String tag) {
-        String fullImageName = tag != null && !tag.isEmpty() ? imageName + ":" + tag : imageName;
-
-        // 方法1：使用 skopeo
         try {
-            List<String> command = new ArrayList<>();
-            command.add("skopeo");
-            command.add("inspect");
-
-            // 检查当前系统架构
-            String osName = System.getProperty("os.name").toLowerCase();
-            String osArch = System.getProperty("os.arch").toLowerCase();
-            if (osName.contains("mac") && (osArch.contains("aarch64") || osArch.contains("arm64"))) {
-                LogUtil.logSysInfo("检测到Mac ARM架构，强制指定arm64/linux架构参数");
-                command.add("--override-arch");
-                command.add("arm64");
-                command.add("--override-os");
-                command.add("linux");
-            }
-
-            command.add("--insecure-policy");
-            command.add("--tls-verify=false");
-            command.add("docker://" + fullImageName);
-
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            // 如果代理配置不为空就使用代理
-            String proxyUrl = appConfig.getProxyUrl();
-            if (!proxyUrl.isBlank()) {
-                processBuilder.environment().put("HTTP_PROXY", proxyUrl);
-                processBuilder.environment().put("HTTPS_PROXY", proxyUrl);
-            }
-            processBuilder.redirectErrorStream(true);
-
-            Process process = processBuilder.start();
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line);
-                }
-            }
-
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
-                // 使用 jq 解析 JSON 输出
-                List<String> jqCommand = new ArrayList<>();
-                jqCommand.add("jq");
-                jqCommand.add("-r");
-                jqCommand.add(".Created");
-
-                ProcessBuilder jqProcessBuilder = new ProcessBuilder(jqCommand);
-                Process jqProcess = jqProcessBuilder.start();
-
-                try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(jqProcess.getOutputStream()))) {
-                    writer.write(output.toString());
-                    writer.flush();
-                }
-
-                StringBuilder jqOutput = new StringBuilder();
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(jqProcess.getInputStream()))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        jqOutput.append(line);
-                    }
-                }
-
-                int jqExitCode = jqProcess.waitFor();
-                if (jqExitCode == 0) {
-                    String result = jqOutput.toString().trim();
-                    if (!result.isEmpty()) {
-                        return result;
-                    }
-                }
-            }
+            return registryClient.getCreated(imageName, tag);
         } catch (Exception e) {
-            LogUtil.logSysInfo("使用 skopeo 获取远程镜像时间失败: " + e.getMessage());
+            LogUtil.logSysInfo("获取远程镜像时间失败: " + e.getMessage());
         }
 
-        // 如果 skopeo 失败，尝试使用 regctl
-        try {
-            List<String> command = new ArrayList<>();
-            command.add("regctl");
-            command.add("image");
-            command.add("inspect");
-            command.add(fullImageName);
-            command.add("--format");
-            command.add("{{.Created}}");
-
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            // 如果代理配置不为空就使用代理
-            // 如果代理配置不为空就使用代理
-            String proxyUrl = appConfig.getProxyUrl();
-            if (!proxyUrl.isBlank()) {
-                processBuilder.environment().put("HTTP_PROXY", proxyUrl);
-                processBuilder.environment().put("HTTPS_PROXY", proxyUrl);
-            }
-            processBuilder.redirectErrorStream(true);
-
-            Process process = processBuilder.start();
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line);
-                }
-            }
+        // 获取失败时返回本地镜像时间
+        LogUtil.logSysInfo("获取远程镜像时间失败，返回本地镜像时间");
+        return getLocalImageCreateTime(imageName, tag);
+    }
+
+    /**
+     * 获取远程镜像的清单摘要（HEAD 请求）
+     *
+     * @param imageName 镜像名称
+     * @param tag       镜像标签
+     * @return 清单摘要，仓库未返回 Docker-Content-Digest 时为 null
+     * @throws RegistryException 请求失败，限流和服务端错误带有仓库给出的 Retry-After
+     */
+    public String getRemoteImageDigest(String imageName, String tag) {
+        return registryClient.getManifestDigest(ImageReference.parse(imageName, tag));
+    }
 
-            int exitCode = process.waitFor();
-            if (exitCode == 0) {
-                String result = output.toString().trim();
-                if (!result.isEmpty()) {
-                    return result;
-                }
+    /**
+     * 获取本地镜像在对应仓库下的清单摘要
+     * RepoDigests 可能包含同一镜像在其他仓库的摘要，只保留与镜像名称同一仓库的
+     *
+     * @param imageName 镜像名称
+     * @param tag       镜像标签
+     * @return 摘要列表（sha256:...），本地构建或导入的镜像为空
+     */
+    public List<String> getLocalImageRepoDigests(String imageName, String tag) {
+        ImageReference ref = ImageReference.parse(imageName, tag);
+        List<String> digests = new ArrayList<>();
+        for (String repoDigest : imageMetadataCache.getRepoDigests(imageName, tag)) {
+            int at = repoDigest.indexOf('@');
+            if (at > 0 && ImageReference.parse(repoDigest, null).isSameRepository(ref)) {
+                digests.add(repoDigest.substring(at + 1));
             }
-        } catch (Exception e) {
-            LogUtil.logSysInfo("使用 regctl 获取远程镜像时间失败: " + e.getMessage());
         }
-
-        // 如果两种方法都失败，返回本地镜像时间
-        LogUtil.logSysInfo("获取远程镜像时间失败，返回本地镜像时间");
-        return getLocalImageCreateTime(imageName, tag);
+        return digests;
     }
 
 //    public CreateContainerResponse configureContainerCmd(ContainerCreateRequest request) {
@@ -665,86 +604,7 @@ public class DockerService {
      * @param callback 进度回调
      */
     public void pullImageWithSkopeo(String image, String tag, PullImageCallback callback) {
-        LogUtil.logSysInfo("开始使用 skopeo 拉取镜像: " + image + ":" + tag);
-        try {
-            // 构建完整的镜像名称
-            String fullImageName = tag != null && !tag.isEmpty() ? image + ":" + tag : image;
-            // 构建 skopeo 命令
-            List<String> command = new ArrayList<>();
-            command.add("skopeo");
-            command.add("copy");
-            // 添加源和目标
-            // 检查当前系统架构
-            String osName = System.getProperty("os.name").toLowerCase();
-            String osArch = System.getProperty("os.arch").toLowerCase();
-            // 只有在Mac的ARM架构(M系列芯片)上才需要指定架构参数
-            if (osName.contains("mac") && (osArch.contains("aarch64") || osArch.contains("arm64"))) {
-                LogUtil.logSysInfo("检测到Mac ARM架构，强制指定arm64/linux架构参数");
-                // 强制指定为amd64架构和linux系统，解决在Mac ARM芯片上的兼容性问题
-                command.add("--override-arch");
-                command.add("arm64");
-                command.add("--override-os");
-                command.add("linux");
-            }
-            command.add("docker://" + fullImageName);
-            command.add("docker-daemon:" + fullImageName);
-            // 执行命令
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            // 设置代理（如果启用）
-            // 如果代理配置不为空就使用代理
-            String proxyUrl = appConfig.getProxyUrl();
-            if (!proxyUrl.isBlank()) {
-                processBuilder.redirectErrorStream(true);
-                processBuilder.environment().put("HTTP_PROXY", proxyUrl);
-                processBuilder.environment().put("HTTPS_PROXY", proxyUrl);
-            }
-            processBuilder.redirectErrorStream(true);
-            // 打印完整命令行
-            LogUtil.logSysInfo("执行命令: " + String.join(" ", command) + ",是否使用代理 " + !proxyUrl.isBlank());
-            Process process = processBuilder.start();
-            // 读取输出
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                int progress = 0;
-                while ((line = reader.readLine()) != null) {
-                    LogUtil.logSysInfo("skopeo: " + line);
-                    if (callback != null) {
-                        // 解析进度
-                        if (line.contains("Getting image source signatures")) {
-                            progress = 10;
-                        } else if (line.contains("Copying blob")) {
-                            progress = 30;
-                        } else if (line.contains("Copying config")) {
-                            progress = 70;
-                        } else if (line.contains("Writing manifest")) {
-                            progress = 90;
-                        } else if (line.contains("Storing signatures")) {
-                            progress = 100;
-                        }
-                        callback.onProgress(progress, line);
-                    }
-                }
-            }
-            // 等待命令完成
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                String error = "skopeo 命令执行失败，退出码: " + exitCode;
-                if (callback != null) {
-                    callback.onError(error);
-                }
-                throw new RuntimeException(error);
-            }
-            LogUtil.logSysInfo("镜像拉取完成: " + fullImageName);
-            if (callback != null) {
-                callback.onComplete();
-            }
-        } catch (Exception e) {
-            LogUtil.logSysError("使用 skopeo 拉取镜像失败: " + e.getMessage());
-            if (callback != null) {
-                callback.onError(e.getMessage());
-            }
-            throw new RuntimeException("使用 skopeo 拉取镜像失败: " + e.getMessage());
-        }
+        pullEngine(SkopeoPullEngine.NAME).pull(image, tag, callback, CancellationToken.NONE);
     }
 
     /**
@@ -755,10 +615,32 @@ public class DockerService {
      * @param callback 进度回调
      */
     public void pullImage(String image, String tag, PullImageCallback callback) {
-        /**
-         * 这里其实需要多种返回，使用代理，使用镜像加速，什么都不用
-         */
-        pullImageWithSkopeo(image, tag, callback);
+        pullImage(image, tag, callback, CancellationToken.NONE);
+    }
+
+    /**
+     * 拉取Docker镜像，可通过令牌取消
+     *
+     * @param image    镜像名称
+     * @param tag      镜像标签
+     * @param callback 进度回调
+     * @param token    取消令牌
+     */
+    public void pullImage(String image, String tag, PullImageCallback callback, CancellationToken token) {
+        pullEngine(dockerConfig.getPull().getEngine()).pull(image, tag, callback, token);
+    }
+
+    /**
+     * 按名称选择拉取引擎，未知名称时使用守护进程拉取
+     */
+    private ImagePullEngine pullEngine(String name) {
+        for (ImagePullEngine engine : pullEngines) {
+            if (engine.getName().equalsIgnoreCase(name)) {
+                return engine;
+            }
+        }
+        LogUtil.logSysError("未知的镜像拉取引擎: " + name + "，使用 " + DaemonPullEngine.NAME);
+        return pullEngine(DaemonPullEngine.NAME);
     }
 
     public CreateContainerCmd getCmdByTempJson(JsonNode jsonNode) {
@@ -766,7 +648,9 @@ public class DockerService {
     }
 
     public String startContainerWithCmd(CreateContainerCmd containerCmd) {
-        return dockerClientWrapper.startContainerWithCmd(containerCmd);
+        String containerId = dockerClientWrapper.startContainerWithCmd(containerCmd);
+        containerStateCache.refresh(containerId);
+        return containerId;
     }
 }
 
@@ -0,0 +1,144 @@
+package com.dsm.api;
+
+import com.dsm.event.DockerEventReceivedEvent;
+import com.github.dockerjava.api.command.InspectImageResponse;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.Image;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 本地镜像元数据缓存
+ * 镜像ID是内容摘要，同一ID的创建时间永远不变，因此按ID缓存 inspect 得到的 Created；
+ * 标签到ID的映射来自 listImages，镜像事件（拉取、打标签、删除）后重新获取
+ */
+@Slf4j
+@Component
+public class ImageMetadataCache {
+
+    @Resource
+    private DockerClientWrapper dockerClientWrapper;
+
+    /**
+     * 镜像ID -> 创建时间（inspect 返回的 RFC3339 纳秒精度字符串）
+     */
+    private final Map<String, String> createdById = new ConcurrentHashMap<>();
+    /**
+     * name:tag -> 镜像ID
+     */
+    private volatile Map<String, String> tagIndex = new HashMap<>();
+    /**
+     * 镜像ID -> RepoDigests（仓库@摘要），与标签索引一起刷新
+     */
+    private volatile Map<String, List<String>> repoDigestsById = new HashMap<>();
+    private volatile boolean tagIndexStale = true;
+
+    /**
+     * 获取本地镜像列表，同时刷新标签索引并清理已删除镜像的缓存
+     */
+    public List<Image> listImages() {
+        List<Image> images = dockerClientWrapper.listImages();
+        Map<String, String> index = new HashMap<>();
+        Map<String, List<String>> digests = new HashMap<>();
+        for (Image image : images) {
+            if (image.getRepoDigests() != null && image.getRepoDigests().length > 0) {
+                digests.put(image.getId(), Arrays.asList(image.getRepoDigests()));
+            }
+            if (image.getRepoTags() != null) {
+                for (String repoTag : image.getRepoTags()) {
+                    index.put(repoTag, image.getId());
+                }
+            }
+        }
+        tagIndex = index;
+        repoDigestsById = digests;
+        tagIndexStale = false;
+        Set<String> ids = images.stream().map(Image::getId).collect(Collectors.toSet());
+        createdById.keySet().retainAll(ids);
+        return images;
+    }
+
+    /**
+     * 根据镜像ID获取创建时间，首次访问时 inspect 一次
+     *
+     * @param imageId 镜像ID
+     * @return 创建时间，无法获取时返回 null
+     */
+    public String getCreated(String imageId) {
+        String created = createdById.get(imageId);
+        if (created != null) {
+            return created;
+        }
+        InspectImageResponse inspect = dockerClientWrapper.getInspectImage(imageId);
+        created = inspect.getCreated();
+        if (created != null && !created.isEmpty()) {
+            createdById.put(imageId, created);
+        }
+        return created;
+    }
+
+    /**
+     * 根据镜像名称和标签获取创建时间
+     *
+     * @return 创建时间，本地不存在该镜像时返回 null
+     */
+    public String getCreated(String imageName, String tag) {
+        String imageId = resolveId(imageName, tag);
+        return imageId != null ? getCreated(imageId) : null;
+    }
+
+    /**
+     * 根据镜像名称和标签获取本地镜像的 RepoDigests
+     *
+     * @return 形如 nginx@sha256:... 的列表，本地构建或导入的镜像没有时返回空列表
+     */
+    public List<String> getRepoDigests(String imageName, String tag) {
+        String imageId = resolveId(imageName, tag);
+        if (imageId == null) {
+            return Collections.emptyList();
+        }
+        return repoDigestsById.getOrDefault(imageId, Collections.emptyList());
+    }
+
+    /**
+     * 根据镜像名称和标签解析镜像ID
+     *
+     * @return 镜像ID，本地不存在时返回 null
+     */
+    public String resolveId(String imageName, String tag) {
+        String repoTag = imageName + ":" + (tag != null && !tag.isEmpty() ? tag : "latest");
+        boolean refreshed = false;
+        if (tagIndexStale) {
+            listImages();
+            refreshed = true;
+        }
+        String imageId = tagIndex.get(repoTag);
+        if (imageId == null && !refreshed) {
+            // 索引可能早于本进程之外的一次拉取，未命中时再确认一次
+            listImages();
+            imageId = tagIndex.get(repoTag);
+        }
+        return imageId;
+    }
+
+    /**
+     * 镜像拉取、打标签、删除后标签指向可能改变
+     */
+    @EventListener
+    public void onDockerEvent(DockerEventReceivedEvent event) {
+        if (event.getEvent().getType() == EventType.IMAGE) {
+            tagIndexStale = true;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.dsm.api.guard;
+
+import com.dsm.config.DockerConfig;
+import com.dsm.exception.DockerErrorCode;
+import com.dsm.exception.DockerOperationException;
+import com.dsm.utils.LogUtil;
+import com.github.dockerjava.api.DockerClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Docker 调用保护层
+ * 每类操作一个隔离舱限制并发，调用在独立线程中执行并设置截止时间，
+ * 守护进程连续故障时熔断，熔断期间直接返回 DOCKER_DAEMON_UNAVAILABLE，到期后用 ping 探测恢复
+ */
+@Slf4j
+@Component
+public class DockerCallGuard {
+
+    @Resource
+    private DockerConfig dockerConfig;
+
+    @Resource
+    private DockerClient dockerClient;
+
+    private final Map<DockerOperationClass, Semaphore> bulkheads = new EnumMap<>(DockerOperationClass.class);
+    private final Map<DockerOperationClass, Long> deadlines = new EnumMap<>(DockerOperationClass.class);
+    private DockerCircuitBreaker circuitBreaker;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        DockerConfig.Guard guard = dockerConfig.getGuard();
+        int totalConcurrent = 0;
+        for (DockerOperationClass operationClass : DockerOperationClass.values()) {
+            DockerConfig.Limit limit = guard.getLimits().get(operationClass.getKey());
+            int maxConcurrent = limit != null && limit.getMaxConcurrent() != null ? limit.getMaxConcurrent() : operationClass.getDefaultMaxConcurrent();
+            long deadline = limit != null && limit.getDeadline() != null ? limit.getDeadline() : operationClass.getDefaultDeadline();
+            bulkheads.put(operationClass, new Semaphore(maxConcurrent));
+            deadlines.put(operationClass, deadline);
+            totalConcurrent += maxConcurrent;
+        }
+        circuitBreaker = new DockerCircuitBreaker(guard.getFailureThreshold(), guard.getOpenDuration());
+
+        // 线程数由隔离舱许可总数约束，额外预留一个给 ping 探测
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(0, totalConcurrent + 1, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "docker-call-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在保护层中执行 Docker 调用
+     * 调用本身抛出的异常原样抛出；限流、超时、熔断时抛出 DockerOperationException
+     *
+     * @param operationClass 操作分类
+     * @param operationName  操作名称，用于日志和错误信息
+     * @param call           实际的 Docker 调用
+     */
+    public <T> T execute(DockerOperationClass operationClass, String operationName, Supplier<T> call) {
+        if (!circuitBreaker.isClosed() && !probe()) {
+            throw new DockerOperationException(DockerErrorCode.DOCKER_DAEMON_UNAVAILABLE,
+                    String.format("%s失败：%s（已熔断）", operationName, DockerErrorCode.DOCKER_DAEMON_UNAVAILABLE.getMessage()), null);
+        }
+
+        Semaphore bulkhead = bulkheads.get(operationClass);
+        acquire(bulkhead, operationClass, operationName);
+        Future<T> future;
+        try {
+            // 许可在调用真正结束时才释放，超时后仍卡在守护进程上的调用会继续占用隔离舱
+            future = executor.submit(() -> {
+                try {
+                    return call.get();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        }
+
+        long deadline = deadlines.get(operationClass);
+        try {
+            T result = future.get(deadline, TimeUnit.MILLISECONDS);
+            onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Docker 调用超时: {} ({}ms)", operationName, deadline);
+            onFailure();
+            throw new DockerOperationException(DockerErrorCode.DOCKER_OPERATION_TIMEOUT,
+                    String.format("%s失败：%s（%dms）", operationName, DockerErrorCode.DOCKER_OPERATION_TIMEOUT.getMessage(), deadline), e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (isDaemonFailure(cause)) {
+                onFailure();
+            } else {
+                // 业务错误（容器不存在、端口冲突等）说明守护进程本身是正常的
+                onSuccess();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new DockerOperationException(DockerErrorCode.UNKNOWN_ERROR, operationName + "被中断", e);
+        }
+    }
+
+    /**
+     * 在保护层中执行无返回值的 Docker 调用
+     */
+    public void execute(DockerOperationClass operationClass, String operationName, Runnable call) {
+        execute(operationClass, operationName, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return 指定分类的调用截止时间（毫秒）
+     */
+    public long getDeadline(DockerOperationClass operationClass) {
+        return deadlines.get(operationClass);
+    }
+
+    /**
+     * @return 熔断器当前状态
+     */
+    public DockerCircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * 熔断打开时间到期后，由抢到探测权的调用方执行一次 ping
+     *
+     * @return 探测成功（熔断已关闭）返回 true
+     */
+    private boolean probe() {
+        if (!circuitBreaker.tryHalfOpen()) {
+            return false;
+        }
+        Callable<Object> ping = () -> dockerClient.pingCmd().exec();
+        Future<Object> future = null;
+        try {
+            future = executor.submit(ping);
+            future.get(dockerConfig.getGuard().getProbeTimeout(), TimeUnit.MILLISECONDS);
+            onSuccess();
+            return true;
+        } catch (Exception e) {
+            if (future != null) {
+                future.cancel(true);
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("Docker 守护进程探测失败: {}", e.getMessage());
+            circuitBreaker.onFailure();
+            return false;
+        }
+    }
+
+    private void acquire(Semaphore bulkhead, DockerOperationClass operationClass, String operationName) {
+        try {
+            if (bulkhead.tryAcquire(dockerConfig.getGuard().getAcquireTimeout(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.warn("Docker {} 类调用已达并发上限，拒绝: {}", operationClass.getKey(), operationName);
+        throw new DockerOperationException(DockerErrorCode.DOCKER_BUSY,
+                String.format("%s失败：%s", operationName, DockerErrorCode.DOCKER_BUSY.getMessage()), null);
+    }
+
+    private void onSuccess() {
+        if (circuitBreaker.onSuccess()) {
+            LogUtil.logSysInfo("Docker 守护进程已恢复，熔断关闭");
+        }
+    }
+
+    private void onFailure() {
+        if (circuitBreaker.onFailure()) {
+            LogUtil.logSysError("Docker 守护进程连续 " + dockerConfig.getGuard().getFailureThreshold() + " 次请求失败，熔断 "
+                    + dockerConfig.getGuard().getOpenDuration() + "ms");
+        }
+    }
+
+    /**
+     * 连接失败、读写超时等 IO 问题才视为守护进程故障
+     */
+    private static boolean isDaemonFailure(Throwable throwable) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof IOException) {
+                return true;
+            }
+            String message = t.getMessage();
+            if (message != null && message.contains("Cannot connect to the Docker daemon")) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+}
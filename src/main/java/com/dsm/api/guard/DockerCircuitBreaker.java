@@ -0,0 +1,77 @@
+package com.dsm.api.guard;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Docker 守护进程熔断器
+ * 连续失败达到阈值后打开，打开期间所有请求快速失败；
+ * 打开时间到期后只允许一个调用方进入半开状态做探测，探测成功才关闭
+ */
+public class DockerCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDuration;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    public DockerCircuitBreaker(int failureThreshold, long openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public boolean isClosed() {
+        return state.get() == State.CLOSED;
+    }
+
+    /**
+     * 尝试进入半开状态，只有打开时间已到期且抢到探测权的调用方返回 true
+     */
+    public boolean tryHalfOpen() {
+        return state.get() == State.OPEN
+                && System.currentTimeMillis() - openedAt >= openDuration
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN);
+    }
+
+    /**
+     * 记录一次成功调用
+     *
+     * @return 熔断器是否因此从非关闭状态恢复
+     */
+    public boolean onSuccess() {
+        consecutiveFailures.set(0);
+        return state.getAndSet(State.CLOSED) != State.CLOSED;
+    }
+
+    /**
+     * 记录一次守护进程故障（超时、连接失败等）
+     *
+     * @return 熔断器是否因此从关闭状态打开
+     */
+    public boolean onFailure() {
+        if (state.get() == State.HALF_OPEN) {
+            open();
+            return false;
+        }
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && state.compareAndSet(State.CLOSED, State.OPEN)) {
+            openedAt = System.currentTimeMillis();
+            return true;
+        }
+        return false;
+    }
+
+    private void open() {
+        openedAt = System.currentTimeMillis();
+        state.set(State.OPEN);
+    }
+}
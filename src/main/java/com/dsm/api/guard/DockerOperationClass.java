@@ -0,0 +1,49 @@
+package com.dsm.api.guard;
+
+/**
+ * Docker 操作分类，每类操作使用独立的并发隔离舱和超时时间，
+ * 避免一类慢操作占满所有线程
+ */
+public enum DockerOperationClass {
+    /**
+     * 容器/镜像的创建、启动、停止、删除等变更操作
+     */
+    LIFECYCLE("lifecycle", 10, 60000L),
+    /**
+     * 单个对象的详情查询
+     */
+    INSPECT("inspect", 20, 10000L),
+    /**
+     * 列表查询
+     */
+    LIST("list", 10, 15000L),
+    /**
+     * 统计、日志等基于流的读取
+     */
+    STREAM("stream", 20, 30000L);
+
+    private final String key;
+    private final int defaultMaxConcurrent;
+    private final long defaultDeadline;
+
+    DockerOperationClass(String key, int defaultMaxConcurrent, long defaultDeadline) {
+        this.key = key;
+        this.defaultMaxConcurrent = defaultMaxConcurrent;
+        this.defaultDeadline = defaultDeadline;
+    }
+
+    /**
+     * @return 配置项 docker.guard.limits 中使用的键
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public int getDefaultMaxConcurrent() {
+        return defaultMaxConcurrent;
+    }
+
+    public long getDefaultDeadline() {
+        return defaultDeadline;
+    }
+}
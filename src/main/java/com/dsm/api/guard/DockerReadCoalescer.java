@@ -0,0 +1,149 @@
+package com.dsm.api.guard;
+
+import com.dsm.api.ContainerStateCache;
+import com.dsm.config.DockerConfig;
+import com.dsm.event.DockerEventReceivedEvent;
+import com.dsm.model.dto.DockerCoalesceStatsDTO;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Docker 只读请求合并
+ * 相同操作和参数的并发读取只向守护进程发送一次请求，其余调用方等待并共享同一结果；
+ * 配置了新鲜窗口时，窗口内的重复读取直接复用上一次的结果。
+ * 共享结果不可修改，调用方需要排序等操作时应先复制。
+ * 每次变更（invalidate）都会推进代数：变更前发起的读取不再被变更后的调用方加入，其结果也不会写入新鲜窗口
+ */
+@Component
+public class DockerReadCoalescer {
+
+    @Resource
+    private DockerConfig dockerConfig;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Recent> recent = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 合并执行只读请求
+     *
+     * @param operation 操作名称，用于统计
+     * @param argument  参数，与操作名称一起构成合并键，无参数时传 null
+     * @param read      实际的读取调用
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(String operation, String argument, Supplier<T> read) {
+        String key = argument == null ? operation : operation + ":" + argument;
+        Counter counter = counters.computeIfAbsent(operation, k -> new Counter());
+        counter.calls.incrementAndGet();
+
+        long freshnessWindow = dockerConfig.getCoalesce().getFreshnessWindow();
+        long currentGeneration = generation.get();
+        if (freshnessWindow > 0) {
+            Recent cached = recent.get(key);
+            if (cached != null && cached.generation == currentGeneration
+                    && System.currentTimeMillis() - cached.completedAt < freshnessWindow) {
+                counter.cached.incrementAndGet();
+                return (T) cached.value;
+            }
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        String flightKey = currentGeneration + "|" + key;
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, mine);
+        if (existing != null) {
+            counter.collapsed.incrementAndGet();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+            }
+        }
+
+        try {
+            T value = read.get();
+            // 读取期间发生过变更时结果可能已过期，不写入新鲜窗口
+            if (freshnessWindow > 0 && generation.get() == currentGeneration) {
+                recent.put(key, new Recent(value, System.currentTimeMillis(), currentGeneration));
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    /**
+     * 推进代数并清空新鲜窗口内的结果，本进程发起变更后调用
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        recent.clear();
+    }
+
+    /**
+     * 守护进程上有变化时，窗口内的结果都可能已过期；
+     * 健康检查不断产生的 exec_* 和 health_status 等不改变读取结果的容器动作不使窗口失效，否则合并几乎总被打断
+     */
+    @EventListener
+    public void onDockerEvent(DockerEventReceivedEvent receivedEvent) {
+        Event event = receivedEvent.getEvent();
+        String action = event.getAction() != null ? event.getAction() : event.getStatus();
+        if (event.getType() == EventType.CONTAINER && action != null) {
+            String baseAction = ContainerStateCache.baseAction(action);
+            if (ContainerStateCache.isNoOpAction(baseAction) || "health_status".equals(baseAction)) {
+                return;
+            }
+        }
+        invalidate();
+    }
+
+    /**
+     * @return 各操作的调用数及被合并的调用数
+     */
+    public List<DockerCoalesceStatsDTO> getStats() {
+        List<DockerCoalesceStatsDTO> result = new ArrayList<>();
+        counters.forEach((operation, counter) -> result.add(DockerCoalesceStatsDTO.builder()
+                .operation(operation)
+                .calls(counter.calls.get())
+                .collapsed(counter.collapsed.get())
+                .cached(counter.cached.get())
+                .build()));
+        return result;
+    }
+
+    private static class Recent {
+        private final Object value;
+        private final long completedAt;
+        private final long generation;
+
+        Recent(Object value, long completedAt, long generation) {
+            this.value = value;
+            this.completedAt = completedAt;
+            this.generation = generation;
+        }
+    }
+
+    private static class Counter {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong collapsed = new AtomicLong();
+        private final AtomicLong cached = new AtomicLong();
+    }
+}
@@ -0,0 +1,119 @@
+package com.dsm.api.metrics;
+
+import com.dsm.exception.DockerErrorCode;
+import com.dsm.model.dto.DockerOperationMetricsDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Docker 操作耗时统计
+ * 每个操作名称一个直方图，首次出现时创建，之后的记录不再分配对象
+ */
+@Component
+public class DockerOperationMetrics {
+
+    private static final DockerErrorCode[] ERROR_CODES = DockerErrorCode.values();
+    private static final double[] QUANTILES = {0.5, 0.95, 0.99};
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次调用
+     *
+     * @param operationName 操作名称
+     * @param nanos         耗时（纳秒）
+     * @param errorCode     失败时的错误码，成功传 null
+     */
+    public void record(String operationName, long nanos, DockerErrorCode errorCode) {
+        LatencyHistogram histogram = histograms.get(operationName);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(operationName, k -> new LatencyHistogram());
+        }
+        histogram.record(nanos, errorCode);
+    }
+
+    /**
+     * @return 所有操作的统计快照
+     */
+    public List<DockerOperationMetricsDTO> snapshot() {
+        List<DockerOperationMetricsDTO> result = new ArrayList<>();
+        histograms.forEach((operation, histogram) -> {
+            long count = histogram.getCount();
+            Map<String, Long> errors = new LinkedHashMap<>();
+            long errorCount = 0;
+            for (DockerErrorCode code : ERROR_CODES) {
+                long value = histogram.getErrorCount(code);
+                if (value > 0) {
+                    errors.put(code.name(), value);
+                    errorCount += value;
+                }
+            }
+            result.add(DockerOperationMetricsDTO.builder()
+                    .operation(operation)
+                    .count(count)
+                    .errorCount(errorCount)
+                    .mean(count == 0 ? 0 : toMillis(histogram.getSumMicros()) / count)
+                    .p50(toMillis(histogram.getQuantileMicros(0.5)))
+                    .p95(toMillis(histogram.getQuantileMicros(0.95)))
+                    .p99(toMillis(histogram.getQuantileMicros(0.99)))
+                    .max(toMillis(histogram.getMaxMicros()))
+                    .errors(errors)
+                    .build());
+        });
+        result.sort((a, b) -> a.getOperation().compareTo(b.getOperation()));
+        return result;
+    }
+
+    /**
+     * 以 Prometheus 文本格式输出
+     */
+    public String toPrometheusText() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# HELP docker_operation_duration_seconds Docker API 调用耗时\n");
+        sb.append("# TYPE docker_operation_duration_seconds summary\n");
+        histograms.forEach((operation, histogram) -> {
+            String label = escapeLabel(operation);
+            for (double quantile : QUANTILES) {
+                sb.append("docker_operation_duration_seconds{operation=\"").append(label).append("\",quantile=\"").append(quantile).append("\"} ")
+                        .append(toSeconds(histogram.getQuantileMicros(quantile))).append('\n');
+            }
+            sb.append("docker_operation_duration_seconds_sum{operation=\"").append(label).append("\"} ").append(toSeconds(histogram.getSumMicros())).append('\n');
+            sb.append("docker_operation_duration_seconds_count{operation=\"").append(label).append("\"} ").append(histogram.getCount()).append('\n');
+        });
+
+        sb.append("# HELP docker_operation_duration_max_seconds Docker API 调用最大耗时\n");
+        sb.append("# TYPE docker_operation_duration_max_seconds gauge\n");
+        histograms.forEach((operation, histogram) -> sb.append("docker_operation_duration_max_seconds{operation=\"").append(escapeLabel(operation)).append("\"} ")
+                .append(toSeconds(histogram.getMaxMicros())).append('\n'));
+
+        sb.append("# HELP docker_operation_errors_total Docker API 调用失败次数\n");
+        sb.append("# TYPE docker_operation_errors_total counter\n");
+        histograms.forEach((operation, histogram) -> {
+            for (DockerErrorCode code : ERROR_CODES) {
+                long value = histogram.getErrorCount(code);
+                if (value > 0) {
+                    sb.append("docker_operation_errors_total{operation=\"").append(escapeLabel(operation)).append("\",code=\"").append(code.name()).append("\"} ")
+                            .append(value).append('\n');
+                }
+            }
+        });
+        return sb.toString();
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static double toSeconds(long micros) {
+        return micros / 1_000_000.0;
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,168 @@
+package com.dsm.api.pull;
+
+import com.dsm.api.DockerClientWrapper;
+import com.dsm.api.registry.ImageReference;
+import com.dsm.api.registry.RegistryRoute;
+import com.dsm.api.registry.RegistryRouteSelector;
+import com.dsm.api.task.CancellationToken;
+import com.dsm.config.DockerConfig;
+import com.dsm.utils.LogUtil;
+import com.dsm.websocket.callback.PullImageCallback;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.PullResponseItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 通过 Docker 守护进程拉取镜像（pullImageCmd）
+ * 逐层汇总 progressDetail 得到真实的字节进度和下载速度，按 docker.pull.progress-interval 限制回调频率；
+ * 取消时关闭拉取连接，守护进程随之中止拉取。
+ * 直连和代理由守护进程自身的配置决定，两者合并为一条默认线路；配置了镜像加速地址时，
+ * 按线路评分决定先从加速地址拉取（拉取后改回原名称）还是走默认线路，失败时依次回退
+ */
+@Slf4j
+@Component
+public class DaemonPullEngine implements ImagePullEngine {
+
+    public static final String NAME = "daemon";
+
+    @Resource
+    private DockerClientWrapper dockerClientWrapper;
+    @Resource
+    private DockerConfig dockerConfig;
+    @Resource
+    private RegistryRouteSelector routeSelector;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void pull(String image, String tag, PullImageCallback callback, CancellationToken token) {
+        String pullTag = tag != null && !tag.isEmpty() ? tag : "latest";
+        String fullImageName = image + ":" + pullTag;
+        LogUtil.logSysInfo("开始通过 Docker 拉取镜像: " + fullImageName);
+        ImageReference ref = ImageReference.parse(image, pullTag);
+        List<RegistryRoute> routes = daemonRoutes(ref);
+        String message = null;
+        for (int i = 0; i < routes.size(); i++) {
+            RegistryRoute route = routes.get(i);
+            boolean mirror = route.getType() == RegistryRoute.Type.MIRROR;
+            String pullImage = route.imageName(ref, image);
+            long start = System.currentTimeMillis();
+            try {
+                PullProgress progress = pullOnce(pullImage, pullTag, callback, token);
+                if (mirror) {
+                    // 从加速地址拉取的镜像改回原名称，再去掉加速地址的标签
+                    dockerClientWrapper.tagImage(pullImage + ":" + pullTag, image, pullTag);
+                    dockerClientWrapper.untagImage(pullImage + ":" + pullTag);
+                    routeSelector.recordTransfer(route, progress.getTotalBytes(), System.currentTimeMillis() - start);
+                }
+                LogUtil.logSysInfo("镜像拉取完成: " + fullImageName + (mirror ? "（经 " + route.getMirrorHost() + "）" : ""));
+                if (callback != null) {
+                    callback.onProgress(progress);
+                    callback.onComplete();
+                }
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                message = "镜像拉取已取消";
+                break;
+            } catch (Exception e) {
+                if (token.isCancelled()) {
+                    message = "镜像拉取已取消";
+                    break;
+                }
+                message = e.getMessage();
+                if (mirror) {
+                    routeSelector.recordFailure(route, message);
+                }
+                if (i < routes.size() - 1) {
+                    log.info("线路 {} 拉取 {} 失败，切换到下一条线路: {}", route, fullImageName, message);
+                    if (callback != null) {
+                        callback.onProgress(0, "线路 " + route.getId() + " 拉取失败，切换到下一条线路");
+                    }
+                }
+            }
+        }
+        LogUtil.logSysError("通过 Docker 拉取镜像失败: " + fullImageName + ", " + message);
+        if (callback != null) {
+            callback.onError(message);
+        }
+        throw new RuntimeException("通过 Docker 拉取镜像失败: " + message);
+    }
+
+    /**
+     * 守护进程可用的线路：加速地址各自一条，直连和代理合并为一条默认线路，保持评分顺序
+     */
+    private List<RegistryRoute> daemonRoutes(ImageReference ref) {
+        List<RegistryRoute> result = new ArrayList<>();
+        boolean defaultAdded = false;
+        for (RegistryRoute route : routeSelector.routes(ref)) {
+            if (route.getType() == RegistryRoute.Type.MIRROR) {
+                result.add(route);
+            } else if (!defaultAdded) {
+                result.add(route);
+                defaultAdded = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 拉取一次，成功时返回最终进度
+     */
+    private PullProgress pullOnce(String image, String tag, PullImageCallback callback, CancellationToken token) throws InterruptedException {
+        long progressInterval = dockerConfig.getPull().getProgressInterval();
+        LayerProgressAggregator aggregator = new LayerProgressAggregator();
+        StringBuilder error = new StringBuilder();
+
+        ResultCallback.Adapter<PullResponseItem> resultCallback = new ResultCallback.Adapter<PullResponseItem>() {
+            private long lastEmit;
+
+            @Override
+            public void onNext(PullResponseItem item) {
+                if (item.getErrorDetail() != null) {
+                    error.append(item.getErrorDetail().getMessage());
+                    return;
+                }
+                aggregator.accept(item);
+                long now = System.currentTimeMillis();
+                if (callback != null && now - lastEmit >= progressInterval) {
+                    lastEmit = now;
+                    callback.onProgress(aggregator.snapshot());
+                }
+            }
+        };
+
+        Runnable cancelRegistration = token.onCancel(() -> {
+            try {
+                resultCallback.close();
+            } catch (IOException e) {
+                log.debug("关闭拉取连接失败: {}", e.getMessage());
+            }
+        });
+        try {
+            token.throwIfCancelled();
+            dockerClientWrapper.pullImageCmd(image).withTag(tag).exec(resultCallback).awaitCompletion();
+            token.throwIfCancelled();
+            if (error.length() > 0) {
+                throw new RuntimeException(error.toString());
+            }
+            return aggregator.complete("拉取完成");
+        } finally {
+            cancelRegistration.run();
+            try {
+                resultCallback.close();
+            } catch (IOException e) {
+                log.debug("关闭拉取回调失败: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.dsm.api.pull;
+
+import com.dsm.api.DockerService;
+import com.dsm.api.registry.ImageReference;
+import com.dsm.api.task.CancellationToken;
+import com.dsm.api.task.TaskType;
+import com.dsm.config.DockerConfig;
+import com.dsm.exception.TaskCancelledException;
+import com.dsm.mapper.TemplateMapper;
+import com.dsm.pojo.entity.Template;
+import com.dsm.utils.LogUtil;
+import com.dsm.websocket.callback.PullImageCallback;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.model.Image;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 应用商店镜像预拉取
+ * 安装检查发现缺少的镜像立即以后台优先级排队拉取，空闲时可预拉取常用模板的镜像；
+ * 真正安装时若镜像仍在拉取，会把该任务提升为交互优先级并等待，而不是重新拉取
+ */
+@Slf4j
+@Component
+public class ImagePrefetcher {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Resource
+    private DockerService dockerService;
+    @Resource
+    private ImagePullManager imagePullManager;
+    @Resource
+    private TemplateMapper templateMapper;
+    @Resource
+    private DockerConfig dockerConfig;
+
+    /**
+     * 安装检查之后预拉取缺少的镜像
+     *
+     * @param images 检查结果中不存在的镜像（name:tag）
+     */
+    public void prefetchMissing(Collection<String> images) {
+        if (!dockerConfig.getPrefetch().getOnCheck() || images.isEmpty()) {
+            return;
+        }
+        for (String image : images) {
+            String[] nameTag = splitImage(image);
+            imagePullManager.submit(nameTag[0], nameTag[1], TaskType.PULL, ImagePullManager.PRIORITY_BACKGROUND, null);
+        }
+        LogUtil.logSysInfo("已预拉取安装所需的镜像 " + images.size() + " 个: " + String.join(", ", images));
+    }
+
+    /**
+     * 空闲时预拉取排序靠前模板的镜像，已有拉取进行中时跳过本轮
+     */
+    @Scheduled(initialDelayString = "${docker.prefetch.idle-interval:1800000}", fixedDelayString = "${docker.prefetch.idle-interval:1800000}")
+    public void prefetchPopularTemplates() {
+        DockerConfig.Prefetch config = dockerConfig.getPrefetch();
+        if (!config.getIdleEnabled() || !imagePullManager.isIdle()) {
+            return;
+        }
+        try {
+            Set<String> images = new LinkedHashSet<>();
+            for (Template template : templateMapper.selectPopularTemplates(config.getPopularLimit())) {
+                images.addAll(templateImages(template.getTemplate()));
+            }
+            Set<String> local = localImages();
+            List<String> missing = new ArrayList<>();
+            for (String image : images) {
+                if (!local.contains(normalize(image))) {
+                    missing.add(image);
+                }
+            }
+            if (missing.isEmpty()) {
+                return;
+            }
+            for (String image : missing) {
+                String[] nameTag = splitImage(image);
+                imagePullManager.submit(nameTag[0], nameTag[1], TaskType.PULL, ImagePullManager.PRIORITY_BACKGROUND, null);
+            }
+            LogUtil.logSysInfo("空闲预拉取常用模板镜像 " + missing.size() + " 个: " + String.join(", ", missing));
+        } catch (Exception e) {
+            LogUtil.logSysError("空闲预拉取镜像失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 确保镜像已在本地，缺少时以交互优先级拉取并等待；已在预拉取中的任务会被提升优先级后复用
+     *
+     * @param image    镜像（name:tag）
+     * @param token    安装任务的取消令牌，取消时退订并停止等待，没有其他请求方时拉取也随之取消
+     * @param callback 拉取进度回调，可为 null
+     * @return 是否进行了拉取
+     */
+    public boolean ensureLocal(String image, CancellationToken token, PullImageCallback callback) throws InterruptedException {
+        if (localImages().contains(normalize(image))) {
+            return false;
+        }
+        String[] nameTag = splitImage(image);
+        PullSubscription subscription = imagePullManager.submit(nameTag[0], nameTag[1], TaskType.PULL, ImagePullManager.PRIORITY_INTERACTIVE, callback);
+        Runnable cancelRegistration = token.onCancel(subscription::cancel);
+        try {
+            subscription.getCompletion().get();
+            return true;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TaskCancelledException) {
+                throw new TaskCancelledException("等待镜像拉取时任务被取消: " + image);
+            }
+            throw new RuntimeException("拉取镜像失败: " + image + ", " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            cancelRegistration.run();
+        }
+    }
+
+    /**
+     * 模板中所有服务使用的镜像
+     */
+    public static List<String> templateImages(String templateJson) {
+        List<String> images = new ArrayList<>();
+        if (templateJson == null || templateJson.isBlank()) {
+            return images;
+        }
+        try {
+            JsonNode services = OBJECT_MAPPER.readTree(templateJson).get("services");
+            if (services == null || !services.isArray()) {
+                return images;
+            }
+            for (JsonNode service : services) {
+                JsonNode image = service.path("template").get("image");
+                if (image != null && image.isTextual() && !image.asText().isBlank()) {
+                    images.add(image.asText());
+                }
+            }
+        } catch (Exception e) {
+            log.debug("解析模板镜像失败: {}", e.getMessage());
+        }
+        return images;
+    }
+
+    /**
+     * 拆分镜像名称和标签，冒号在最后一个 / 之后才是标签分隔符（兼容带端口的仓库地址）
+     */
+    public static String[] splitImage(String image) {
+        int colon = image.lastIndexOf(':');
+        if (colon > image.lastIndexOf('/')) {
+            return new String[]{image.substring(0, colon), image.substring(colon + 1)};
+        }
+        return new String[]{image, "latest"};
+    }
+
+    private Set<String> localImages() {
+        Set<String> result = new HashSet<>();
+        for (Image image : dockerService.listImages()) {
+            if (image.getRepoTags() != null) {
+                for (String repoTag : image.getRepoTags()) {
+                    result.add(normalize(repoTag));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String normalize(String image) {
+        return ImageReference.parse(image, null).toString();
+    }
+}
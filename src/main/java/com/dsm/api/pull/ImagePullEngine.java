@@ -0,0 +1,27 @@
+package com.dsm.api.pull;
+
+import com.dsm.api.task.CancellationToken;
+import com.dsm.websocket.callback.PullImageCallback;
+
+/**
+ * 镜像拉取引擎
+ * 由 docker.pull.engine 选择具体实现
+ */
+public interface ImagePullEngine {
+
+    /**
+     * @return 引擎名称，对应 docker.pull.engine 的取值
+     */
+    String getName();
+
+    /**
+     * 拉取镜像，阻塞直到完成
+     * 失败或被取消时先回调 onError 再抛出 RuntimeException
+     *
+     * @param image    镜像名称
+     * @param tag      镜像标签
+     * @param callback 进度回调，可为 null
+     * @param token    取消令牌，取消时须尽快中止并释放连接或子进程
+     */
+    void pull(String image, String tag, PullImageCallback callback, CancellationToken token);
+}
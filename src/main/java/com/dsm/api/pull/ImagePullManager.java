@@ -0,0 +1,265 @@
+package com.dsm.api.pull;
+
+import com.dsm.api.DockerService;
+import com.dsm.api.registry.ImageReference;
+import com.dsm.api.task.TaskRegistry;
+import com.dsm.api.task.TaskType;
+import com.dsm.config.DockerConfig;
+import com.dsm.exception.TaskCancelledException;
+import com.dsm.model.dto.ImagePullTaskDTO;
+import com.dsm.utils.LogUtil;
+import com.dsm.websocket.callback.PullImageCallback;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 全局镜像拉取管理
+ * 所有拉取都经过这里：同一镜像引用只拉一次，后来的请求订阅同一个任务；
+ * 同时进行的拉取数受 docker.pull.max-concurrent 限制，排队的任务按优先级、再按提交顺序执行
+ */
+@Slf4j
+@Component
+public class ImagePullManager {
+
+    /**
+     * 用户在页面上发起的拉取
+     */
+    public static final int PRIORITY_INTERACTIVE = 10;
+    /**
+     * 镜像更新
+     */
+    public static final int PRIORITY_UPDATE = 5;
+    /**
+     * 后台预拉取
+     */
+    public static final int PRIORITY_BACKGROUND = 0;
+
+    @Resource
+    private DockerService dockerService;
+    @Resource
+    private DockerConfig dockerConfig;
+    @Resource
+    private TaskRegistry taskRegistry;
+
+    private final Map<String, PullRunner> active = new HashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger threadIndex = new AtomicInteger();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int maxConcurrent = Math.max(1, dockerConfig.getPull().getMaxConcurrent());
+        executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "image-pull-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交拉取，同一镜像已在排队或拉取中时加入该任务
+     * 每次调用得到自己的订阅并在 TaskRegistry 中登记，取消订阅只退订本次调用，最后一个订阅退订时才取消拉取
+     *
+     * @param image      镜像名称
+     * @param tag        镜像标签
+     * @param type       登记的任务类型（拉取或更新）
+     * @param priority   优先级，合并时取较高者
+     * @param subscriber 进度回调，可为 null
+     * @return 本次调用的订阅
+     */
+    public PullSubscription submit(String image, String tag, TaskType type, int priority, PullImageCallback subscriber) {
+        String normalizedTag = tag != null && !tag.isEmpty() ? tag : "latest";
+        String reference = ImageReference.parse(image, normalizedTag).toString();
+        PullRunner runner;
+        PullSubscription subscription;
+        boolean created;
+        synchronized (active) {
+            runner = active.get(reference);
+            created = runner == null;
+            if (created) {
+                runner = new PullRunner(new ImagePullTask(reference, image, normalizedTag, priority, sequence.incrementAndGet()));
+                PullRunner queued = runner;
+                runner.task.getToken().onCancel(() -> cancelQueued(queued));
+                active.put(reference, runner);
+            } else if (priority > runner.task.getPriority() && executor.getQueue().remove(runner)) {
+                // 排队中的任务提高优先级需要重新入队才能调整顺序
+                runner.task.setPriority(priority);
+                executor.execute(runner);
+            }
+            runner.task.retain();
+            subscription = new PullSubscription(taskRegistry.register(type, reference), runner.task);
+            PullRunner leased = runner;
+            PullSubscription leasedSubscription = subscription;
+            subscription.onCancel(() -> unsubscribe(leased, leasedSubscription));
+            if (created) {
+                executor.execute(runner);
+            }
+        }
+        if (!created) {
+            log.debug("合并重复的镜像拉取: {}", reference);
+        }
+        subscription.subscribe(subscriber);
+        return subscription;
+    }
+
+    /**
+     * 提交拉取并等待完成，等待被中断时退订
+     *
+     * @throws RuntimeException 拉取失败
+     */
+    public void pull(String image, String tag, TaskType type, int priority, PullImageCallback subscriber) {
+        PullSubscription subscription = submit(image, tag, type, priority, subscriber);
+        try {
+            subscription.await();
+        } catch (InterruptedException e) {
+            subscription.cancel();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("等待镜像拉取被中断: " + subscription.getTask().getReference());
+        }
+    }
+
+    /**
+     * 订阅被取消：退订该请求方，没有其他请求方时取消拉取
+     */
+    private void unsubscribe(PullRunner runner, PullSubscription subscription) {
+        if (runner.task.getCompletion().isDone()) {
+            return;
+        }
+        boolean last;
+        synchronized (active) {
+            last = runner.task.release() <= 0;
+            if (last) {
+                // 先移出，之后的新请求重新拉取而不是加入正在取消的任务
+                active.remove(runner.task.getReference(), runner);
+            }
+        }
+        subscription.detach();
+        if (last) {
+            LogUtil.logSysInfo("镜像拉取的所有请求方都已取消，停止拉取: " + runner.task.getReference());
+            runner.task.getToken().cancel();
+        } else {
+            log.debug("退订镜像拉取: {}，仍有 {} 个请求方", runner.task.getReference(), runner.task.getSubscriberCount());
+        }
+    }
+
+    /**
+     * 排队中的任务直接移出队列；已开始的由拉取引擎响应取消令牌
+     */
+    private void cancelQueued(PullRunner runner) {
+        synchronized (active) {
+            if (!executor.getQueue().remove(runner)) {
+                return;
+            }
+            active.remove(runner.task.getReference(), runner);
+        }
+        runner.task.markFinished(new TaskCancelledException("镜像拉取已取消"));
+    }
+
+    /**
+     * @return 是否没有进行中或排队中的拉取
+     */
+    public boolean isIdle() {
+        synchronized (active) {
+            return active.isEmpty();
+        }
+    }
+
+    /**
+     * 进行中和排队中的拉取，进行中的在前，排队的按执行顺序
+     */
+    public List<ImagePullTaskDTO> listTasks() {
+        List<ImagePullTask> running = new ArrayList<>();
+        List<ImagePullTask> queued = new ArrayList<>();
+        synchronized (active) {
+            for (PullRunner runner : active.values()) {
+                (runner.task.getState() == ImagePullTask.State.QUEUED ? queued : running).add(runner.task);
+            }
+        }
+        queued.sort(ImagePullTask::compareTo);
+        List<ImagePullTaskDTO> result = new ArrayList<>();
+        for (ImagePullTask task : running) {
+            result.add(toDTO(task, null));
+        }
+        for (int i = 0; i < queued.size(); i++) {
+            result.add(toDTO(queued.get(i), i + 1));
+        }
+        return result;
+    }
+
+    private ImagePullTaskDTO toDTO(ImagePullTask task, Integer position) {
+        PullProgress progress = task.getLastProgress();
+        return ImagePullTaskDTO.builder()
+                .id(task.getId())
+                .reference(task.getReference())
+                .state(task.getState().name())
+                .priority(task.getPriority())
+                .queuePosition(position)
+                .subscribers(task.getSubscriberCount())
+                .percent(progress != null ? progress.getPercent() : 0)
+                .status(progress != null ? progress.getStatus() : null)
+                .currentBytes(progress != null ? progress.getCurrentBytes() : 0)
+                .totalBytes(progress != null ? progress.getTotalBytes() : 0)
+                .bytesPerSecond(progress != null ? progress.getBytesPerSecond() : 0)
+                .queuedAt(new Date(task.getQueuedAt()))
+                .startedAt(task.getStartedAt() > 0 ? new Date(task.getStartedAt()) : null)
+                .build();
+    }
+
+    private void run(PullRunner runner) {
+        ImagePullTask task = runner.task;
+        task.markRunning();
+        Throwable failure = null;
+        try {
+            dockerService.pullImage(task.getImage(), task.getTag(), task, task.getToken());
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            // 先移出再通知完成，完成之后的新请求会重新拉取而不是加入已结束的任务
+            synchronized (active) {
+                active.remove(task.getReference(), runner);
+            }
+            task.markFinished(failure);
+        }
+    }
+
+    /**
+     * 放入优先队列的执行单元，按任务优先级排序
+     */
+    private class PullRunner implements Runnable, Comparable<PullRunner> {
+        private final ImagePullTask task;
+
+        PullRunner(ImagePullTask task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            ImagePullManager.this.run(this);
+        }
+
+        @Override
+        public int compareTo(PullRunner other) {
+            return task.compareTo(other.task);
+        }
+    }
+}
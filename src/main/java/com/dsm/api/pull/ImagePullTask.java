@@ -0,0 +1,243 @@
+package com.dsm.api.pull;
+
+import com.dsm.api.task.CancellationToken;
+import com.dsm.websocket.callback.PullImageCallback;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * 一次镜像拉取任务
+ * 同一镜像引用的多个请求共享一个任务，进度广播给所有订阅者；后加入的订阅者会先收到最近一次进度。
+ * 每个请求方持有一个 PullSubscription，任务自身的取消令牌只在最后一个请求方退订时由 ImagePullManager 触发
+ */
+@Slf4j
+public class ImagePullTask implements Comparable<ImagePullTask>, PullImageCallback {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final CancellationToken token = new CancellationToken();
+    private final String reference;
+    private final String image;
+    private final String tag;
+    private final long sequence;
+    private final long queuedAt = System.currentTimeMillis();
+    private final List<PullImageCallback> subscribers = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    private volatile int priority;
+    private volatile State state = State.QUEUED;
+    private volatile long startedAt;
+    private volatile PullProgress lastProgress;
+    private volatile String error;
+    /**
+     * 持有订阅的请求方数，由 ImagePullManager 在其锁内增减
+     */
+    private volatile int leases;
+    /**
+     * 已发出的结束通知，拉取结束后才加入的订阅者直接补发
+     */
+    private Consumer<PullImageCallback> outcome;
+
+    ImagePullTask(String reference, String image, String tag, int priority, long sequence) {
+        this.reference = reference;
+        this.image = image;
+        this.tag = tag;
+        this.priority = priority;
+        this.sequence = sequence;
+    }
+
+    /**
+     * 加入订阅者，已有进度时立即补发一次
+     */
+    public void subscribe(PullImageCallback subscriber) {
+        if (subscriber == null) {
+            return;
+        }
+        Consumer<PullImageCallback> finished;
+        synchronized (this) {
+            subscribers.add(subscriber);
+            finished = outcome;
+        }
+        PullProgress progress = lastProgress;
+        if (progress != null) {
+            notify(subscriber, s -> s.onProgress(progress));
+        }
+        if (finished != null) {
+            notify(subscriber, finished);
+        }
+    }
+
+    /**
+     * 移除订阅者，不影响拉取本身
+     */
+    void unsubscribe(PullImageCallback subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * 等待拉取结束
+     *
+     * @throws RuntimeException 拉取失败
+     */
+    public void await() throws InterruptedException {
+        try {
+            completion.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * 优先级高的先执行，相同优先级按提交顺序
+     */
+    @Override
+    public int compareTo(ImagePullTask other) {
+        int byPriority = Integer.compare(other.priority, priority);
+        return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+    }
+
+    @Override
+    public void onProgress(int progress, String status) {
+        onProgress(PullProgress.of(progress, status));
+    }
+
+    @Override
+    public void onProgress(PullProgress progress) {
+        lastProgress = progress;
+        for (PullImageCallback subscriber : subscribers) {
+            notify(subscriber, s -> s.onProgress(progress));
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        finish(PullImageCallback::onComplete);
+    }
+
+    @Override
+    public void onError(String message) {
+        error = message;
+        finish(s -> s.onError(message));
+    }
+
+    private void finish(Consumer<PullImageCallback> action) {
+        List<PullImageCallback> current;
+        synchronized (this) {
+            outcome = action;
+            current = List.copyOf(subscribers);
+        }
+        for (PullImageCallback subscriber : current) {
+            notify(subscriber, action);
+        }
+    }
+
+    /**
+     * 单个订阅者出错（例如 WebSocket 已关闭）不影响其他订阅者和拉取本身
+     */
+    private void notify(PullImageCallback subscriber, Consumer<PullImageCallback> action) {
+        try {
+            action.accept(subscriber);
+        } catch (Exception e) {
+            log.debug("通知拉取订阅者失败: {}", e.getMessage());
+        }
+    }
+
+    void markRunning() {
+        state = State.RUNNING;
+        startedAt = System.currentTimeMillis();
+    }
+
+    void markFinished(Throwable failure) {
+        if (failure == null) {
+            state = State.COMPLETED;
+            completion.complete(null);
+        } else {
+            state = State.FAILED;
+            boolean notified;
+            synchronized (this) {
+                notified = outcome != null;
+            }
+            if (!notified) {
+                // 引擎未回调就抛出时也要让订阅者收到失败
+                onError(failure.getMessage());
+            }
+            completion.completeExceptionally(failure);
+        }
+    }
+
+    void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    int retain() {
+        return ++leases;
+    }
+
+    int release() {
+        return --leases;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public CancellationToken getToken() {
+        return token;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getQueuedAt() {
+        return queuedAt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public PullProgress getLastProgress() {
+        return lastProgress;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return 持有订阅的请求方数
+     */
+    public int getSubscriberCount() {
+        return leases;
+    }
+}
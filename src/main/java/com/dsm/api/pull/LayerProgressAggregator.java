@@ -0,0 +1,130 @@
+package com.dsm.api.pull;
+
+import com.github.dockerjava.api.model.PullResponseItem;
+import com.github.dockerjava.api.model.ResponseItem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 汇总 docker pull 返回的逐层进度
+ * 每层记录下载和解压的 current/total，整体进度按下载 80%、解压 20% 计算；
+ * 各层的大小在开始下载时才知道，所以总字节数会增长；百分比只增不减，完成前最多到 99
+ */
+public class LayerProgressAggregator {
+
+    /**
+     * 速度平滑系数
+     */
+    private static final double RATE_ALPHA = 0.3;
+
+    private final Map<String, Layer> layers = new LinkedHashMap<>();
+    private String status = "准备拉取";
+    private long lastBytes;
+    private long lastSampleTime = System.currentTimeMillis();
+    private double bytesPerSecond;
+    private int lastPercent;
+
+    /**
+     * 处理一条拉取响应
+     */
+    public synchronized void accept(PullResponseItem item) {
+        String itemStatus = item.getStatus();
+        if (itemStatus == null) {
+            return;
+        }
+        String id = item.getId();
+        // 没有层ID或层ID是标签本身时是整体状态，例如 Pulling from library/nginx、Digest: ...
+        if (id == null || itemStatus.startsWith("Pulling from")) {
+            status = itemStatus;
+            return;
+        }
+        Layer layer = layers.computeIfAbsent(id, key -> new Layer());
+        ResponseItem.ProgressDetail detail = item.getProgressDetail();
+        long current = detail != null && detail.getCurrent() != null ? detail.getCurrent() : 0;
+        long total = detail != null && detail.getTotal() != null ? detail.getTotal() : 0;
+        switch (itemStatus) {
+            case "Downloading":
+                if (total > 0) {
+                    layer.total = total;
+                }
+                layer.downloaded = current;
+                break;
+            case "Verifying Checksum":
+            case "Download complete":
+                layer.downloaded = layer.total;
+                break;
+            case "Extracting":
+                layer.downloaded = layer.total;
+                if (total > 0) {
+                    layer.total = Math.max(layer.total, total);
+                }
+                layer.extracted = current;
+                break;
+            case "Pull complete":
+                layer.downloaded = layer.total;
+                layer.extracted = layer.total;
+                layer.done = true;
+                break;
+            case "Already exists":
+                layer.done = true;
+                layer.skipped = true;
+                break;
+            default:
+                break;
+        }
+        status = id + ": " + itemStatus;
+    }
+
+    /**
+     * 当前进度快照，同时更新下载速度
+     */
+    public synchronized PullProgress snapshot() {
+        long downloaded = 0;
+        long extracted = 0;
+        long total = 0;
+        int done = 0;
+        for (Layer layer : layers.values()) {
+            if (layer.done) {
+                done++;
+            }
+            if (layer.skipped) {
+                continue;
+            }
+            downloaded += layer.downloaded;
+            extracted += layer.extracted;
+            total += layer.total;
+        }
+
+        long now = System.currentTimeMillis();
+        long elapsed = now - lastSampleTime;
+        if (elapsed > 0) {
+            double sample = Math.max(0, downloaded - lastBytes) * 1000.0 / elapsed;
+            bytesPerSecond = bytesPerSecond == 0 ? sample : RATE_ALPHA * sample + (1 - RATE_ALPHA) * bytesPerSecond;
+            lastBytes = downloaded;
+            lastSampleTime = now;
+        }
+
+        // 新的层开始下载时总量变大，百分比只增不减
+        if (total > 0) {
+            lastPercent = Math.max(lastPercent, (int) Math.min(99, downloaded * 80 / total + extracted * 20 / total));
+        }
+        return new PullProgress(lastPercent, status, downloaded, total, (long) bytesPerSecond, done, layers.size());
+    }
+
+    /**
+     * 拉取完成时的最终进度
+     */
+    public synchronized PullProgress complete(String finalStatus) {
+        PullProgress last = snapshot();
+        return new PullProgress(100, finalStatus, last.getTotalBytes(), last.getTotalBytes(), last.getBytesPerSecond(), layers.size(), layers.size());
+    }
+
+    private static class Layer {
+        private long downloaded;
+        private long extracted;
+        private long total;
+        private boolean done;
+        private boolean skipped;
+    }
+}
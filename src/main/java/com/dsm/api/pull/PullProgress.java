@@ -0,0 +1,73 @@
+package com.dsm.api.pull;
+
+/**
+ * 镜像拉取进度
+ * 字节数只统计下载阶段已知大小的层，skopeo 引擎没有字节信息时为 0
+ */
+public class PullProgress {
+
+    private final int percent;
+    private final String status;
+    private final long currentBytes;
+    private final long totalBytes;
+    private final long bytesPerSecond;
+    private final int layersDone;
+    private final int layersTotal;
+
+    public PullProgress(int percent, String status, long currentBytes, long totalBytes, long bytesPerSecond, int layersDone, int layersTotal) {
+        this.percent = percent;
+        this.status = status;
+        this.currentBytes = currentBytes;
+        this.totalBytes = totalBytes;
+        this.bytesPerSecond = bytesPerSecond;
+        this.layersDone = layersDone;
+        this.layersTotal = layersTotal;
+    }
+
+    /**
+     * 只有百分比和状态文字的进度
+     */
+    public static PullProgress of(int percent, String status) {
+        return new PullProgress(percent, status, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * @return 进度百分比 0-100
+     */
+    public int getPercent() {
+        return percent;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @return 已下载字节数
+     */
+    public long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    /**
+     * @return 已知的总字节数，随着各层开始下载而增长
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * @return 下载速度（字节/秒，平滑后）
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public int getLayersDone() {
+        return layersDone;
+    }
+
+    public int getLayersTotal() {
+        return layersTotal;
+    }
+}
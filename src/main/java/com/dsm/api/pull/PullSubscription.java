@@ -0,0 +1,115 @@
+package com.dsm.api.pull;
+
+import com.dsm.api.task.TaskHandle;
+import com.dsm.exception.TaskCancelledException;
+import com.dsm.websocket.callback.PullImageCallback;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 一个请求方对共享拉取任务的订阅
+ * 以自己的ID登记在 TaskRegistry 中，取消只退订该请求方；所有请求方都退订后 ImagePullManager 才取消共享的拉取。
+ * 拉取结束或退订后从登记表移除
+ */
+@Slf4j
+public class PullSubscription {
+
+    private final TaskHandle handle;
+    private final ImagePullTask task;
+    private final List<PullImageCallback> callbacks = new CopyOnWriteArrayList<>();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    PullSubscription(TaskHandle handle, ImagePullTask task) {
+        this.handle = handle;
+        this.task = task;
+        task.getCompletion().whenComplete((ignored, failure) -> {
+            // 先移出登记表再通知等待方
+            handle.close();
+            if (failure == null) {
+                completion.complete(null);
+            } else {
+                completion.completeExceptionally(failure);
+            }
+        });
+    }
+
+    /**
+     * @return 本订阅在 TaskRegistry 中的ID，用于取消
+     */
+    public String getId() {
+        return handle.getId();
+    }
+
+    public ImagePullTask getTask() {
+        return task;
+    }
+
+    /**
+     * 加入进度回调，退订时一并移除
+     */
+    public void subscribe(PullImageCallback callback) {
+        if (callback == null) {
+            return;
+        }
+        callbacks.add(callback);
+        task.subscribe(callback);
+    }
+
+    /**
+     * 拉取结束时完成；本订阅被取消时以 TaskCancelledException 结束，不影响其他订阅者
+     */
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * 等待拉取结束
+     *
+     * @throws RuntimeException 拉取失败或本订阅被取消
+     */
+    public void await() throws InterruptedException {
+        try {
+            completion.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TaskCancelledException) {
+                throw (TaskCancelledException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 退订，等同于按 getId() 取消任务
+     *
+     * @return 是否由本次调用取消
+     */
+    public boolean cancel() {
+        return handle.getToken().cancel();
+    }
+
+    void onCancel(Runnable hook) {
+        handle.getToken().onCancel(hook);
+    }
+
+    /**
+     * 移除本订阅的回调并通知它们已取消
+     */
+    void detach() {
+        TaskCancelledException cancelled = new TaskCancelledException("镜像拉取已取消");
+        for (PullImageCallback callback : callbacks) {
+            task.unsubscribe(callback);
+            try {
+                callback.onError(cancelled.getMessage());
+            } catch (Exception e) {
+                log.debug("通知拉取订阅者失败: {}", e.getMessage());
+            }
+        }
+        callbacks.clear();
+        handle.close();
+        completion.completeExceptionally(cancelled);
+    }
+}
@@ -0,0 +1,162 @@
+package com.dsm.api.pull;
+
+import com.dsm.api.registry.ImageReference;
+import com.dsm.api.registry.RegistryRoute;
+import com.dsm.api.registry.RegistryRouteSelector;
+import com.dsm.api.task.CancellationToken;
+import com.dsm.config.AppConfig;
+import com.dsm.utils.LogUtil;
+import com.dsm.websocket.callback.PullImageCallback;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 使用 skopeo 从远程仓库复制镜像到宿主机 Docker
+ * 按 RegistryRouteSelector 的评分依次尝试代理、直连和镜像加速地址，失败时回退到下一条线路；
+ * skopeo 不输出字节进度，只能按阶段估算百分比；取消时结束本任务启动的 skopeo 进程
+ */
+@Slf4j
+@Component
+public class SkopeoPullEngine implements ImagePullEngine {
+
+    public static final String NAME = "skopeo";
+
+    @Resource
+    private AppConfig appConfig;
+    @Resource
+    private RegistryRouteSelector routeSelector;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void pull(String image, String tag, PullImageCallback callback, CancellationToken token) {
+        LogUtil.logSysInfo("开始使用 skopeo 拉取镜像: " + image + ":" + tag);
+        // 构建完整的镜像名称
+        String fullImageName = tag != null && !tag.isEmpty() ? image + ":" + tag : image;
+        ImageReference ref = ImageReference.parse(image, tag);
+        List<RegistryRoute> routes = routeSelector.routes(ref);
+        String message = null;
+        for (int i = 0; i < routes.size(); i++) {
+            RegistryRoute route = routes.get(i);
+            try {
+                copy(route, ref, image, tag, fullImageName, callback, token);
+                // skopeo 不输出传输字节数，只清除失败状态，不更新吞吐量
+                routeSelector.recordCompleted(route);
+                LogUtil.logSysInfo("镜像拉取完成: " + fullImageName + "（线路 " + route.getId() + "）");
+                if (callback != null) {
+                    callback.onComplete();
+                }
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                message = "镜像拉取已取消";
+                break;
+            } catch (Exception e) {
+                if (token.isCancelled()) {
+                    message = "镜像拉取已取消";
+                    break;
+                }
+                message = e.getMessage();
+                routeSelector.recordFailure(route, message);
+                if (i < routes.size() - 1) {
+                    log.info("线路 {} 拉取 {} 失败，切换到下一条线路: {}", route, fullImageName, message);
+                    if (callback != null) {
+                        callback.onProgress(0, "线路 " + route.getId() + " 拉取失败，切换到下一条线路");
+                    }
+                }
+            }
+        }
+        LogUtil.logSysError("使用 skopeo 拉取镜像失败: " + message);
+        if (callback != null) {
+            callback.onError(message);
+        }
+        throw new RuntimeException("使用 skopeo 拉取镜像失败: " + message);
+    }
+
+    /**
+     * 通过指定线路执行一次 skopeo copy，退出码非 0 时抛出异常
+     */
+    private void copy(RegistryRoute route, ImageReference ref, String image, String tag, String fullImageName,
+                      PullImageCallback callback, CancellationToken token) throws Exception {
+        token.throwIfCancelled();
+        // 构建 skopeo 命令
+        List<String> command = new ArrayList<>();
+        command.add("skopeo");
+        command.add("copy");
+        // 添加源和目标
+        // 检查当前系统架构
+        String osName = System.getProperty("os.name").toLowerCase();
+        String osArch = System.getProperty("os.arch").toLowerCase();
+        // 只有在Mac的ARM架构(M系列芯片)上才需要指定架构参数
+        if (osName.contains("mac") && (osArch.contains("aarch64") || osArch.contains("arm64"))) {
+            LogUtil.logSysInfo("检测到Mac ARM架构，强制指定arm64/linux架构参数");
+            // 强制指定为amd64架构和linux系统，解决在Mac ARM芯片上的兼容性问题
+            command.add("--override-arch");
+            command.add("arm64");
+            command.add("--override-os");
+            command.add("linux");
+        }
+        // 加速线路从加速地址复制，写入本地时仍使用原名称
+        String sourceImage = route.getType() == RegistryRoute.Type.MIRROR
+                ? route.imageName(ref, image) + (tag != null && !tag.isEmpty() ? ":" + tag : "")
+                : fullImageName;
+        command.add("docker://" + sourceImage);
+        command.add("docker-daemon:" + fullImageName);
+        // 执行命令
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectErrorStream(true);
+        // 只有代理线路设置代理
+        boolean useProxy = route.getType() == RegistryRoute.Type.PROXY;
+        if (useProxy) {
+            String proxyUrl = appConfig.getProxyUrl();
+            processBuilder.environment().put("HTTP_PROXY", proxyUrl);
+            processBuilder.environment().put("HTTPS_PROXY", proxyUrl);
+        }
+        // 打印完整命令行
+        LogUtil.logSysInfo("执行命令: " + String.join(" ", command) + ",是否使用代理 " + useProxy);
+        Process process = processBuilder.start();
+        Runnable cancelRegistration = token.attachProcess(process);
+        try {
+            // 读取输出
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                int progress = 0;
+                while ((line = reader.readLine()) != null) {
+                    log.debug("skopeo: {}", line);
+                    if (callback != null) {
+                        // 解析进度
+                        if (line.contains("Getting image source signatures")) {
+                            progress = 10;
+                        } else if (line.contains("Copying blob")) {
+                            progress = 30;
+                        } else if (line.contains("Copying config")) {
+                            progress = 70;
+                        } else if (line.contains("Writing manifest")) {
+                            progress = 90;
+                        } else if (line.contains("Storing signatures")) {
+                            progress = 100;
+                        }
+                        callback.onProgress(progress, line);
+                    }
+                }
+            }
+            // 等待命令完成
+            int exitCode = process.waitFor();
+            token.throwIfCancelled();
+            if (exitCode != 0) {
+                throw new RuntimeException("skopeo 命令执行失败，退出码: " + exitCode);
+            }
+        } finally {
+            cancelRegistration.run();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.dsm.api.registry;
+
+/**
+ * 镜像引用解析
+ * 按 docker 的规则拆分仓库地址、仓库路径和标签/摘要：
+ * nginx -> registry-1.docker.io / library/nginx / latest，
+ * ghcr.io/foo/bar:1.0 -> ghcr.io / foo/bar / 1.0，
+ * localhost:5000/app@sha256:... -> localhost:5000 / app / sha256:...
+ */
+public class ImageReference {
+
+    public static final String DOCKER_HUB = "docker.io";
+    private static final String DOCKER_HUB_API = "registry-1.docker.io";
+
+    private final String registry;
+    private final String repository;
+    private final String reference;
+
+    private ImageReference(String registry, String repository, String reference) {
+        this.registry = registry;
+        this.repository = repository;
+        this.reference = reference;
+    }
+
+    /**
+     * @param imageName 镜像名称，可带仓库地址，也可以直接带标签或摘要
+     * @param tag       标签，为空时使用镜像名称中的标签或 latest
+     */
+    public static ImageReference parse(String imageName, String tag) {
+        String name = imageName.trim();
+        String reference = null;
+        int at = name.indexOf('@');
+        if (at > 0) {
+            reference = name.substring(at + 1);
+            name = name.substring(0, at);
+        } else {
+            int colon = name.lastIndexOf(':');
+            if (colon > name.lastIndexOf('/')) {
+                reference = name.substring(colon + 1);
+                name = name.substring(0, colon);
+            }
+        }
+        if (tag != null && !tag.isEmpty()) {
+            reference = tag;
+        }
+        if (reference == null || reference.isEmpty()) {
+            reference = "latest";
+        }
+
+        String registry = DOCKER_HUB;
+        int slash = name.indexOf('/');
+        if (slash > 0) {
+            String first = name.substring(0, slash);
+            // 第一段包含 . 或 : 或为 localhost 时才是仓库地址
+            if (first.contains(".") || first.contains(":") || "localhost".equals(first)) {
+                registry = first;
+                name = name.substring(slash + 1);
+            }
+        }
+        if (DOCKER_HUB.equals(registry) || "index.docker.io".equals(registry)) {
+            registry = DOCKER_HUB;
+            if (!name.contains("/")) {
+                name = "library/" + name;
+            }
+        }
+        return new ImageReference(registry, name, reference);
+    }
+
+    /**
+     * @return 仓库地址，Docker Hub 为 docker.io
+     */
+    public String getRegistry() {
+        return registry;
+    }
+
+    /**
+     * @return 实际发送 API 请求的主机
+     */
+    public String getApiHost() {
+        return apiHostOf(registry);
+    }
+
+    /**
+     * @return 仓库地址对应的 API 主机
+     */
+    public static String apiHostOf(String registry) {
+        return DOCKER_HUB.equals(registry) ? DOCKER_HUB_API : registry;
+    }
+
+    public String getRepository() {
+        return repository;
+    }
+
+    /**
+     * @return 标签或摘要
+     */
+    public String getReference() {
+        return reference;
+    }
+
+    public boolean isDigest() {
+        return reference.contains(":");
+    }
+
+    /**
+     * 改为引用指定摘要，用于从清单列表解析到具体平台的清单
+     */
+    public ImageReference withDigest(String digest) {
+        return new ImageReference(registry, repository, digest);
+    }
+
+    /**
+     * @return 是否指向同一个仓库（忽略标签和摘要）
+     */
+    public boolean isSameRepository(ImageReference other) {
+        return registry.equals(other.registry) && repository.equals(other.repository);
+    }
+
+    @Override
+    public String toString() {
+        return registry + "/" + repository + (isDigest() ? "@" : ":") + reference;
+    }
+}
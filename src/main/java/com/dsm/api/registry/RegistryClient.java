@@ -0,0 +1,472 @@
+package com.dsm.api.registry;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.dsm.config.AppConfig;
+import com.dsm.config.DockerConfig;
+import com.dsm.exception.RegistryException;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Credentials;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 镜像仓库 v2 API 客户端
+ * 替代 skopeo / regctl 子进程：复用 HTTP 连接，按仓库和 scope 缓存 bearer token，
+ * 多架构镜像按守护进程的平台从清单列表中选择具体清单；
+ * 请求按 RegistryRouteSelector 的评分依次尝试代理、直连和镜像加速地址，并定期探测各线路
+ */
+@Slf4j
+@Component
+public class RegistryClient {
+
+    public static final String MEDIA_TYPE_MANIFEST_V2 = "application/vnd.docker.distribution.manifest.v2+json";
+    public static final String MEDIA_TYPE_MANIFEST_LIST = "application/vnd.docker.distribution.manifest.list.v2+json";
+    public static final String MEDIA_TYPE_OCI_MANIFEST = "application/vnd.oci.image.manifest.v1+json";
+    public static final String MEDIA_TYPE_OCI_INDEX = "application/vnd.oci.image.index.v1+json";
+    private static final String ACCEPT_MANIFEST = String.join(", ", MEDIA_TYPE_MANIFEST_LIST, MEDIA_TYPE_OCI_INDEX, MEDIA_TYPE_MANIFEST_V2, MEDIA_TYPE_OCI_MANIFEST);
+
+    private static final Pattern CHALLENGE_PARAM = Pattern.compile("(\\w+)=\"([^\"]*)\"");
+    /**
+     * token 提前过期的余量（毫秒），避免请求途中失效
+     */
+    private static final long TOKEN_EXPIRY_MARGIN = 10_000L;
+    /**
+     * 线路探测的超时（毫秒）
+     */
+    private static final long PROBE_TIMEOUT = 5_000L;
+    /**
+     * 同时探测的线路数
+     */
+    private static final int PROBE_THREADS = 4;
+
+    @Resource
+    private AppConfig appConfig;
+    @Resource
+    private RegistryRateLimiter rateLimiter;
+    @Resource
+    private RegistryMetadataCache metadataCache;
+    @Resource
+    private DockerConfig dockerConfig;
+    @Resource
+    private RegistryRouteSelector routeSelector;
+    @Resource
+    private RegistryPlatform platform;
+
+    /**
+     * 基础客户端，所有代理配置下的客户端共享其连接池和调度器
+     */
+    private final OkHttpClient baseClient = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(10, 5, TimeUnit.MINUTES))
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(30, TimeUnit.SECONDS)
+            .build();
+    private volatile OkHttpClient client = baseClient;
+    private volatile String clientProxyUrl = "";
+
+    /**
+     * 线路地址|scope -> token
+     */
+    private final Map<String, Token> tokens = new ConcurrentHashMap<>();
+    private final AtomicInteger probeThreadIndex = new AtomicInteger();
+    /**
+     * 线路探测线程池，线程空闲后回收
+     */
+    private ThreadPoolExecutor probeExecutor;
+
+    @PostConstruct
+    public void init() {
+        probeExecutor = new ThreadPoolExecutor(PROBE_THREADS, PROBE_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "registry-probe-" + probeThreadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        probeExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        probeExecutor.shutdownNow();
+        baseClient.dispatcher().executorService().shutdown();
+        baseClient.connectionPool().evictAll();
+    }
+
+    /**
+     * 获取远程镜像（当前平台）的创建时间
+     *
+     * @param imageName 镜像名称
+     * @param tag       镜像标签
+     * @return 镜像配置中的 created 字段（RFC3339）
+     */
+    public String getCreated(String imageName, String tag) {
+        ImageReference ref = ImageReference.parse(imageName, tag);
+        return metadataCache.get(RegistryMetadataCache.KIND_CREATED, ref, dockerConfig.getRegistryCache().getCreatedTtl(), () -> {
+            JSONObject config = getImageConfig(ref);
+            String created = config.getString("created");
+            if (created == null || created.isEmpty()) {
+                throw new RegistryException("镜像配置中没有创建时间: " + imageName + ":" + tag, 0);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * 获取当前平台的镜像配置
+     */
+    public JSONObject getImageConfig(ImageReference ref) {
+        RegistryManifest manifest = getPlatformManifest(ref);
+        JSONObject config = manifest.getBody().getJSONObject("config");
+        if (config == null || config.getString("digest") == null) {
+            throw new RegistryException("清单中缺少镜像配置: " + ref, 0);
+        }
+        String body = fetchString(ref, "/blobs/" + config.getString("digest"));
+        return JSONObject.parseObject(body);
+    }
+
+    /**
+     * 获取当前平台的镜像清单，多架构镜像会从清单列表中解析到具体平台
+     */
+    public RegistryManifest getPlatformManifest(ImageReference ref) {
+        RegistryManifest manifest = getManifest(ref);
+        if (!manifest.isIndex()) {
+            return manifest;
+        }
+        String digest = selectPlatform(manifest.getBody().getJSONArray("manifests"));
+        if (digest == null) {
+            throw new RegistryException("清单列表中没有适用于 linux/" + platform.architecture() + " 的镜像: " + ref, 404);
+        }
+        return getManifest(ref.withDigest(digest));
+    }
+
+    /**
+     * 获取镜像清单（GET）
+     */
+    public RegistryManifest getManifest(ImageReference ref) {
+        Request.Builder request = new Request.Builder().header("Accept", ACCEPT_MANIFEST).get();
+        try (Response response = execute(ref, "/manifests/" + ref.getReference(), request)) {
+            ResponseBody body = response.body();
+            JSONObject json = JSONObject.parseObject(body != null ? body.string() : "{}");
+            String mediaType = stripParams(response.header("Content-Type"));
+            if (mediaType == null || mediaType.isEmpty() || "application/json".equals(mediaType)) {
+                mediaType = json.getString("mediaType");
+            }
+            return new RegistryManifest(response.header("Docker-Content-Digest"), mediaType, json);
+        } catch (IOException e) {
+            throw new RegistryException("读取镜像清单失败: " + ref + ", " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 通过 HEAD 请求获取清单摘要，只返回响应头，不下载清单和配置
+     * 对多架构镜像返回清单列表的摘要，与 docker pull 后记录在 RepoDigests 中的一致
+     *
+     * @return Docker-Content-Digest，仓库未返回时为 null
+     */
+    public String getManifestDigest(ImageReference ref) {
+        return metadataCache.get(RegistryMetadataCache.KIND_DIGEST, ref, dockerConfig.getRegistryCache().getDigestTtl(), () -> {
+            Request.Builder request = new Request.Builder().header("Accept", ACCEPT_MANIFEST).head();
+            try (Response response = execute(ref, "/manifests/" + ref.getReference(), request)) {
+                return response.header("Docker-Content-Digest");
+            }
+        });
+    }
+
+    private String fetchString(ImageReference ref, String path) {
+        Request.Builder request = new Request.Builder().get();
+        try (Response response = execute(ref, path, request)) {
+            ResponseBody body = response.body();
+            return body != null ? body.string() : "";
+        } catch (IOException e) {
+            throw new RegistryException("读取仓库数据失败: " + ref + ", " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 发送请求，所有线路都因限流或服务端错误失败时整体重试，最多 docker.image-check.max-retries 次；
+     * 重试前的等待由各线路的请求预算按退避时间完成
+     * 返回的 Response 一定是成功的，由调用方关闭
+     *
+     * @param path 仓库路径之后的部分，如 /manifests/latest
+     */
+    Response execute(ImageReference ref, String path, Request.Builder request) {
+        int maxRetries = dockerConfig.getImageCheck().getMaxRetries();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return executeRouted(ref, path, request);
+            } catch (RegistryException e) {
+                if (!e.isRetryable() || attempt >= maxRetries) {
+                    throw e;
+                }
+                log.debug("仓库 {} 返回 {}，重试（第 {} 次）", ref.getRegistry(), e.getStatusCode(), attempt + 1);
+            }
+        }
+    }
+
+    /**
+     * 按线路评分依次尝试，网络错误、服务端错误和限流时换下一条线路；
+     * 镜像加速地址上的任何失败（例如没有缓存该镜像）都回退到其他线路。
+     * 每条线路在其实际连接主机的请求预算内发送，正在退避的线路排到最后
+     */
+    private Response executeRouted(ImageReference ref, String path, Request.Builder request) {
+        List<RegistryRoute> routes = new ArrayList<>(routeSelector.routes(ref));
+        routes.sort(Comparator.comparing(route -> rateLimiter.backoffRemaining(route.getBudgetKey()) > 0));
+        RegistryException last = null;
+        for (RegistryRoute route : routes) {
+            long start = System.currentTimeMillis();
+            try {
+                HttpUrl url = HttpUrl.get(route.baseUrl() + "/v2/" + ref.getRepository() + path);
+                Response response = rateLimiter.callOnce(route.getBudgetKey(), ref.getRegistry(), () -> executeOnce(route, ref, request.url(url)));
+                ResponseBody body = response.body();
+                routeSelector.recordSuccess(route, System.currentTimeMillis() - start, body != null ? Math.max(0, body.contentLength()) : 0);
+                return response;
+            } catch (RegistryException e) {
+                last = e;
+                boolean routeFailure = e.getStatusCode() == 0 || e.getStatusCode() >= 500;
+                if (routeFailure) {
+                    routeSelector.recordFailure(route, e.getMessage());
+                }
+                if (route.getType() != RegistryRoute.Type.MIRROR && !routeFailure && !e.isRateLimited()) {
+                    throw e;
+                }
+                log.debug("线路 {} 请求失败，尝试下一条: {}", route, e.getMessage());
+            }
+        }
+        throw last;
+    }
+
+    /**
+     * 探测所有线路：请求 /v2/，2xx 或 401 说明线路可达，按耗时更新评分
+     * 各线路在探测线程池中并行探测，整轮耗时不超过一次探测超时，不会因为个别线路超时而推迟其他定时任务
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${docker.routes.probe-interval:300000}")
+    public void probeRoutes() {
+        List<Callable<Void>> probes = new ArrayList<>();
+        for (RegistryRoute route : routeSelector.probeTargets()) {
+            probes.add(() -> {
+                probe(route);
+                return null;
+            });
+        }
+        try {
+            // 每个探测都有自己的超时，这里的期限只是兜底
+            probeExecutor.invokeAll(probes, PROBE_TIMEOUT * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void probe(RegistryRoute route) {
+        OkHttpClient httpClient = clientFor(route).newBuilder().callTimeout(PROBE_TIMEOUT, TimeUnit.MILLISECONDS).build();
+        long start = System.currentTimeMillis();
+        try (Response response = httpClient.newCall(new Request.Builder().url(route.baseUrl() + "/v2/").get().build()).execute()) {
+            if (response.code() >= 500) {
+                routeSelector.recordFailure(route, "探测返回 " + response.code());
+            } else {
+                routeSelector.recordSuccess(route, System.currentTimeMillis() - start, 0);
+            }
+        } catch (Exception e) {
+            routeSelector.recordFailure(route, "探测失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 发送请求，遇到 401 时按 WWW-Authenticate 获取 token 后重试一次
+     */
+    private Response executeOnce(RegistryRoute route, ImageReference ref, Request.Builder request) {
+        String scope = "repository:" + ref.getRepository() + ":pull";
+        String tokenKey = route.baseUrl() + "|" + scope;
+        OkHttpClient httpClient = clientFor(route);
+        request.removeHeader("Authorization");
+        try {
+            Token token = tokens.get(tokenKey);
+            if (token != null && token.isValid()) {
+                request.header("Authorization", "Bearer " + token.value);
+            }
+            Response response = httpClient.newCall(request.build()).execute();
+            if (response.code() == 401) {
+                String challenge = response.header("WWW-Authenticate");
+                response.close();
+                token = fetchToken(httpClient, ref, challenge, scope);
+                tokens.put(tokenKey, token);
+                response = httpClient.newCall(request.header("Authorization", "Bearer " + token.value).build()).execute();
+            }
+            if (!response.isSuccessful()) {
+                int code = response.code();
+                long retryAfter = parseRetryAfter(response.header("Retry-After"));
+                response.close();
+                throw new RegistryException("镜像仓库返回 " + code + ": " + ref, code, retryAfter);
+            }
+            return response;
+        } catch (IOException e) {
+            throw new RegistryException("请求镜像仓库失败: " + ref + ", " + e.getMessage(), e);
+        }
+    }
+
+    private Token fetchToken(OkHttpClient httpClient, ImageReference ref, String challenge, String defaultScope) throws IOException {
+        if (challenge == null || !challenge.regionMatches(true, 0, "Bearer", 0, 6)) {
+            throw new RegistryException("镜像仓库需要认证: " + ref, 401);
+        }
+        Map<String, String> params = new HashMap<>();
+        Matcher matcher = CHALLENGE_PARAM.matcher(challenge);
+        while (matcher.find()) {
+            params.put(matcher.group(1), matcher.group(2));
+        }
+        HttpUrl realm = params.get("realm") != null ? HttpUrl.parse(params.get("realm")) : null;
+        if (realm == null) {
+            throw new RegistryException("无法解析认证地址: " + challenge, 401);
+        }
+        HttpUrl.Builder url = realm.newBuilder().addQueryParameter("scope", params.getOrDefault("scope", defaultScope));
+        if (params.containsKey("service")) {
+            url.addQueryParameter("service", params.get("service"));
+        }
+        try (Response response = httpClient.newCall(new Request.Builder().url(url.build()).get().build()).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new RegistryException("获取仓库 token 失败，状态码: " + response.code(), response.code());
+            }
+            JSONObject json = JSONObject.parseObject(body.string());
+            String value = json.getString("token") != null ? json.getString("token") : json.getString("access_token");
+            if (value == null) {
+                throw new RegistryException("仓库 token 响应中没有 token", 401);
+            }
+            long expiresIn = json.getLongValue("expires_in") > 0 ? json.getLongValue("expires_in") : 60;
+            log.debug("已获取仓库 token: {} {}, 有效期 {}s", ref.getRegistry(), defaultScope, expiresIn);
+            return new Token(value, System.currentTimeMillis() + expiresIn * 1000 - TOKEN_EXPIRY_MARGIN);
+        }
+    }
+
+    /**
+     * 只有代理线路经过代理，直连和镜像加速地址都直接连接
+     */
+    private OkHttpClient clientFor(RegistryRoute route) {
+        return route.getType() == RegistryRoute.Type.PROXY ? proxyClient() : baseClient;
+    }
+
+    /**
+     * 代理配置变化时基于基础客户端重建，连接池仍然共享
+     */
+    private OkHttpClient proxyClient() {
+        String proxyUrl = appConfig.getProxyUrl() != null ? appConfig.getProxyUrl().trim() : "";
+        if (proxyUrl.equals(clientProxyUrl)) {
+            return client;
+        }
+        synchronized (this) {
+            if (!proxyUrl.equals(clientProxyUrl)) {
+                client = buildClient(proxyUrl);
+                clientProxyUrl = proxyUrl;
+            }
+            return client;
+        }
+    }
+
+    private OkHttpClient buildClient(String proxyUrl) {
+        if (proxyUrl.isEmpty()) {
+            return baseClient;
+        }
+        try {
+            URI uri = URI.create(proxyUrl.contains("://") ? proxyUrl : "http://" + proxyUrl);
+            int port = uri.getPort() > 0 ? uri.getPort() : 80;
+            OkHttpClient.Builder builder = baseClient.newBuilder().proxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(uri.getHost(), port)));
+            String userInfo = uri.getUserInfo();
+            if (userInfo != null && userInfo.contains(":")) {
+                String credential = Credentials.basic(userInfo.substring(0, userInfo.indexOf(':')), userInfo.substring(userInfo.indexOf(':') + 1));
+                builder.proxyAuthenticator((route, response) -> response.request().newBuilder().header("Proxy-Authorization", credential).build());
+            }
+            log.info("镜像仓库客户端使用代理: {}:{}", uri.getHost(), port);
+            return builder.build();
+        } catch (Exception e) {
+            log.warn("代理地址无效，直接连接镜像仓库: {}", e.getMessage());
+            return baseClient;
+        }
+    }
+
+    /**
+     * 从清单列表中选择 linux/守护进程架构 的清单
+     */
+    private String selectPlatform(JSONArray manifests) {
+        if (manifests == null) {
+            return null;
+        }
+        String architecture = platform.architecture();
+        String variant = "arm".equals(architecture) ? "v7" : null;
+        String fallback = null;
+        for (int i = 0; i < manifests.size(); i++) {
+            JSONObject entry = manifests.getJSONObject(i);
+            JSONObject platform = entry.getJSONObject("platform");
+            if (platform == null || !"linux".equals(platform.getString("os")) || !architecture.equals(platform.getString("architecture"))) {
+                continue;
+            }
+            String entryVariant = platform.getString("variant");
+            if (variant == null || variant.equals(entryVariant)) {
+                return entry.getString("digest");
+            }
+            if (fallback == null) {
+                fallback = entry.getString("digest");
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * 只处理秒数形式的 Retry-After，HTTP 日期形式交给默认退避
+     */
+    private static long parseRetryAfter(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String stripParams(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int semicolon = contentType.indexOf(';');
+        return (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim();
+    }
+
+    private static class Token {
+        private final String value;
+        private final long expiresAt;
+
+        Token(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isValid() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+    }
+}
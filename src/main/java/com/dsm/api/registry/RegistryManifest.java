@@ -0,0 +1,44 @@
+package com.dsm.api.registry;
+
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * 镜像仓库返回的清单
+ */
+public class RegistryManifest {
+
+    /**
+     * 清单摘要（Docker-Content-Digest），对多架构镜像而言是清单列表本身的摘要
+     */
+    private final String digest;
+    private final String mediaType;
+    /**
+     * 清单内容，HEAD 请求时为 null
+     */
+    private final JSONObject body;
+
+    public RegistryManifest(String digest, String mediaType, JSONObject body) {
+        this.digest = digest;
+        this.mediaType = mediaType;
+        this.body = body;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public JSONObject getBody() {
+        return body;
+    }
+
+    /**
+     * @return 是否为多架构清单列表（Docker manifest list 或 OCI index）
+     */
+    public boolean isIndex() {
+        return RegistryClient.MEDIA_TYPE_MANIFEST_LIST.equals(mediaType) || RegistryClient.MEDIA_TYPE_OCI_INDEX.equals(mediaType);
+    }
+}
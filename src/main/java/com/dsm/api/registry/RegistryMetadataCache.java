@@ -0,0 +1,124 @@
+package com.dsm.api.registry;
+
+import com.dsm.config.DockerConfig;
+import com.dsm.exception.RegistryException;
+import com.dsm.mapper.RegistryMetadataCacheMapper;
+import com.dsm.pojo.entity.RegistryMetadataCacheEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 镜像仓库元数据缓存
+ * 按 类型|镜像引用|平台 缓存清单摘要和创建时间，内存 LRU 在前、SQLite 在后，重启后仍然有效；
+ * 查询失败（含限流）也会缓存一段较短的时间，期间直接抛出上次的错误而不再访问仓库
+ */
+@Slf4j
+@Component
+public class RegistryMetadataCache {
+
+    public static final String KIND_DIGEST = "digest";
+    public static final String KIND_CREATED = "created";
+
+    @Resource
+    private DockerConfig dockerConfig;
+    @Resource
+    private RegistryMetadataCacheMapper registryMetadataCacheMapper;
+    @Resource
+    private RegistryPlatform platform;
+
+    private final Map<String, RegistryMetadataCacheEntry> entries = new LinkedHashMap<String, RegistryMetadataCacheEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RegistryMetadataCacheEntry> eldest) {
+            return size() > dockerConfig.getRegistryCache().getMaxEntries();
+        }
+    };
+
+    /**
+     * 读取缓存，未命中或已过期时调用 loader 查询仓库并写入缓存
+     *
+     * @param kind   缓存类型，KIND_DIGEST 或 KIND_CREATED
+     * @param ref    镜像引用
+     * @param ttl    成功结果的有效期（毫秒）
+     * @param loader 实际查询
+     * @return 缓存值，可能为 null（例如仓库未返回摘要）
+     * @throws RegistryException 查询失败或命中否定缓存
+     */
+    public String get(String kind, ImageReference ref, long ttl, Supplier<String> loader) {
+        String key = kind + "|" + ref + "|linux/" + platform.architecture();
+        long now = System.currentTimeMillis();
+        RegistryMetadataCacheEntry entry = lookup(key, now);
+        if (entry != null) {
+            if (entry.getError() != null) {
+                throw new RegistryException(entry.getError(), entry.getStatusCode() != null ? entry.getStatusCode() : 0);
+            }
+            return entry.getValue();
+        }
+        try {
+            String value = loader.get();
+            store(RegistryMetadataCacheEntry.builder().cacheKey(key).value(value).statusCode(0).expiresAt(System.currentTimeMillis() + ttl).build());
+            return value;
+        } catch (RegistryException e) {
+            // 被中断的请求不代表仓库状态，不做否定缓存
+            if (!Thread.currentThread().isInterrupted()) {
+                long negativeTtl = Math.max(dockerConfig.getRegistryCache().getNegativeTtl(), e.getRetryAfter());
+                store(RegistryMetadataCacheEntry.builder().cacheKey(key).error(e.getMessage()).statusCode(e.getStatusCode()).expiresAt(System.currentTimeMillis() + negativeTtl).build());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 先查内存，未命中再查数据库并回填内存
+     */
+    private RegistryMetadataCacheEntry lookup(String key, long now) {
+        RegistryMetadataCacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            try {
+                entry = registryMetadataCacheMapper.selectByKey(key);
+            } catch (Exception e) {
+                log.debug("读取仓库元数据缓存失败: {}", e.getMessage());
+            }
+            if (entry != null && entry.getExpiresAt() > now) {
+                synchronized (entries) {
+                    entries.put(key, entry);
+                }
+            }
+        }
+        return entry != null && entry.getExpiresAt() > now ? entry : null;
+    }
+
+    private void store(RegistryMetadataCacheEntry entry) {
+        synchronized (entries) {
+            entries.put(entry.getCacheKey(), entry);
+        }
+        try {
+            registryMetadataCacheMapper.upsert(entry);
+        } catch (Exception e) {
+            log.debug("写入仓库元数据缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 每小时清理数据库中已过期的记录，内存中的过期条目在访问或被 LRU 淘汰时替换
+     */
+    @Scheduled(fixedRate = 60 * 60 * 1000)
+    public void purgeExpired() {
+        try {
+            int removed = registryMetadataCacheMapper.deleteExpired(System.currentTimeMillis());
+            if (removed > 0) {
+                log.debug("已清理过期的仓库元数据缓存 {} 条", removed);
+            }
+        } catch (Exception e) {
+            log.debug("清理仓库元数据缓存失败: {}", e.getMessage());
+        }
+    }
+}
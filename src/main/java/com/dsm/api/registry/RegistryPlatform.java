@@ -0,0 +1,222 @@
+package com.dsm.api.registry;
+
+import com.dsm.api.DockerClientWrapper;
+import com.dsm.config.DockerConfig;
+import com.github.dockerjava.api.model.Info;
+import com.github.dockerjava.api.model.InfoRegistryConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 镜像仓库相关的守护进程设置
+ * 平台架构和 insecure-registries 以 Docker 守护进程的 info 为准（拉取镜像的是守护进程，不是本进程），
+ * 再加上 docker.routes.insecure-registries 中配置的仓库；守护进程不可用时架构退回到本进程的 os.arch，稍后重试
+ */
+@Slf4j
+@Component
+public class RegistryPlatform {
+
+    /**
+     * 守护进程信息的刷新间隔（毫秒）
+     */
+    private static final long INFO_TTL = 10 * 60 * 1000L;
+    /**
+     * 获取守护进程信息失败后的重试间隔（毫秒）
+     */
+    private static final long INFO_RETRY = 60 * 1000L;
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+
+    @Resource
+    private DockerClientWrapper dockerClientWrapper;
+    @Resource
+    private DockerConfig dockerConfig;
+
+    private volatile Daemon daemon;
+
+    /**
+     * @return 守护进程平台对应的 OCI 架构名称，如 amd64、arm64
+     */
+    public String architecture() {
+        Daemon current = daemon();
+        return current.architecture != null ? current.architecture : normalizeArchitecture(System.getProperty("os.arch"));
+    }
+
+    /**
+     * 仓库是否使用 HTTP 访问：localhost、配置的 insecure-registries、守护进程中 Secure=false 的仓库或 insecure CIDR 内的地址
+     *
+     * @param registry 仓库地址（含端口）
+     */
+    public boolean isInsecure(String registry) {
+        if (registry.startsWith("localhost") || registry.startsWith("127.0.0.1")) {
+            return true;
+        }
+        if (dockerConfig.getRoutes().getInsecureRegistries().contains(registry)) {
+            return true;
+        }
+        Daemon current = daemon();
+        if (current.insecureRegistries.contains(registry)) {
+            return true;
+        }
+        if (current.insecureCidrs.isEmpty()) {
+            return false;
+        }
+        byte[] address = literalAddress(hostOf(registry));
+        if (address == null) {
+            return false;
+        }
+        for (String cidr : current.insecureCidrs) {
+            if (inCidr(address, cidr)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 缓存的守护进程信息，过期后重新获取；获取失败时保留上次的结果（首次失败为空），在 INFO_RETRY 后再试
+     */
+    private Daemon daemon() {
+        Daemon current = daemon;
+        long now = System.currentTimeMillis();
+        if (current != null && now < current.expiresAt) {
+            return current;
+        }
+        synchronized (this) {
+            current = daemon;
+            if (current != null && now < current.expiresAt) {
+                return current;
+            }
+            try {
+                current = Daemon.of(dockerClientWrapper.getInfo(), now + INFO_TTL);
+                log.debug("守护进程架构: {}, insecure-registries: {}, insecure CIDR: {}",
+                        current.architecture, current.insecureRegistries, current.insecureCidrs);
+            } catch (Exception e) {
+                log.debug("获取守护进程信息失败，{}ms 后重试: {}", INFO_RETRY, e.getMessage());
+                current = current != null ? current.retryAt(now + INFO_RETRY) : Daemon.EMPTY.retryAt(now + INFO_RETRY);
+            }
+            daemon = current;
+            return current;
+        }
+    }
+
+    /**
+     * 把 uname / Go 的架构名称转换为 OCI 架构名称
+     */
+    static String normalizeArchitecture(String value) {
+        String arch = value.toLowerCase();
+        switch (arch) {
+            case "amd64":
+            case "x86_64":
+                return "amd64";
+            case "aarch64":
+            case "arm64":
+                return "arm64";
+            case "arm":
+            case "armv7l":
+                return "arm";
+            case "x86":
+            case "i386":
+            case "i686":
+                return "386";
+            default:
+                return arch;
+        }
+    }
+
+    /**
+     * 去掉端口，IPv6 地址去掉方括号
+     */
+    private static String hostOf(String registry) {
+        if (registry.startsWith("[")) {
+            int end = registry.indexOf(']');
+            return end > 0 ? registry.substring(1, end) : registry;
+        }
+        int colon = registry.indexOf(':');
+        return colon >= 0 && colon == registry.lastIndexOf(':') ? registry.substring(0, colon) : registry;
+    }
+
+    /**
+     * 只解析 IP 字面量，主机名不做 DNS 查询
+     */
+    private static byte[] literalAddress(String host) {
+        if (!IPV4.matcher(host).matches() && !host.contains(":")) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(host).getAddress();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean inCidr(byte[] address, String cidr) {
+        int slash = cidr.indexOf('/');
+        byte[] network = literalAddress(slash > 0 ? cidr.substring(0, slash) : cidr);
+        if (network == null || network.length != address.length) {
+            return false;
+        }
+        int bits;
+        try {
+            bits = slash > 0 ? Integer.parseInt(cidr.substring(slash + 1)) : network.length * 8;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        for (int i = 0; i < network.length && bits > 0; i++, bits -= 8) {
+            int mask = bits >= 8 ? 0xff : (0xff << (8 - bits)) & 0xff;
+            if ((address[i] & mask) != (network[i] & mask)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Daemon {
+        private static final Daemon EMPTY = new Daemon(null, Set.of(), List.of(), 0);
+
+        private final String architecture;
+        private final Set<String> insecureRegistries;
+        private final List<String> insecureCidrs;
+        private final long expiresAt;
+
+        Daemon(String architecture, Set<String> insecureRegistries, List<String> insecureCidrs, long expiresAt) {
+            this.architecture = architecture;
+            this.insecureRegistries = insecureRegistries;
+            this.insecureCidrs = insecureCidrs;
+            this.expiresAt = expiresAt;
+        }
+
+        static Daemon of(Info info, long expiresAt) {
+            String architecture = info.getArchitecture() != null && !info.getArchitecture().isEmpty()
+                    ? normalizeArchitecture(info.getArchitecture()) : null;
+            Set<String> registries = new HashSet<>();
+            List<String> cidrs = new ArrayList<>();
+            InfoRegistryConfig config = info.getRegistryConfig();
+            if (config != null) {
+                if (config.getIndexConfigs() != null) {
+                    for (Map.Entry<String, InfoRegistryConfig.IndexConfig> entry : config.getIndexConfigs().entrySet()) {
+                        if (entry.getValue() != null && Boolean.FALSE.equals(entry.getValue().getSecure())) {
+                            registries.add(entry.getKey());
+                        }
+                    }
+                }
+                if (config.getInsecureRegistryCIDRs() != null) {
+                    cidrs.addAll(config.getInsecureRegistryCIDRs());
+                }
+            }
+            return new Daemon(architecture, registries, cidrs, expiresAt);
+        }
+
+        Daemon retryAt(long time) {
+            return new Daemon(architecture, insecureRegistries, insecureCidrs, time);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.dsm.api.registry;
+
+import com.dsm.config.DockerConfig;
+import com.dsm.exception.RegistryException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * 按实际连接的主机划分的请求预算
+ * 直连、代理和每个镜像加速地址各有一个并发上限和一个令牌桶（额度按仓库地址配置）；遇到 429 / 5xx 时该主机进入指数退避，
+ * 退避期间发往该主机的请求都会等待，避免多个线程同时撞上限流，其他线路不受影响
+ */
+@Slf4j
+@Component
+public class RegistryRateLimiter {
+
+    private static final String DEFAULT_BUDGET = "default";
+
+    @Resource
+    private DockerConfig dockerConfig;
+
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    /**
+     * 在预算内执行一次请求，限流和服务端错误时让该预算进入退避后抛出，由调用方决定换线路还是重试
+     *
+     * @param key      预算的键，即实际连接的主机（经代理时单独计算）
+     * @param registry 仓库地址，用于查找该仓库配置的预算
+     * @param request  请求
+     */
+    public <T> T callOnce(String key, String registry, Supplier<T> request) {
+        DockerConfig.ImageCheck config = dockerConfig.getImageCheck();
+        Budget budget = budgets.computeIfAbsent(key, ignored -> createBudget(registry));
+        budget.acquire(key);
+        try {
+            T result = request.get();
+            budget.onSuccess();
+            return result;
+        } catch (RegistryException e) {
+            if (e.isRetryable()) {
+                long delay = budget.onThrottled(e.getRetryAfter(), config.getBackoffInitial(), config.getBackoffMax());
+                log.debug("{} 返回 {}，退避 {}ms", key, e.getStatusCode(), delay);
+            }
+            throw e;
+        } finally {
+            budget.release();
+        }
+    }
+
+    /**
+     * @return 该预算剩余的退避时间（毫秒），不在退避中或尚无预算时为 0
+     */
+    public long backoffRemaining(String key) {
+        Budget budget = budgets.get(key);
+        return budget != null ? budget.blockedRemaining() : 0;
+    }
+
+    private Budget createBudget(String registry) {
+        Map<String, DockerConfig.RegistryBudget> registries = dockerConfig.getImageCheck().getRegistries();
+        DockerConfig.RegistryBudget config = registries.get(registry);
+        if (config == null) {
+            config = registries.getOrDefault(DEFAULT_BUDGET, new DockerConfig.RegistryBudget());
+        }
+        return new Budget(config.getMaxConcurrent(), config.getRate(), config.getBurst());
+    }
+
+    /**
+     * 单个仓库的并发许可、令牌桶和退避状态
+     */
+    private static class Budget {
+        private final Semaphore permits;
+        private final double ratePerMillis;
+        private final double capacity;
+
+        private double tokens;
+        private long lastRefill = System.currentTimeMillis();
+        private long blockedUntil;
+        private long backoff;
+
+        Budget(int maxConcurrent, double rate, int burst) {
+            this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+            this.ratePerMillis = rate / 1000.0;
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+        }
+
+        /**
+         * 先在不占用并发许可的情况下等到令牌和退避结束，再取许可；
+         * 等待许可期间仓库进入了退避则归还令牌和许可重新等待，避免退避期间许可被睡眠中的线程占满
+         */
+        void acquire(String key) {
+            try {
+                while (true) {
+                    long wait;
+                    while ((wait = reserve()) > 0) {
+                        Thread.sleep(wait);
+                    }
+                    permits.acquire();
+                    if (!isBlocked()) {
+                        return;
+                    }
+                    permits.release();
+                    refund();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RegistryException("等待仓库请求配额时被中断: " + key, e);
+            }
+        }
+
+        void release() {
+            permits.release();
+        }
+
+        /**
+         * 尝试取走一个令牌
+         *
+         * @return 0 表示已取得，否则为需要等待的毫秒数
+         */
+        private synchronized long reserve() {
+            long now = System.currentTimeMillis();
+            if (now < blockedUntil) {
+                return blockedUntil - now;
+            }
+            if (ratePerMillis <= 0) {
+                return 0;
+            }
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerMillis);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / ratePerMillis));
+        }
+
+        private boolean isBlocked() {
+            return blockedRemaining() > 0;
+        }
+
+        synchronized long blockedRemaining() {
+            return Math.max(0, blockedUntil - System.currentTimeMillis());
+        }
+
+        /**
+         * 归还 reserve 取走的令牌
+         */
+        private synchronized void refund() {
+            if (ratePerMillis > 0) {
+                tokens = Math.min(capacity, tokens + 1);
+            }
+        }
+
+        synchronized void onSuccess() {
+            backoff = 0;
+        }
+
+        /**
+         * 进入退避，优先使用仓库给出的 Retry-After
+         *
+         * @return 本次退避时长（毫秒）
+         */
+        synchronized long onThrottled(long retryAfter, long initial, long max) {
+            backoff = backoff == 0 ? initial : Math.min(max, backoff * 2);
+            long delay = Math.min(max, Math.max(backoff, retryAfter));
+            blockedUntil = Math.max(blockedUntil, System.currentTimeMillis() + delay);
+            return delay;
+        }
+    }
+}
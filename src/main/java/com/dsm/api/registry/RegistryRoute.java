@@ -0,0 +1,127 @@
+package com.dsm.api.registry;
+
+import java.net.URI;
+import java.util.Objects;
+
+/**
+ * 访问某个镜像仓库的一条线路
+ * DIRECT 直接连接仓库，PROXY 经 AppConfig 中的 HTTP 代理连接仓库，MIRROR 直接连接镜像加速地址
+ */
+public class RegistryRoute {
+
+    public enum Type {
+        DIRECT, PROXY, MIRROR
+    }
+
+    private final String registry;
+    private final Type type;
+    /**
+     * 镜像加速地址（含协议），其他线路为 null
+     */
+    private final URI mirror;
+    /**
+     * 仓库是否使用 HTTP 访问，见 RegistryPlatform.isInsecure
+     */
+    private final boolean insecure;
+
+    private RegistryRoute(String registry, Type type, URI mirror, boolean insecure) {
+        this.registry = registry;
+        this.type = type;
+        this.mirror = mirror;
+        this.insecure = insecure;
+    }
+
+    public static RegistryRoute direct(String registry, boolean insecure) {
+        return new RegistryRoute(registry, Type.DIRECT, null, insecure);
+    }
+
+    public static RegistryRoute proxy(String registry, boolean insecure) {
+        return new RegistryRoute(registry, Type.PROXY, null, insecure);
+    }
+
+    /**
+     * @param mirror 镜像加速地址，未写协议时按 https
+     */
+    public static RegistryRoute mirror(String registry, String mirror) {
+        String value = mirror.trim();
+        while (value.endsWith("/")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return new RegistryRoute(registry, Type.MIRROR, URI.create(value.contains("://") ? value : "https://" + value), false);
+    }
+
+    public String getRegistry() {
+        return registry;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return 线路标识：direct、proxy 或 mirror:主机
+     */
+    public String getId() {
+        return type == Type.MIRROR ? "mirror:" + getMirrorHost() : type.name().toLowerCase();
+    }
+
+    /**
+     * @return 镜像加速地址的主机（含端口），用于拼接镜像名称
+     */
+    public String getMirrorHost() {
+        if (mirror == null) {
+            return null;
+        }
+        return mirror.getPort() > 0 ? mirror.getHost() + ":" + mirror.getPort() : mirror.getHost();
+    }
+
+    /**
+     * @return 请求预算的键：实际连接的主机，代理线路的出口不同，单独计算
+     */
+    public String getBudgetKey() {
+        if (mirror != null) {
+            return getMirrorHost();
+        }
+        String host = ImageReference.apiHostOf(registry);
+        return type == Type.PROXY ? host + " via proxy" : host;
+    }
+
+    /**
+     * @return v2 API 的根地址，如 https://registry-1.docker.io
+     */
+    public String baseUrl() {
+        if (mirror != null) {
+            return mirror.getScheme() + "://" + getMirrorHost();
+        }
+        return (insecure ? "http" : "https") + "://" + ImageReference.apiHostOf(registry);
+    }
+
+    /**
+     * 通过本线路拉取时使用的镜像名称（不含标签），加速线路为 加速主机/仓库路径
+     */
+    public String imageName(ImageReference ref, String image) {
+        return mirror != null ? getMirrorHost() + "/" + ref.getRepository() : image;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RegistryRoute)) {
+            return false;
+        }
+        RegistryRoute other = (RegistryRoute) o;
+        return registry.equals(other.registry) && getId().equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(registry, getId());
+    }
+
+    @Override
+    public String toString() {
+        return registry + " via " + getId();
+    }
+}
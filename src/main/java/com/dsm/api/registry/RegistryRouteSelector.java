@@ -0,0 +1,233 @@
+package com.dsm.api.registry;
+
+import com.dsm.config.AppConfig;
+import com.dsm.config.DockerConfig;
+import com.dsm.model.dto.RegistryRouteDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 镜像仓库线路评分
+ * 每条线路记录延迟和吞吐量的指数加权平均，按预计耗时从快到慢排序；
+ * 失败的线路进入冷却期排到最后，仍可作为最后的回退，探测或请求成功后恢复
+ */
+@Slf4j
+@Component
+public class RegistryRouteSelector {
+
+    /**
+     * 估算耗时时按此大小计入传输时间，使吞吐量在排序中起作用
+     */
+    private static final long REFERENCE_BYTES = 1024 * 1024;
+    /**
+     * 小于此大小的响应只计延迟，不计吞吐量
+     */
+    private static final long MIN_THROUGHPUT_BYTES = 64 * 1024;
+    private static final int MAX_COOLDOWN_SHIFT = 5;
+
+    @Resource
+    private DockerConfig dockerConfig;
+    @Resource
+    private AppConfig appConfig;
+    @Resource
+    private RegistryPlatform platform;
+
+    private final Map<RegistryRoute, RouteStats> stats = new ConcurrentHashMap<>();
+    /**
+     * 访问过或配置了加速地址的仓库，探测时覆盖这些仓库
+     */
+    private final Set<String> registries = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 按预计耗时排序的候选线路，第一个为当前最优
+     * 尚无数据的线路排在有数据的可用线路之后，初始顺序为代理、直连、加速地址，与原来“有代理就用代理”一致
+     */
+    public List<RegistryRoute> routes(ImageReference ref) {
+        String registry = ref.getRegistry();
+        registries.add(registry);
+        List<RegistryRoute> candidates = candidates(registry, platform.isInsecure(registry));
+        long now = System.currentTimeMillis();
+        List<RegistryRoute> ordered = new ArrayList<>(candidates);
+        ordered.sort(Comparator.comparingInt((RegistryRoute route) -> rank(route, now))
+                .thenComparingDouble(route -> score(stats.get(route))));
+        return ordered;
+    }
+
+    /**
+     * 当前需要探测的线路
+     */
+    public List<RegistryRoute> probeTargets() {
+        registries.addAll(dockerConfig.getRoutes().getMirrors().keySet());
+        registries.add(ImageReference.DOCKER_HUB);
+        List<RegistryRoute> targets = new ArrayList<>();
+        for (String registry : registries) {
+            targets.addAll(candidates(registry, platform.isInsecure(registry)));
+        }
+        return targets;
+    }
+
+    /**
+     * 记录一次成功
+     *
+     * @param millis 耗时
+     * @param bytes  传输的字节数，未知时为 0
+     */
+    public void recordSuccess(RegistryRoute route, long millis, long bytes) {
+        double alpha = dockerConfig.getRoutes().getAlpha();
+        RouteStats stat = stats.computeIfAbsent(route, key -> new RouteStats());
+        synchronized (stat) {
+            boolean recovered = stat.failures > 0;
+            stat.latency = stat.latency < 0 ? millis : alpha * millis + (1 - alpha) * stat.latency;
+            if (bytes >= MIN_THROUGHPUT_BYTES && millis > 0) {
+                double throughput = bytes * 1000.0 / millis;
+                stat.throughput = stat.throughput <= 0 ? throughput : alpha * throughput + (1 - alpha) * stat.throughput;
+            }
+            stat.failures = 0;
+            stat.unavailableUntil = 0;
+            stat.lastUpdated = System.currentTimeMillis();
+            if (recovered) {
+                log.info("线路恢复可用: {}", route);
+            }
+        }
+    }
+
+    /**
+     * 记录一次完整的镜像传输：只更新吞吐量并清除失败状态，不把整次拉取的耗时计入延迟
+     * 传输字节数未知时使用 recordCompleted
+     *
+     * @param bytes 传输的字节数
+     */
+    public void recordTransfer(RegistryRoute route, long bytes, long millis) {
+        double alpha = dockerConfig.getRoutes().getAlpha();
+        RouteStats stat = stats.computeIfAbsent(route, key -> new RouteStats());
+        synchronized (stat) {
+            if (bytes >= MIN_THROUGHPUT_BYTES && millis > 0) {
+                double throughput = bytes * 1000.0 / millis;
+                stat.throughput = stat.throughput <= 0 ? throughput : alpha * throughput + (1 - alpha) * stat.throughput;
+            }
+            stat.failures = 0;
+            stat.unavailableUntil = 0;
+            stat.lastUpdated = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 记录一次传输字节数未知的成功拉取：只清除失败状态，不影响延迟和吞吐量
+     */
+    public void recordCompleted(RegistryRoute route) {
+        RouteStats stat = stats.computeIfAbsent(route, key -> new RouteStats());
+        synchronized (stat) {
+            stat.failures = 0;
+            stat.unavailableUntil = 0;
+            stat.lastUpdated = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 记录一次失败，线路冷却期随连续失败次数翻倍
+     */
+    public void recordFailure(RegistryRoute route, String reason) {
+        RouteStats stat = stats.computeIfAbsent(route, key -> new RouteStats());
+        long cooldown;
+        synchronized (stat) {
+            stat.failures++;
+            cooldown = dockerConfig.getRoutes().getFailureCooldown() << Math.min(stat.failures - 1, MAX_COOLDOWN_SHIFT);
+            stat.unavailableUntil = System.currentTimeMillis() + cooldown;
+            stat.lastUpdated = System.currentTimeMillis();
+            stat.lastError = reason;
+        }
+        log.info("线路不可用: {}，{}ms 内不优先使用，原因: {}", route, cooldown, reason);
+    }
+
+    public List<RegistryRouteDTO> snapshot() {
+        long now = System.currentTimeMillis();
+        return probeTargets().stream()
+                .sorted(Comparator.comparing(RegistryRoute::getRegistry)
+                        .thenComparingInt(route -> rank(route, now))
+                        .thenComparingDouble(route -> score(stats.get(route))))
+                .map(route -> {
+                    RouteStats stat = stats.get(route);
+                    RegistryRouteDTO.RegistryRouteDTOBuilder dto = RegistryRouteDTO.builder()
+                            .registry(route.getRegistry())
+                            .route(route.getId())
+                            .type(route.getType().name())
+                            .available(rank(route, now) < 2);
+                    if (stat != null) {
+                        synchronized (stat) {
+                            dto.latency(stat.latency >= 0 ? Math.round(stat.latency) : null)
+                                    .throughput(stat.throughput > 0 ? Math.round(stat.throughput) : null)
+                                    .failures(stat.failures)
+                                    .lastError(stat.lastError)
+                                    .lastUpdated(new Date(stat.lastUpdated));
+                        }
+                    }
+                    return dto.build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    private List<RegistryRoute> candidates(String registry, boolean insecure) {
+        List<RegistryRoute> result = new ArrayList<>();
+        String proxyUrl = appConfig.getProxyUrl();
+        if (!insecure && proxyUrl != null && !proxyUrl.isBlank()) {
+            result.add(RegistryRoute.proxy(registry, insecure));
+        }
+        result.add(RegistryRoute.direct(registry, insecure));
+        for (String mirror : dockerConfig.getRoutes().getMirrors().getOrDefault(registry, List.of())) {
+            if (mirror != null && !mirror.isBlank()) {
+                result.add(RegistryRoute.mirror(registry, mirror));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 0 有数据且可用，1 尚无数据，2 冷却中
+     */
+    private int rank(RegistryRoute route, long now) {
+        RouteStats stat = stats.get(route);
+        if (stat == null) {
+            return 1;
+        }
+        synchronized (stat) {
+            if (stat.unavailableUntil > now) {
+                return 2;
+            }
+            return stat.latency >= 0 ? 0 : 1;
+        }
+    }
+
+    /**
+     * 预计耗时：延迟加上按吞吐量传输参考大小的时间
+     */
+    private static double score(RouteStats stat) {
+        if (stat == null) {
+            return Double.MAX_VALUE;
+        }
+        synchronized (stat) {
+            if (stat.latency < 0) {
+                return Double.MAX_VALUE;
+            }
+            return stat.throughput > 0 ? stat.latency + REFERENCE_BYTES * 1000.0 / stat.throughput : stat.latency;
+        }
+    }
+
+    private static class RouteStats {
+        private double latency = -1;
+        private double throughput;
+        private int failures;
+        private long unavailableUntil;
+        private long lastUpdated;
+        private String lastError;
+    }
+}
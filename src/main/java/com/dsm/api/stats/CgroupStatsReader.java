@@ -0,0 +1,357 @@
+package com.dsm.api.stats;
+
+import com.dsm.api.DockerClientWrapper;
+import com.dsm.config.DockerConfig;
+import com.dsm.model.dto.ResourceUsageDTO;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 直接读取 cgroup v2 文件获取容器资源统计
+ * 每个容器打开一次 cpu.stat、memory.current、memory.max、io.stat 和 /proc/&lt;pid&gt;/net/dev 并保持打开，
+ * 每次采样从偏移 0 重新读取到复用的缓冲区中直接解析数字，不创建字符串，除返回的 ResourceUsageDTO 外不分配对象。
+ * 找不到容器的 cgroup 目录或进程时返回 null，由调用方改用 Docker 统计接口。
+ * host 和 container:&lt;id&gt; 网络模式的容器没有自己的网络命名空间，net/dev 是主机或其他容器的流量，不读取，网络计数为 0
+ */
+@Slf4j
+@Component
+public class CgroupStatsReader {
+
+    private static final byte[] USAGE_USEC = ascii("usage_usec ");
+    private static final byte[] RBYTES = ascii("rbytes=");
+    private static final byte[] WBYTES = ascii("wbytes=");
+    private static final byte[] MAX = ascii("max");
+    private static final byte[] MEM_TOTAL = ascii("MemTotal:");
+    private static final int BUFFER_SIZE = 4096;
+
+    @Resource
+    private DockerConfig dockerConfig;
+    @Resource
+    private DockerClientWrapper dockerClientWrapper;
+
+    private volatile long hostMemory;
+
+    /**
+     * @return 配置的 cgroup 根目录是否为 cgroup v2 统一层级
+     */
+    public boolean isAvailable() {
+        return Files.isReadable(cgroupRoot().resolve("cgroup.controllers"));
+    }
+
+    /**
+     * 打开容器的 cgroup 文件
+     *
+     * @param containerId 容器完整ID
+     * @return 读取句柄，cgroup 目录或网络计数不可用、或未限制内存而主机内存总量未知时为 null
+     */
+    public Handle open(String containerId) {
+        Path dir = locate(containerId);
+        if (dir == null) {
+            log.debug("未找到容器 {} 的 cgroup 目录", containerId);
+            return null;
+        }
+        Handle handle = new Handle();
+        try {
+            InspectContainerResponse inspect = dockerClientWrapper.inspectContainerCmd(containerId);
+            Long pid = inspect.getState() != null ? inspect.getState().getPidLong() : null;
+            if (pid == null || pid <= 0) {
+                return null;
+            }
+            handle.cpuStat = FileChannel.open(dir.resolve("cpu.stat"), StandardOpenOption.READ);
+            handle.memoryCurrent = FileChannel.open(dir.resolve("memory.current"), StandardOpenOption.READ);
+            handle.memoryMax = FileChannel.open(dir.resolve("memory.max"), StandardOpenOption.READ);
+            handle.ioStat = FileChannel.open(dir.resolve("io.stat"), StandardOpenOption.READ);
+            if (ownsNetwork(inspect)) {
+                handle.netDev = FileChannel.open(procRoot().resolve(pid.toString()).resolve("net").resolve("dev"), StandardOpenOption.READ);
+            }
+            handle.hostMemory = hostMemory();
+            if (handle.hostMemory <= 0 && handle.isUnlimited()) {
+                // 内存上限只能用主机总量表示，读不到时交给 Docker 统计接口
+                log.debug("主机内存总量未知，容器 {} 改用 Docker 统计接口", containerId);
+                handle.close();
+                return null;
+            }
+            return handle;
+        } catch (Exception e) {
+            log.debug("打开容器 {} 的 cgroup 文件失败: {}", containerId, e.getMessage());
+            handle.close();
+            return null;
+        }
+    }
+
+    private Path locate(String containerId) {
+        Path root = cgroupRoot();
+        // systemd cgroup 驱动 / cgroupfs 驱动
+        Path[] candidates = {
+                root.resolve("system.slice").resolve("docker-" + containerId + ".scope"),
+                root.resolve("docker").resolve(containerId)
+        };
+        for (Path candidate : candidates) {
+            if (Files.isReadable(candidate.resolve("cpu.stat"))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 容器是否有自己的网络命名空间
+     */
+    private static boolean ownsNetwork(InspectContainerResponse inspect) {
+        String mode = inspect.getHostConfig() != null ? inspect.getHostConfig().getNetworkMode() : null;
+        return mode == null || !("host".equals(mode) || mode.startsWith("container:"));
+    }
+
+    /**
+     * 主机内存总量，读取失败时为 0 且不缓存，下次打开时重试
+     */
+    private long hostMemory() {
+        if (hostMemory <= 0) {
+            long total = 0;
+            try (FileChannel channel = FileChannel.open(procRoot().resolve("meminfo"), StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                int length = read(channel, buffer);
+                int at = indexOf(buffer.array(), length, MEM_TOTAL, 0);
+                if (at >= 0) {
+                    total = parseLong(buffer.array(), at + MEM_TOTAL.length, length) * 1024;
+                }
+            } catch (IOException e) {
+                log.debug("读取主机内存总量失败: {}", e.getMessage());
+            }
+            if (total > 0) {
+                hostMemory = total;
+            }
+            return total;
+        }
+        return hostMemory;
+    }
+
+    private Path cgroupRoot() {
+        return Paths.get(dockerConfig.getStats().getCgroupRoot());
+    }
+
+    private Path procRoot() {
+        return Paths.get(dockerConfig.getStats().getProcRoot());
+    }
+
+    /**
+     * 单个容器打开的 cgroup 文件和上一次的 CPU 计数，非线程安全
+     */
+    public static class Handle implements Closeable {
+        private FileChannel cpuStat;
+        private FileChannel memoryCurrent;
+        private FileChannel memoryMax;
+        private FileChannel ioStat;
+        /**
+         * 没有自己的网络命名空间时为 null
+         */
+        private FileChannel netDev;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long hostMemory;
+        private long lastUsageUsec = -1;
+        private long lastReadNanos;
+
+        /**
+         * 读取一次采样
+         *
+         * @return 资源使用情况；第一次读取没有上一次的 CPU 计数，返回 null
+         * @throws IOException 文件已不可读（通常是容器已退出）
+         */
+        public ResourceUsageDTO read() throws IOException {
+            long now = System.nanoTime();
+            int length = fill(cpuStat);
+            int at = indexOf(buffer.array(), length, USAGE_USEC, 0);
+            long usageUsec = at >= 0 ? parseLong(buffer.array(), at + USAGE_USEC.length, length) : 0;
+
+            long memoryUsage = parseLong(buffer.array(), 0, fill(memoryCurrent));
+
+            length = fill(memoryMax);
+            long memoryLimit = startsWith(buffer.array(), length, MAX) ? hostMemory : parseLong(buffer.array(), 0, length);
+
+            length = fill(ioStat);
+            long blockRead = sumValues(buffer.array(), length, RBYTES);
+            long blockWrite = sumValues(buffer.array(), length, WBYTES);
+
+            length = netDev != null ? fill(netDev) : 0;
+            long networkRx = 0;
+            long networkTx = 0;
+            byte[] data = buffer.array();
+            int line = 0;
+            for (int i = 0; i < length; i++) {
+                // 前两行是表头，之后每行为 "接口名: 接收字节 ... (8列) 发送字节 ..."
+                if (data[i] != ':' || line < 2) {
+                    if (data[i] == '\n') {
+                        line++;
+                    }
+                    continue;
+                }
+                if (!isLoopback(data, i)) {
+                    networkRx += parseLong(data, i + 1, length);
+                    networkTx += parseLong(data, skipFields(data, i + 1, length, 8), length);
+                }
+                while (i < length && data[i] != '\n') {
+                    i++;
+                }
+                line++;
+            }
+
+            long previousUsage = lastUsageUsec;
+            long previousNanos = lastReadNanos;
+            lastUsageUsec = usageUsec;
+            lastReadNanos = now;
+            if (previousUsage < 0 || now <= previousNanos) {
+                return null;
+            }
+            // 与 Docker 的算法一致：100% 表示占满一个核
+            double cpuPercent = Math.max(0, usageUsec - previousUsage) * 1000.0 / (now - previousNanos) * 100.0;
+
+            ResourceUsageDTO usage = new ResourceUsageDTO();
+            usage.setCpuPercent(cpuPercent);
+            usage.setMemoryUsage(memoryUsage);
+            usage.setMemoryLimit(memoryLimit);
+            usage.setNetworkRx(networkRx);
+            usage.setNetworkTx(networkTx);
+            usage.setBlockRead(blockRead);
+            usage.setBlockWrite(blockWrite);
+            usage.setRunning(true);
+            usage.setTimestamp(System.currentTimeMillis());
+            return usage;
+        }
+
+        /**
+         * @return memory.max 是否为 max（未限制内存）
+         */
+        private boolean isUnlimited() throws IOException {
+            return startsWith(buffer.array(), fill(memoryMax), MAX);
+        }
+
+        /**
+         * 从偏移 0 重新读取整个文件到复用的缓冲区，放不下时扩容
+         */
+        private int fill(FileChannel channel) throws IOException {
+            while (true) {
+                int length = CgroupStatsReader.read(channel, buffer);
+                if (length < buffer.capacity()) {
+                    return length;
+                }
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+
+        @Override
+        public void close() {
+            for (FileChannel channel : new FileChannel[]{cpuStat, memoryCurrent, memoryMax, ioStat, netDev}) {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+    }
+
+    private static int read(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        long position = 0;
+        int n;
+        while (buffer.hasRemaining() && (n = channel.read(buffer, position)) > 0) {
+            position += n;
+        }
+        return buffer.position();
+    }
+
+    /**
+     * 跳过空白后解析十进制整数
+     */
+    private static long parseLong(byte[] data, int from, int length) {
+        int i = from;
+        while (i < length && (data[i] == ' ' || data[i] == '\t')) {
+            i++;
+        }
+        long value = 0;
+        while (i < length && data[i] >= '0' && data[i] <= '9') {
+            value = value * 10 + (data[i] - '0');
+            i++;
+        }
+        return value;
+    }
+
+    /**
+     * 累加所有 key 后面的数值，如 io.stat 中各设备的 rbytes=
+     */
+    private static long sumValues(byte[] data, int length, byte[] key) {
+        long sum = 0;
+        int at = indexOf(data, length, key, 0);
+        while (at >= 0) {
+            sum += parseLong(data, at + key.length, length);
+            at = indexOf(data, length, key, at + key.length);
+        }
+        return sum;
+    }
+
+    /**
+     * 从 from 开始跳过 count 个以空白分隔的字段，返回下一个字段前的位置
+     */
+    private static int skipFields(byte[] data, int from, int length, int count) {
+        int i = from;
+        for (int field = 0; field < count; field++) {
+            while (i < length && data[i] == ' ') {
+                i++;
+            }
+            while (i < length && data[i] != ' ' && data[i] != '\n') {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * colon 位置前的接口名是否为 lo
+     */
+    private static boolean isLoopback(byte[] data, int colon) {
+        return colon >= 2 && data[colon - 1] == 'o' && data[colon - 2] == 'l'
+                && (colon == 2 || data[colon - 3] == ' ' || data[colon - 3] == '\n');
+    }
+
+    private static boolean startsWith(byte[] data, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] data, int length, byte[] key, int from) {
+        outer:
+        for (int i = from; i <= length - key.length; i++) {
+            for (int j = 0; j < key.length; j++) {
+                if (data[i + j] != key[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
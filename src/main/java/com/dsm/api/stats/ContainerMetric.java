@@ -0,0 +1,44 @@
+package com.dsm.api.stats;
+
+import com.dsm.exception.BusinessException;
+
+/**
+ * 时序存储中记录的容器指标
+ */
+public enum ContainerMetric {
+    /**
+     * CPU 使用率（%）
+     */
+    CPU("cpu"),
+    /**
+     * 内存使用量（字节）
+     */
+    MEMORY("memory"),
+    /**
+     * 网络接收速率（字节/秒）
+     */
+    NETWORK_RX("rx"),
+    /**
+     * 网络发送速率（字节/秒）
+     */
+    NETWORK_TX("tx");
+
+    private final String key;
+
+    ContainerMetric(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public static ContainerMetric of(String key) {
+        for (ContainerMetric metric : values()) {
+            if (metric.key.equalsIgnoreCase(key) || metric.name().equalsIgnoreCase(key)) {
+                return metric;
+            }
+        }
+        throw new BusinessException("不支持的指标: " + key);
+    }
+}
@@ -0,0 +1,391 @@
+package com.dsm.api.stats;
+
+import com.dsm.api.ContainerStateCache;
+import com.dsm.config.DockerConfig;
+import com.dsm.exception.BusinessException;
+import com.dsm.mapper.ContainerMetricMapper;
+import com.dsm.model.dto.MetricPointDTO;
+import com.dsm.model.dto.MetricSeriesDTO;
+import com.dsm.model.dto.ResourceUsageDTO;
+import com.dsm.pojo.entity.ContainerMetricRecord;
+import com.github.dockerjava.api.model.Container;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 容器指标时序存储
+ * 每个容器按 1 秒、1 分钟、1 小时三种精度各保留一个定长环形缓冲（原始类型数组，写入不装箱），
+ * 每次采样同时累加到三种精度上；容器数量超过上限时淘汰最久未更新的容器，因此内存有固定上限。
+ * 开启持久化后，已结束的小时汇总定期写入 SQLite（与已有记录按采样次数加权合并），停止时连同未结束的小时一起写入；
+ * 查询小时精度时与内存中尚未写入的数据合并
+ */
+@Slf4j
+@Component
+public class ContainerMetricsStore implements ContainerStatsListener {
+
+    private static final ContainerMetric[] METRICS = ContainerMetric.values();
+    private static final long SECOND = 1000L;
+    private static final long MINUTE = 60 * SECOND;
+    private static final long HOUR = 60 * MINUTE;
+    private static final int MAX_POINTS = 2000;
+    private static final int PERSIST_BATCH = 100;
+
+    @Resource
+    private DockerConfig dockerConfig;
+    @Resource
+    private ContainerMetricMapper containerMetricMapper;
+    @Resource
+    private ContainerStateCache containerStateCache;
+
+    /**
+     * 容器ID -> 指标缓冲
+     */
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    /**
+     * 被淘汰容器的汇总在这里写入 SQLite，不占用采样回调线程
+     */
+    private ExecutorService persister;
+
+    @PostConstruct
+    public void init() {
+        persister = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-persist-1");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void onSample(String containerId, ResourceUsageDTO usage) {
+        DockerConfig.Metrics config = dockerConfig.getMetrics();
+        if (!Boolean.TRUE.equals(config.getEnabled())) {
+            return;
+        }
+        Series target = series.get(containerId);
+        if (target == null) {
+            target = createSeries(containerId, config);
+        }
+        target.add(usage);
+    }
+
+    /**
+     * 查询容器某项指标在时间范围内的序列
+     * 按范围起点选择能覆盖它的最细精度，点数超过 points 时合并相邻的点
+     *
+     * @param containerIdOrName 容器ID或名称
+     * @param metric            指标
+     * @param from              开始时间（毫秒时间戳），为空时为结束时间前一小时
+     * @param to                结束时间（毫秒时间戳），为空时为当前时间
+     * @param points            最多返回的点数，为空时使用 docker.metrics.default-points
+     */
+    public MetricSeriesDTO query(String containerIdOrName, ContainerMetric metric, Long from, Long to, Integer points) {
+        DockerConfig.Metrics config = dockerConfig.getMetrics();
+        long now = System.currentTimeMillis();
+        long end = to != null ? to : now;
+        long start = from != null ? from : end - HOUR;
+        if (start >= end) {
+            throw new BusinessException("开始时间必须早于结束时间");
+        }
+        int maxPoints = points != null && points > 0 ? Math.min(points, MAX_POINTS) : config.getDefaultPoints();
+
+        Container container = containerStateCache.findContainer(containerIdOrName);
+        String containerId = container != null ? container.getId() : containerIdOrName;
+
+        long resolution;
+        if (now - start <= SECOND * config.getSecondSlots()) {
+            resolution = SECOND;
+        } else if (now - start <= MINUTE * config.getMinuteSlots()) {
+            resolution = MINUTE;
+        } else {
+            resolution = HOUR;
+        }
+
+        // 时间 -> {平均值, 最大值, 采样次数}
+        TreeMap<Long, double[]> merged = new TreeMap<>();
+        if (resolution == HOUR && Boolean.TRUE.equals(config.getPersist())) {
+            for (ContainerMetricRecord record : containerMetricMapper.selectRange(containerId, metric.getKey(), start, end)) {
+                merged.put(record.getSlotTime(), new double[]{record.getAvgValue(), record.getMaxValue(), record.getSampleCount()});
+            }
+        }
+        Series source = series.get(containerId);
+        if (source != null) {
+            source.read(resolution, metric, start, end, merged, resolution == HOUR && Boolean.TRUE.equals(config.getPersist()));
+        }
+
+        List<MetricPointDTO> result = new ArrayList<>();
+        int bucket = Math.max(1, (merged.size() + maxPoints - 1) / maxPoints);
+        long bucketTime = 0;
+        double weightedSum = 0;
+        double bucketMax = Double.NEGATIVE_INFINITY;
+        double bucketCount = 0;
+        int filled = 0;
+        for (Map.Entry<Long, double[]> entry : merged.entrySet()) {
+            double[] point = entry.getValue();
+            if (filled == 0) {
+                bucketTime = entry.getKey();
+            }
+            weightedSum += point[0] * point[2];
+            bucketMax = Math.max(bucketMax, point[1]);
+            bucketCount += point[2];
+            if (++filled == bucket) {
+                result.add(new MetricPointDTO(bucketTime, weightedSum / bucketCount, bucketMax));
+                weightedSum = 0;
+                bucketMax = Double.NEGATIVE_INFINITY;
+                bucketCount = 0;
+                filled = 0;
+            }
+        }
+        if (filled > 0) {
+            result.add(new MetricPointDTO(bucketTime, weightedSum / bucketCount, bucketMax));
+        }
+        return MetricSeriesDTO.builder()
+                .containerId(containerId)
+                .metric(metric.getKey())
+                .resolution(resolution * bucket)
+                .points(result)
+                .build();
+    }
+
+    /**
+     * 把已结束的小时汇总写入 SQLite，清理过期记录，并释放长时间没有采样的容器
+     */
+    @Scheduled(initialDelayString = "${docker.metrics.compact-interval:600000}", fixedDelayString = "${docker.metrics.compact-interval:600000}")
+    public void compact() {
+        compact(false);
+    }
+
+    /**
+     * @param includeCurrent 是否连同未结束的小时一起写入，停止时使用
+     */
+    private void compact(boolean includeCurrent) {
+        DockerConfig.Metrics config = dockerConfig.getMetrics();
+        long now = System.currentTimeMillis();
+        boolean persist = Boolean.TRUE.equals(config.getPersist());
+        for (Map.Entry<String, Series> entry : series.entrySet()) {
+            Series target = entry.getValue();
+            if (persist) {
+                persist(entry.getKey(), target, now, includeCurrent);
+            }
+            if (now - target.lastUpdate > HOUR * config.getHourSlots()) {
+                series.remove(entry.getKey(), target);
+            }
+        }
+        if (persist) {
+            try {
+                containerMetricMapper.deleteBefore(now - config.getRetentionDays() * 24 * HOUR);
+            } catch (Exception e) {
+                log.warn("清理过期容器指标失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        persister.shutdown();
+        try {
+            persister.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (Boolean.TRUE.equals(dockerConfig.getMetrics().getPersist())) {
+            compact(true);
+        }
+    }
+
+    private Series createSeries(String containerId, DockerConfig.Metrics config) {
+        synchronized (series) {
+            Series target = series.get(containerId);
+            if (target != null) {
+                return target;
+            }
+            while (series.size() >= Math.max(1, config.getMaxContainers())) {
+                evictOldest(config);
+            }
+            target = new Series(config);
+            series.put(containerId, target);
+            return target;
+        }
+    }
+
+    private void evictOldest(DockerConfig.Metrics config) {
+        String oldestId = null;
+        Series oldest = null;
+        for (Map.Entry<String, Series> entry : series.entrySet()) {
+            if (oldest == null || entry.getValue().lastUpdate < oldest.lastUpdate) {
+                oldestId = entry.getKey();
+                oldest = entry.getValue();
+            }
+        }
+        if (oldest == null) {
+            return;
+        }
+        series.remove(oldestId);
+        if (Boolean.TRUE.equals(config.getPersist())) {
+            // 淘汰后不会再有采样，未结束的小时也一并写入
+            String containerId = oldestId;
+            Series evicted = oldest;
+            try {
+                persister.execute(() -> persist(containerId, evicted, System.currentTimeMillis(), true));
+            } catch (RejectedExecutionException e) {
+                log.debug("正在停止，不再写入被淘汰容器的指标: {}", containerId);
+            }
+        }
+        log.debug("容器指标数量达到上限，淘汰 {}", oldestId);
+    }
+
+    /**
+     * 写入上次成功之后的小时汇总，全部写入成功才推进 persistedHour，失败的在下次整理时重试
+     */
+    private void persist(String containerId, Series target, long now, boolean includeCurrent) {
+        // 同一容器同时只有一次写入，避免同一小时被重复合并
+        synchronized (target.persistLock) {
+            long hour = target.persistableHour(now, includeCurrent);
+            List<ContainerMetricRecord> records = target.pendingHours(containerId, hour);
+            try {
+                for (int i = 0; i < records.size(); i += PERSIST_BATCH) {
+                    containerMetricMapper.upsertBatch(records.subList(i, Math.min(records.size(), i + PERSIST_BATCH)));
+                }
+                target.markPersisted(hour);
+            } catch (Exception e) {
+                log.warn("写入容器指标失败: {}, {}", containerId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 单个容器三种精度的缓冲，以及计算网络速率所需的上一次计数
+     */
+    private static class Series {
+        private final MetricRing seconds;
+        private final MetricRing minutes;
+        private final MetricRing hours;
+        /**
+         * 复用的指标值数组，按 ContainerMetric 顺序排列
+         */
+        private final double[] values = new double[METRICS.length];
+        private long lastTimestamp;
+        private long lastRx;
+        private long lastTx;
+        /**
+         * 已写入 SQLite 的最后一个小时槽编号
+         */
+        private volatile long persistedHour = -1;
+        private final Object persistLock = new Object();
+        private volatile long lastUpdate = System.currentTimeMillis();
+
+        Series(DockerConfig.Metrics config) {
+            this.seconds = new MetricRing(SECOND, config.getSecondSlots(), METRICS.length);
+            this.minutes = new MetricRing(MINUTE, config.getMinuteSlots(), METRICS.length);
+            this.hours = new MetricRing(HOUR, config.getHourSlots(), METRICS.length);
+        }
+
+        synchronized void add(ResourceUsageDTO usage) {
+            long timestamp = usage.getTimestamp() != null ? usage.getTimestamp() : System.currentTimeMillis();
+            long rx = usage.getNetworkRx() != null ? usage.getNetworkRx() : 0;
+            long tx = usage.getNetworkTx() != null ? usage.getNetworkTx() : 0;
+            long previous = lastTimestamp;
+            long previousRx = lastRx;
+            long previousTx = lastTx;
+            lastTimestamp = timestamp;
+            lastRx = rx;
+            lastTx = tx;
+            lastUpdate = System.currentTimeMillis();
+            // 第一次采样没有上一次的网络计数，算不出速率
+            if (previous == 0 || timestamp <= previous) {
+                return;
+            }
+            double elapsed = (timestamp - previous) / 1000.0;
+            values[ContainerMetric.CPU.ordinal()] = usage.getCpuPercent() != null ? usage.getCpuPercent() : 0;
+            values[ContainerMetric.MEMORY.ordinal()] = usage.getMemoryUsage() != null ? usage.getMemoryUsage() : 0;
+            // 容器重启后计数从零开始，此时速率记为 0
+            values[ContainerMetric.NETWORK_RX.ordinal()] = rx >= previousRx ? (rx - previousRx) / elapsed : 0;
+            values[ContainerMetric.NETWORK_TX.ordinal()] = tx >= previousTx ? (tx - previousTx) / elapsed : 0;
+            seconds.add(timestamp, values);
+            minutes.add(timestamp, values);
+            hours.add(timestamp, values);
+        }
+
+        /**
+         * @param persisted target 中是否已有 SQLite 的小时记录：已写入的小时以 SQLite 为准，尚未写入的与之合并
+         */
+        synchronized void read(long resolution, ContainerMetric metric, long from, long to, Map<Long, double[]> target, boolean persisted) {
+            MetricRing ring = resolution == SECOND ? seconds : resolution == MINUTE ? minutes : hours;
+            int capacity = ring.getCapacity();
+            long[] times = new long[capacity];
+            double[] avgs = new double[capacity];
+            double[] maxes = new double[capacity];
+            int[] counts = new int[capacity];
+            int n = ring.read(metric.ordinal(), from, to, times, avgs, maxes, counts);
+            long persistedTime = persistedHour * HOUR;
+            for (int i = 0; i < n; i++) {
+                if (persisted && times[i] <= persistedTime && target.containsKey(times[i])) {
+                    continue;
+                }
+                target.merge(times[i], new double[]{avgs[i], maxes[i], counts[i]}, Series::combine);
+            }
+        }
+
+        /**
+         * 按采样次数加权合并两个汇总点，与 upsertBatch 的合并方式一致
+         */
+        private static double[] combine(double[] a, double[] b) {
+            double count = a[2] + b[2];
+            double avg = count > 0 ? (a[0] * a[2] + b[0] * b[2]) / count : 0;
+            return new double[]{avg, Math.max(a[1], b[1]), count};
+        }
+
+        /**
+         * @return 本次可以写入的最后一个小时槽编号：已结束的小时，或 includeCurrent 时包含当前小时
+         */
+        synchronized long persistableHour(long now, boolean includeCurrent) {
+            return includeCurrent ? hours.getLastSlot() : Math.min(hours.getLastSlot(), now / HOUR - 1);
+        }
+
+        synchronized void markPersisted(long hour) {
+            persistedHour = Math.max(persistedHour, hour);
+        }
+
+        /**
+         * 上次写入之后到 completed 为止的小时汇总，写入成功后由 markPersisted 推进
+         */
+        synchronized List<ContainerMetricRecord> pendingHours(String containerId, long completed) {
+            List<ContainerMetricRecord> records = new ArrayList<>();
+            if (completed <= persistedHour) {
+                return records;
+            }
+            int capacity = hours.getCapacity();
+            long[] times = new long[capacity];
+            double[] avgs = new double[capacity];
+            double[] maxes = new double[capacity];
+            int[] counts = new int[capacity];
+            for (ContainerMetric metric : METRICS) {
+                int n = hours.read(metric.ordinal(), (persistedHour + 1) * HOUR, completed * HOUR, times, avgs, maxes, counts);
+                for (int i = 0; i < n; i++) {
+                    records.add(ContainerMetricRecord.builder()
+                            .containerId(containerId)
+                            .metric(metric.getKey())
+                            .slotTime(times[i])
+                            .avgValue(avgs[i])
+                            .maxValue(maxes[i])
+                            .sampleCount(counts[i])
+                            .build());
+                }
+            }
+            return records;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.dsm.api.stats;
+
+import com.dsm.api.ContainerStateCache;
+import com.dsm.api.DockerClientWrapper;
+import com.dsm.config.DockerConfig;
+import com.dsm.event.DockerEventReceivedEvent;
+import com.dsm.event.DockerEventStreamGapEvent;
+import com.dsm.model.dto.ResourceUsageDTO;
+import com.dsm.utils.DockerStatsConverter;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.Statistics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 容器资源统计采集
+ * 每个运行中的容器保持一个采集源：默认是一条 stats 长连接（Docker 约每秒推送一次，自带上一次的 CPU 计数），
+ * docker.stats.source=cgroup 时改为定时直接读取 cgroup v2 文件，读取不到的容器仍使用长连接。
+ * 采集源由容器事件开启和关闭，并定期按容器状态校正；读取时直接返回内存中最近一次采样，
+ * 只有还没有采样的容器才退回到单次采样
+ */
+@Slf4j
+@Component
+public class ContainerStatsCollector {
+
+    private static final Set<String> START_ACTIONS = Set.of("start", "unpause", "restart");
+    private static final Set<String> STOP_ACTIONS = Set.of("die", "pause", "destroy");
+
+    @Resource
+    private DockerClientWrapper dockerClientWrapper;
+    @Resource
+    private ContainerStateCache containerStateCache;
+    @Resource
+    private DockerConfig dockerConfig;
+    @Resource
+    private CgroupStatsReader cgroupStatsReader;
+    @Autowired(required = false)
+    private List<ContainerStatsListener> listeners = Collections.emptyList();
+
+    /**
+     * 容器ID -> 采集源
+     */
+    private final Map<String, StatsSource> sources = new ConcurrentHashMap<>();
+    private final AtomicInteger samplerThreadIndex = new AtomicInteger();
+    /**
+     * 没有统计流的容器批量读取时并行单次采样，线程数随待采样的容器数增长到 docker.stats.sample-threads
+     */
+    private ThreadPoolExecutor sampler;
+    private ScheduledExecutorService cgroupPoller;
+    private volatile boolean shuttingDown;
+
+    @PostConstruct
+    public void init() {
+        DockerConfig.Stats config = dockerConfig.getStats();
+        int sampleThreads = Math.max(1, config.getSampleThreads());
+        sampler = new ThreadPoolExecutor(sampleThreads, sampleThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "stats-sample-" + samplerThreadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.allowCoreThreadTimeOut(true);
+        if (!"cgroup".equalsIgnoreCase(config.getSource())) {
+            return;
+        }
+        if (!cgroupStatsReader.isAvailable()) {
+            log.warn("{} 不是 cgroup v2 根目录，容器统计改用 Docker 统计接口", config.getCgroupRoot());
+            return;
+        }
+        cgroupPoller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stats-cgroup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cgroupPoller.scheduleWithFixedDelay(this::pollCgroups, config.getCgroupInterval(), config.getCgroupInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取容器最近一次的资源使用情况
+     * 返回的对象由所有调用方共享，不要修改
+     *
+     * @param containerIdOrName 容器ID或名称
+     */
+    public ResourceUsageDTO getLatest(String containerIdOrName) {
+        Container container = containerStateCache.findContainer(containerIdOrName);
+        if (container == null) {
+            // 缓存中没有时交给守护进程判断（不存在时由其抛出对应错误）
+            return sampleOnce(containerIdOrName);
+        }
+        if (!"running".equals(container.getState())) {
+            return stopped();
+        }
+        ResourceUsageDTO latest = latestOf(container.getId());
+        if (latest != null) {
+            return latest;
+        }
+        open(container.getId());
+        return sampleOnce(container.getId());
+    }
+
+    /**
+     * 只读取内存中的最近一次采样，不发起任何请求，供高频推送使用
+     *
+     * @param containerId 容器完整ID
+     * @return 最近一次采样；容器未运行时返回 running=false 的结果；还没有采样时为 null
+     */
+    public ResourceUsageDTO peekLatest(String containerId) {
+        ResourceUsageDTO latest = latestOf(containerId);
+        if (latest != null) {
+            return latest;
+        }
+        Container container = containerStateCache.findContainer(containerId);
+        if (container != null && !"running".equals(container.getState())) {
+            return stopped();
+        }
+        return null;
+    }
+
+    /**
+     * 为运行中的容器开启采集源（cgroup 或统计流），已有时不做任何事
+     *
+     * @param containerId 容器完整ID
+     * @return 容器是否有采集源；未运行或统计流已达 docker.stats.max-streams 上限时为 false
+     */
+    public boolean watch(String containerId) {
+        Container container = containerStateCache.findContainer(containerId);
+        if (container == null || !"running".equals(container.getState())) {
+            return false;
+        }
+        open(container.getId());
+        return sources.containsKey(container.getId());
+    }
+
+    /**
+     * 获取所有运行中容器的资源使用情况
+     * 有统计流的直接取最近一次采样，其余容器并行单次采样；超过 docker.stats.sample-timeout 未返回的容器
+     * 以 running=true、timedOut=true、指标为空返回，不会被误认为已停止，耗时与容器数量无关
+     *
+     * @return 容器ID -> 资源使用情况
+     */
+    public Map<String, ResourceUsageDTO> getAllLatest() {
+        Map<String, ResourceUsageDTO> result = new LinkedHashMap<>();
+        Map<String, CompletableFuture<ResourceUsageDTO>> pending = new LinkedHashMap<>();
+        for (Container container : containerStateCache.listContainers()) {
+            if (!"running".equals(container.getState())) {
+                continue;
+            }
+            String id = container.getId();
+            ResourceUsageDTO latest = latestOf(id);
+            if (latest != null) {
+                result.put(id, latest);
+            } else {
+                open(id);
+                pending.put(id, CompletableFuture.supplyAsync(() -> sampleOnce(id), sampler));
+            }
+        }
+        if (pending.isEmpty()) {
+            return result;
+        }
+        long deadline = System.currentTimeMillis() + dockerConfig.getStats().getSampleTimeout();
+        pending.forEach((id, future) -> {
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                result.put(id, future.get(remaining, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                result.put(id, timedOut());
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.debug("容器 {} 单次采样未在期限内完成", id);
+                result.put(id, timedOut());
+            } catch (Exception e) {
+                log.debug("容器 {} 单次采样失败: {}", id, e.getMessage());
+            }
+        });
+        return result;
+    }
+
+    @EventListener
+    public void onDockerEvent(DockerEventReceivedEvent receivedEvent) {
+        Event event = receivedEvent.getEvent();
+        if (event.getType() != EventType.CONTAINER || event.getId() == null) {
+            return;
+        }
+        String action = event.getAction() != null ? event.getAction() : event.getStatus();
+        if (action == null) {
+            return;
+        }
+        if (START_ACTIONS.contains(action)) {
+            open(event.getId());
+        } else if (STOP_ACTIONS.contains(action)) {
+            close(event.getId());
+        }
+    }
+
+    @EventListener
+    public void onStreamGap(DockerEventStreamGapEvent event) {
+        reconcile();
+    }
+
+    /**
+     * 为运行中的容器补开统计流，关闭已不在运行的容器的统计流
+     */
+    @Scheduled(initialDelayString = "${docker.stats.reconcile-interval:30000}", fixedDelayString = "${docker.stats.reconcile-interval:30000}")
+    public void reconcile() {
+        try {
+            Set<String> running = new HashSet<>();
+            for (Container container : containerStateCache.listContainers()) {
+                if ("running".equals(container.getState())) {
+                    running.add(container.getId());
+                }
+            }
+            for (String id : sources.keySet()) {
+                if (!running.contains(id)) {
+                    close(id);
+                }
+            }
+            running.forEach(this::open);
+        } catch (Exception e) {
+            log.warn("校正容器统计流失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        shuttingDown = true;
+        sampler.shutdownNow();
+        if (cgroupPoller != null) {
+            cgroupPoller.shutdownNow();
+        }
+        sources.keySet().forEach(this::close);
+    }
+
+    private void open(String containerId) {
+        if (shuttingDown || sources.containsKey(containerId)) {
+            return;
+        }
+        if (cgroupPoller != null) {
+            CgroupStatsReader.Handle handle = cgroupStatsReader.open(containerId);
+            if (handle != null) {
+                if (sources.putIfAbsent(containerId, new CgroupSource(containerId, handle)) != null) {
+                    handle.close();
+                }
+                return;
+            }
+        }
+        // 统计长连接占用流式连接池，cgroup 采集不受此上限限制
+        long streams = sources.values().stream().filter(source -> source instanceof StatsStream).count();
+        if (streams >= dockerConfig.getStats().getMaxStreams()) {
+            log.debug("统计流已达上限 {}，容器 {} 读取时单次采样", streams, containerId);
+            return;
+        }
+        StatsStream stream = new StatsStream(containerId);
+        if (sources.putIfAbsent(containerId, stream) != null) {
+            return;
+        }
+        try {
+            dockerClientWrapper.statsCmd(containerId).exec(stream);
+            log.debug("已开启容器统计流: {}", containerId);
+        } catch (Exception e) {
+            sources.remove(containerId, stream);
+            log.warn("开启容器统计流失败: {}, {}", containerId, e.getMessage());
+        }
+    }
+
+    private void close(String containerId) {
+        StatsSource source = sources.remove(containerId);
+        if (source != null) {
+            try {
+                source.close();
+            } catch (IOException e) {
+                log.debug("关闭容器统计流失败: {}, {}", containerId, e.getMessage());
+            }
+        }
+    }
+
+    private ResourceUsageDTO latestOf(String containerId) {
+        StatsSource source = sources.get(containerId);
+        return source != null ? source.latest() : null;
+    }
+
+    private void pollCgroups() {
+        for (StatsSource source : sources.values()) {
+            if (source instanceof CgroupSource) {
+                ((CgroupSource) source).poll();
+            }
+        }
+    }
+
+    /**
+     * 记录一次采样并通知监听者
+     */
+    private void publish(String containerId, ResourceUsageDTO usage) {
+        for (ContainerStatsListener listener : listeners) {
+            try {
+                listener.onSample(containerId, usage);
+            } catch (Exception e) {
+                log.debug("处理容器统计采样失败: {}, {}", containerId, e.getMessage());
+            }
+        }
+    }
+
+    private ResourceUsageDTO sampleOnce(String containerId) {
+        ResourceUsageDTO usage = DockerStatsConverter.convert(dockerClientWrapper.getContainerStats(containerId));
+        usage.setTimestamp(System.currentTimeMillis());
+        return usage;
+    }
+
+    private static ResourceUsageDTO stopped() {
+        ResourceUsageDTO usage = new ResourceUsageDTO();
+        usage.setCpuPercent(0.0);
+        usage.setMemoryUsage(0L);
+        usage.setMemoryLimit(0L);
+        usage.setNetworkRx(0L);
+        usage.setNetworkTx(0L);
+        usage.setRunning(false);
+        usage.setTimestamp(System.currentTimeMillis());
+        return usage;
+    }
+
+    /**
+     * 运行中但单次采样超时的容器：指标为空，由 timedOut 标记
+     */
+    private static ResourceUsageDTO timedOut() {
+        ResourceUsageDTO usage = new ResourceUsageDTO();
+        usage.setRunning(true);
+        usage.setTimedOut(true);
+        usage.setTimestamp(System.currentTimeMillis());
+        return usage;
+    }
+
+    /**
+     * 单个容器的采集源
+     */
+    private interface StatsSource extends Closeable {
+        /**
+         * @return 最近一次采样，还没有时为 null
+         */
+        ResourceUsageDTO latest();
+    }
+
+    /**
+     * 单个容器的统计长连接，每次推送换算成新的 ResourceUsageDTO
+     */
+    private class StatsStream extends ResultCallback.Adapter<Statistics> implements StatsSource {
+        private final String containerId;
+        private volatile ResourceUsageDTO latest;
+
+        StatsStream(String containerId) {
+            this.containerId = containerId;
+        }
+
+        @Override
+        public void onNext(Statistics statistics) {
+            // 第一条推送没有上一次的 CPU 计数，算不出使用率
+            if (statistics.getPreCpuStats() == null || statistics.getPreCpuStats().getSystemCpuUsage() == null) {
+                return;
+            }
+            ResourceUsageDTO usage = DockerStatsConverter.convert(statistics);
+            usage.setTimestamp(System.currentTimeMillis());
+            latest = usage;
+            publish(containerId, usage);
+        }
+
+        @Override
+        public ResourceUsageDTO latest() {
+            return latest;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            sources.remove(containerId, this);
+            log.debug("容器统计流异常结束: {}, {}", containerId, throwable.getMessage());
+            super.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            sources.remove(containerId, this);
+            super.onComplete();
+        }
+    }
+
+    /**
+     * 单个容器的 cgroup 采集源，由 stats-cgroup 线程定时读取
+     */
+    private class CgroupSource implements StatsSource {
+        private final String containerId;
+        private final CgroupStatsReader.Handle handle;
+        private volatile ResourceUsageDTO latest;
+
+        CgroupSource(String containerId, CgroupStatsReader.Handle handle) {
+            this.containerId = containerId;
+            this.handle = handle;
+        }
+
+        void poll() {
+            try {
+                ResourceUsageDTO usage = handle.read();
+                if (usage != null) {
+                    latest = usage;
+                    publish(containerId, usage);
+                }
+            } catch (IOException e) {
+                // 容器退出后文件不可读，下次校正时重新选择采集源
+                log.debug("读取容器 cgroup 统计失败: {}, {}", containerId, e.getMessage());
+                if (sources.remove(containerId, this)) {
+                    handle.close();
+                }
+            }
+        }
+
+        @Override
+        public ResourceUsageDTO latest() {
+            return latest;
+        }
+
+        @Override
+        public void close() {
+            handle.close();
+        }
+    }
+}
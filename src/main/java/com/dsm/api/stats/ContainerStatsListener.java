@@ -0,0 +1,16 @@
+package com.dsm.api.stats;
+
+import com.dsm.model.dto.ResourceUsageDTO;
+
+/**
+ * 容器统计采样监听
+ * 在统计流的回调线程上同步调用，实现方不要阻塞，也不要修改传入的对象
+ */
+public interface ContainerStatsListener {
+
+    /**
+     * @param containerId 容器完整ID
+     * @param usage       本次采样
+     */
+    void onSample(String containerId, ResourceUsageDTO usage);
+}
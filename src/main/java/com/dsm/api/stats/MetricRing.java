@@ -0,0 +1,108 @@
+package com.dsm.api.stats;
+
+import java.util.Arrays;
+
+/**
+ * 一个容器在某一精度下的定长环形缓冲
+ * 所有指标共用时间槽，数值按 指标 * 容量 + 槽位 平铺在原始类型数组中；
+ * 同一时间槽内的采样累加为总和、次数和最大值，读取时得到平均值和最大值。非线程安全，由调用方加锁
+ */
+class MetricRing {
+
+    private final long resolution;
+    private final int capacity;
+    /**
+     * 槽位当前对应的时间槽编号（时间戳 / 精度），-1 表示空
+     */
+    private final long[] slots;
+    private final int[] counts;
+    private final double[] sums;
+    private final double[] maxes;
+    private long lastSlot = -1;
+
+    MetricRing(long resolution, int capacity, int metrics) {
+        this.resolution = resolution;
+        this.capacity = capacity;
+        this.slots = new long[capacity];
+        this.counts = new int[capacity];
+        this.sums = new double[capacity * metrics];
+        this.maxes = new double[capacity * metrics];
+        Arrays.fill(slots, -1);
+    }
+
+    long getResolution() {
+        return resolution;
+    }
+
+    /**
+     * @return 缓冲覆盖的时长（毫秒）
+     */
+    long coverage() {
+        return resolution * capacity;
+    }
+
+    long getLastSlot() {
+        return lastSlot;
+    }
+
+    /**
+     * 写入一次采样，早于缓冲覆盖范围的采样直接丢弃
+     *
+     * @param values 按 ContainerMetric 顺序排列的指标值
+     */
+    void add(long timestamp, double[] values) {
+        long slot = timestamp / resolution;
+        if (lastSlot >= 0 && slot <= lastSlot - capacity) {
+            return;
+        }
+        int index = (int) (slot % capacity);
+        if (slots[index] != slot) {
+            slots[index] = slot;
+            counts[index] = 0;
+            for (int m = 0; m < values.length; m++) {
+                sums[m * capacity + index] = 0;
+                maxes[m * capacity + index] = Double.NEGATIVE_INFINITY;
+            }
+        }
+        counts[index]++;
+        for (int m = 0; m < values.length; m++) {
+            int offset = m * capacity + index;
+            sums[offset] += values[m];
+            if (values[m] > maxes[offset]) {
+                maxes[offset] = values[m];
+            }
+        }
+        lastSlot = Math.max(lastSlot, slot);
+    }
+
+    /**
+     * 按时间顺序读取 [from, to] 范围内有数据的槽位
+     *
+     * @return 实际读取的个数
+     */
+    int read(int metric, long from, long to, long[] times, double[] avgs, double[] maxValues, int[] sampleCounts) {
+        if (lastSlot < 0) {
+            return 0;
+        }
+        long first = Math.max(lastSlot - capacity + 1, Math.max(0, from / resolution));
+        long last = Math.min(lastSlot, to / resolution);
+        int n = 0;
+        for (long slot = first; slot <= last; slot++) {
+            int index = (int) (slot % capacity);
+            if (slots[index] != slot || counts[index] == 0) {
+                continue;
+            }
+            int offset = metric * capacity + index;
+            times[n] = slot * resolution;
+            avgs[n] = sums[offset] / counts[index];
+            maxValues[n] = maxes[offset];
+            sampleCounts[n] = counts[index];
+            n++;
+        }
+        return n;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,108 @@
+package com.dsm.api.task;
+
+import com.dsm.exception.TaskCancelledException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 任务取消令牌
+ * 执行方登记取消时要做的动作（结束子进程、关闭连接、取消 Future），取消时立即在调用线程执行；
+ * 已取消后再登记的动作会马上执行
+ */
+@Slf4j
+public class CancellationToken {
+
+    /**
+     * 不可取消的令牌，供没有登记任务的调用使用
+     */
+    public static final CancellationToken NONE = new CancellationToken(false);
+
+    private final boolean cancellable;
+    private final List<Runnable> hooks = new ArrayList<>();
+    private volatile boolean cancelled;
+
+    public CancellationToken() {
+        this(true);
+    }
+
+    private CancellationToken(boolean cancellable) {
+        this.cancellable = cancellable;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws TaskCancelledException 已取消
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new TaskCancelledException("任务已取消");
+        }
+    }
+
+    /**
+     * 登记取消动作
+     *
+     * @return 注销该动作，执行方正常结束后调用以释放引用
+     */
+    public Runnable onCancel(Runnable hook) {
+        if (!cancellable) {
+            return () -> {
+            };
+        }
+        synchronized (hooks) {
+            if (!cancelled) {
+                hooks.add(hook);
+                return () -> {
+                    synchronized (hooks) {
+                        hooks.remove(hook);
+                    }
+                };
+            }
+        }
+        run(hook);
+        return () -> {
+        };
+    }
+
+    /**
+     * 取消时强制结束子进程及其子孙进程
+     */
+    public Runnable attachProcess(Process process) {
+        return onCancel(() -> {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        });
+    }
+
+    /**
+     * 取消并执行已登记的动作
+     *
+     * @return 是否由本次调用取消（重复取消返回 false）
+     */
+    public boolean cancel() {
+        List<Runnable> pending;
+        synchronized (hooks) {
+            if (!cancellable || cancelled) {
+                return false;
+            }
+            cancelled = true;
+            pending = new ArrayList<>(hooks);
+            hooks.clear();
+        }
+        pending.forEach(this::run);
+        return true;
+    }
+
+    private void run(Runnable hook) {
+        try {
+            hook.run();
+        } catch (Exception e) {
+            log.debug("执行取消动作失败: {}", e.getMessage());
+        }
+    }
+}
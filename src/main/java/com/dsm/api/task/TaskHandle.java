@@ -0,0 +1,47 @@
+package com.dsm.api.task;
+
+/**
+ * 登记在 TaskRegistry 中的一个任务
+ * 持有取消令牌；任务结束时 close() 从登记表移除
+ */
+public class TaskHandle implements AutoCloseable {
+
+    private final String id;
+    private final TaskType type;
+    private final String description;
+    private final long startedAt = System.currentTimeMillis();
+    private final CancellationToken token = new CancellationToken();
+    private final TaskRegistry registry;
+
+    TaskHandle(String id, TaskType type, String description, TaskRegistry registry) {
+        this.id = id;
+        this.type = type;
+        this.description = description;
+        this.registry = registry;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public CancellationToken getToken() {
+        return token;
+    }
+
+    @Override
+    public void close() {
+        registry.unregister(this);
+    }
+}
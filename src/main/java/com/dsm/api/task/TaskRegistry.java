@@ -0,0 +1,73 @@
+package com.dsm.api.task;
+
+import com.dsm.model.dto.RunningTaskDTO;
+import com.dsm.utils.LogUtil;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 长时间任务登记表
+ * 拉取、更新、安装、检查在开始时登记，按任务ID取消只影响该任务自身登记的子进程和连接
+ */
+@Component
+public class TaskRegistry {
+
+    private final Map<String, TaskHandle> tasks = new ConcurrentHashMap<>();
+
+    /**
+     * 以新生成的ID登记任务
+     */
+    public TaskHandle register(TaskType type, String description) {
+        return register(UUID.randomUUID().toString(), type, description);
+    }
+
+    /**
+     * 以指定ID登记任务，ID已被占用时改用新生成的ID
+     */
+    public TaskHandle register(String id, TaskType type, String description) {
+        String taskId = id != null && !id.isEmpty() ? id : UUID.randomUUID().toString();
+        TaskHandle handle = new TaskHandle(taskId, type, description, this);
+        if (tasks.putIfAbsent(taskId, handle) != null) {
+            return register(null, type, description);
+        }
+        return handle;
+    }
+
+    /**
+     * 取消任务
+     *
+     * @return 任务存在且由本次调用取消
+     */
+    public boolean cancel(String id) {
+        TaskHandle handle = tasks.get(id);
+        if (handle == null || !handle.getToken().cancel()) {
+            return false;
+        }
+        LogUtil.logSysInfo("已取消任务: " + handle.getType() + " " + handle.getDescription());
+        return true;
+    }
+
+    public List<RunningTaskDTO> listTasks() {
+        return tasks.values().stream()
+                .sorted(Comparator.comparingLong(TaskHandle::getStartedAt))
+                .map(handle -> RunningTaskDTO.builder()
+                        .id(handle.getId())
+                        .type(handle.getType().name())
+                        .description(handle.getDescription())
+                        .startedAt(new Date(handle.getStartedAt()))
+                        .cancelled(handle.getToken().isCancelled())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    void unregister(TaskHandle handle) {
+        tasks.remove(handle.getId(), handle);
+    }
+}
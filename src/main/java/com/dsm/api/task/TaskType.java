@@ -0,0 +1,23 @@
+package com.dsm.api.task;
+
+/**
+ * 可取消的长时间任务类型
+ */
+public enum TaskType {
+    /**
+     * 镜像拉取
+     */
+    PULL,
+    /**
+     * 镜像更新
+     */
+    UPDATE,
+    /**
+     * 应用商店安装
+     */
+    INSTALL,
+    /**
+     * 镜像更新检查
+     */
+    CHECK
+}
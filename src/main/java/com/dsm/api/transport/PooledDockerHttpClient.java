@@ -0,0 +1,349 @@
+package com.dsm.api.transport;
+
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import com.github.dockerjava.transport.DockerHttpClient;
+import com.github.dockerjava.transport.NamedPipeSocket;
+import com.github.dockerjava.transport.SSLConfig;
+import com.github.dockerjava.transport.UnixSocket;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.core5.http.ContentLengthStrategy;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.config.Registry;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.impl.DefaultContentLengthStrategy;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.InputStreamEntity;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.net.URIAuthority;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 基于 httpclient5 连接池的 Docker HTTP 客户端
+ * 与 docker-java 自带的 ApacheDockerHttpClient 行为一致，区别是连接池由本类持有，
+ * 可以配置空闲回收、keep-alive，并对外暴露租用/等待/空闲连接数。
+ * attach/exec 的 stdin 劫持请求需要升级连接，交给按需创建的 ApacheDockerHttpClient 处理
+ */
+@Slf4j
+public class PooledDockerHttpClient implements DockerHttpClient {
+
+    private final String name;
+    private final CloseableHttpClient httpClient;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final HttpHost host;
+    private final String pathPrefix;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final URI dockerHost;
+    private final SSLConfig sslConfig;
+    private final Duration connectionTimeout;
+    private final Duration responseTimeout;
+    private volatile ApacheDockerHttpClient hijackClient;
+
+    /**
+     * @param name              连接池名称，仅用于监控展示
+     * @param dockerHost        Docker 地址，支持 unix / npipe / tcp
+     * @param sslConfig         TLS 配置，可为空
+     * @param maxConnections    最大连接数
+     * @param connectionTimeout 建立连接超时
+     * @param responseTimeout   响应超时，为空表示不限（用于长连接流）
+     * @param idleTimeout       空闲连接回收时间
+     * @param keepAlive         连接保活时间
+     */
+    public PooledDockerHttpClient(String name, URI dockerHost, SSLConfig sslConfig, int maxConnections,
+                                  Duration connectionTimeout, Duration responseTimeout,
+                                  Duration idleTimeout, Duration keepAlive) {
+        this.name = name;
+        this.dockerHost = dockerHost;
+        this.sslConfig = sslConfig;
+        this.connectionTimeout = connectionTimeout;
+        this.responseTimeout = responseTimeout;
+        Registry<ConnectionSocketFactory> socketFactoryRegistry = createConnectionSocketFactoryRegistry(sslConfig, dockerHost);
+
+        switch (dockerHost.getScheme()) {
+            case "unix":
+            case "npipe":
+                pathPrefix = "";
+                host = new HttpHost(dockerHost.getScheme(), "localhost", 2375);
+                break;
+            case "tcp":
+                String rawPath = dockerHost.getRawPath();
+                pathPrefix = rawPath.endsWith("/") ? rawPath.substring(0, rawPath.length() - 1) : rawPath;
+                host = new HttpHost(socketFactoryRegistry.lookup("https") != null ? "https" : "http", dockerHost.getHost(), dockerHost.getPort());
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported protocol scheme: " + dockerHost);
+        }
+
+        // 与 docker-java 保持一致：Transfer-Encoding: identity 的响应按连接关闭判断结束
+        ManagedHttpClientConnectionFactory connectionFactory = new ManagedHttpClientConnectionFactory(null, null, null, null,
+                message -> {
+                    Header transferEncodingHeader = message.getFirstHeader("Transfer-Encoding");
+                    if (transferEncodingHeader != null && "identity".equalsIgnoreCase(transferEncodingHeader.getValue())) {
+                        return ContentLengthStrategy.UNDEFINED;
+                    }
+                    return DefaultContentLengthStrategy.INSTANCE.determineLength(message);
+                }, null);
+
+        connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry, connectionFactory);
+        connectionManager.setDefaultSocketConfig(SocketConfig.copy(SocketConfig.DEFAULT).setSoTimeout(Timeout.ZERO_MILLISECONDS).build());
+        connectionManager.setValidateAfterInactivity(TimeValue.NEG_ONE_SECOND);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        RequestConfig.Builder requestConfig = RequestConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectionTimeout.toMillis()))
+                .setResponseTimeout(responseTimeout != null ? Timeout.ofMilliseconds(responseTimeout.toMillis()) : Timeout.DISABLED);
+
+        TimeValue keepAliveValue = TimeValue.ofMilliseconds(keepAlive.toMillis());
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig.build())
+                .setKeepAliveStrategy((response, context) -> keepAliveValue)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout.toMillis()))
+                .disableConnectionState()
+                .build();
+    }
+
+    private Registry<ConnectionSocketFactory> createConnectionSocketFactoryRegistry(SSLConfig sslConfig, URI dockerHost) {
+        RegistryBuilder<ConnectionSocketFactory> socketFactoryRegistryBuilder = RegistryBuilder.create();
+
+        if (sslConfig != null) {
+            try {
+                socketFactoryRegistryBuilder.register("https", new SSLConnectionSocketFactory(sslConfig.getSSLContext()));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return socketFactoryRegistryBuilder
+                .register("tcp", PlainConnectionSocketFactory.INSTANCE)
+                .register("http", PlainConnectionSocketFactory.INSTANCE)
+                .register("unix", new PlainConnectionSocketFactory() {
+                    @Override
+                    public Socket createSocket(HttpContext context) throws IOException {
+                        return UnixSocket.get(dockerHost.getPath());
+                    }
+                })
+                .register("npipe", new PlainConnectionSocketFactory() {
+                    @Override
+                    public Socket createSocket(HttpContext context) {
+                        return new NamedPipeSocket(dockerHost.getPath());
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public Response execute(Request request) {
+        if (request.hijackedInput() != null) {
+            requestCount.incrementAndGet();
+            return hijackClient().execute(request);
+        }
+        HttpContext context = new BasicHttpContext();
+        HttpUriRequestBase httpUriRequest = new HttpUriRequestBase(request.method(), URI.create(pathPrefix + request.path()));
+        httpUriRequest.setScheme(host.getSchemeName());
+        httpUriRequest.setAuthority(new URIAuthority(host.getHostName(), host.getPort()));
+
+        request.headers().forEach(httpUriRequest::addHeader);
+
+        byte[] bodyBytes = request.bodyBytes();
+        if (bodyBytes != null) {
+            httpUriRequest.setEntity(new ByteArrayEntity(bodyBytes, null));
+        } else {
+            InputStream body = request.body();
+            if (body != null) {
+                httpUriRequest.setEntity(new InputStreamEntity(body, null));
+            }
+        }
+
+        requestCount.incrementAndGet();
+        try {
+            CloseableHttpResponse response = httpClient.execute(host, httpUriRequest, context);
+            return new PooledResponse(httpUriRequest, response);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return 连接池名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 当前连接池统计：租用中、等待中、空闲、最大连接数
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * @return 累计请求数
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * 劫持请求很少见，用到时才创建 docker-java 自带的客户端
+     */
+    private ApacheDockerHttpClient hijackClient() {
+        ApacheDockerHttpClient client = hijackClient;
+        if (client == null) {
+            synchronized (this) {
+                client = hijackClient;
+                if (client == null) {
+                    ApacheDockerHttpClient.Builder builder = new ApacheDockerHttpClient.Builder()
+                            .dockerHost(dockerHost)
+                            .sslConfig(sslConfig)
+                            .connectionTimeout(connectionTimeout);
+                    if (responseTimeout != null) {
+                        builder.responseTimeout(responseTimeout);
+                    }
+                    client = builder.build();
+                    hijackClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            httpClient.close();
+        } finally {
+            ApacheDockerHttpClient client = hijackClient;
+            if (client != null) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * 关闭时，已读完或剩余长度已知且不大的响应把剩余内容读完，连接回到连接池复用；
+     * 读到一半的流式响应、长度未知且没有读完的响应直接中止连接，避免 close 阻塞在读不完的流上
+     */
+    private static class PooledResponse implements Response {
+
+        /**
+         * 关闭时最多替调用方读掉的剩余字节数
+         */
+        private static final long DRAIN_LIMIT = 64 * 1024;
+
+        private final HttpUriRequestBase request;
+        private final CloseableHttpResponse response;
+        private volatile boolean drained;
+
+        PooledResponse(HttpUriRequestBase request, CloseableHttpResponse response) {
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getCode();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return Stream.of(response.getHeaders()).collect(Collectors.groupingBy(Header::getName, Collectors.mapping(Header::getValue, Collectors.toList())));
+        }
+
+        @Override
+        public String getHeader(String name) {
+            Header firstHeader = response.getFirstHeader(name);
+            return firstHeader != null ? firstHeader.getValue() : null;
+        }
+
+        @Override
+        public InputStream getBody() {
+            try {
+                if (response.getEntity() == null) {
+                    return new ByteArrayInputStream(new byte[0]);
+                }
+                return new FilterInputStream(response.getEntity().getContent()) {
+                    @Override
+                    public int read() throws IOException {
+                        int b = super.read();
+                        if (b < 0) {
+                            drained = true;
+                        }
+                        return b;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int n = super.read(buffer, offset, length);
+                        if (n < 0) {
+                            drained = true;
+                        }
+                        return n;
+                    }
+                };
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            HttpEntity entity = response.getEntity();
+            boolean reusable = entity == null || drained
+                    || (entity.getContentLength() >= 0 && entity.getContentLength() <= DRAIN_LIMIT);
+            if (reusable) {
+                try {
+                    // 读完剩余内容后连接自动归还连接池
+                    EntityUtils.consume(entity);
+                } catch (Exception e) {
+                    reusable = false;
+                    log.debug("Failed to consume the response", e);
+                }
+            }
+            if (!reusable) {
+                try {
+                    request.abort();
+                } catch (Exception e) {
+                    log.debug("Failed to abort the request", e);
+                }
+            }
+            try {
+                response.close();
+            } catch (Exception e) {
+                log.debug("Failed to close the response", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.dsm.api.transport;
+
+import com.github.dockerjava.transport.DockerHttpClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * 按请求类型分流的 Docker HTTP 客户端
+ * 长连接流（事件、统计、日志跟随、镜像拉取等）走独立的流式连接池，
+ * 避免与普通的请求/响应调用争抢连接
+ */
+@Slf4j
+public class RoutingDockerHttpClient implements DockerHttpClient {
+
+    /**
+     * 天然是长连接流的接口
+     */
+    private static final Pattern STREAMING_PATH = Pattern.compile("^(/v[\\d.]+)?(/events|/images/create|/build|/containers/[^/]+/(attach|wait)|/exec/[^/]+/start)(\\?.*)?$");
+    /**
+     * 通过参数决定是否为流的接口
+     */
+    private static final Pattern STATS_PATH = Pattern.compile("^(/v[\\d.]+)?/containers/[^/]+/stats(\\?.*)?$");
+    private static final Pattern LOGS_PATH = Pattern.compile("^(/v[\\d.]+)?/containers/[^/]+/logs(\\?.*)?$");
+
+    private final PooledDockerHttpClient requestClient;
+    private final PooledDockerHttpClient streamingClient;
+
+    public RoutingDockerHttpClient(PooledDockerHttpClient requestClient, PooledDockerHttpClient streamingClient) {
+        this.requestClient = requestClient;
+        this.streamingClient = streamingClient;
+    }
+
+    @Override
+    public Response execute(Request request) {
+        return isStreaming(request.path()) ? streamingClient.execute(request) : requestClient.execute(request);
+    }
+
+    /**
+     * @return 普通请求连接池
+     */
+    public PooledDockerHttpClient getRequestClient() {
+        return requestClient;
+    }
+
+    /**
+     * @return 流式请求连接池
+     */
+    public PooledDockerHttpClient getStreamingClient() {
+        return streamingClient;
+    }
+
+    static boolean isStreaming(String path) {
+        if (STREAMING_PATH.matcher(path).matches()) {
+            return true;
+        }
+        if (STATS_PATH.matcher(path).matches()) {
+            // stats 默认 stream=true
+            return !(path.contains("stream=false") || path.contains("stream=0"));
+        }
+        if (LOGS_PATH.matcher(path).matches()) {
+            return path.contains("follow=true") || path.contains("follow=1");
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            requestClient.close();
+        } finally {
+            streamingClient.close();
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 
 import javax.sql.DataSource;
 import java.io.File;
+import java.util.List;
 
 @Configuration
 public class DatabaseConfig {
@@ -39,5 +40,22 @@ public class DatabaseConfig {
         ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
         populator.addScript(new ClassPathResource("db/schema.sql"));
         populator.execute(dataSource);
+        migrate(new JdbcTemplate(dataSource));
+    }
+
+    /**
+     * schema.sql 只会创建不存在的表，已有数据库中新增的列在这里补上
+     */
+    private void migrate(JdbcTemplate jdbcTemplate) {
+        addColumnIfMissing(jdbcTemplate, "image_status", "remote_digest", "TEXT");
+        addColumnIfMissing(jdbcTemplate, "image_status", "check_interval", "INTEGER");
+        addColumnIfMissing(jdbcTemplate, "image_status", "next_check", "TEXT");
+    }
+
+    private void addColumnIfMissing(JdbcTemplate jdbcTemplate, String table, String column, String definition) {
+        List<String> columns = jdbcTemplate.query("PRAGMA table_info(" + table + ")", (rs, rowNum) -> rs.getString("name"));
+        if (!columns.contains(column)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
     }
 } 
\ No newline at end of file
@@ -1,16 +1,20 @@
 package com.dsm.config;
 
+import com.dsm.api.transport.PooledDockerHttpClient;
+import com.dsm.api.transport.RoutingDockerHttpClient;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientConfig;
 import com.github.dockerjava.core.DockerClientImpl;
-import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
-import com.github.dockerjava.transport.DockerHttpClient;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @ConfigurationProperties(prefix = "docker")
@@ -19,21 +23,63 @@ public class DockerConfig {
     private Integer connectionTimeout;
     private Integer responseTimeout;
     private Integer maxConnections;
+    private Pool pool = new Pool();
+    private Events events = new Events();
+    private Guard guard = new Guard();
+    private Coalesce coalesce = new Coalesce();
+    private ImageCheck imageCheck = new ImageCheck();
+    private RegistryCache registryCache = new RegistryCache();
+    private Pull pull = new Pull();
+    private Routes routes = new Routes();
+    private Prefetch prefetch = new Prefetch();
+    private Stats stats = new Stats();
+    private Metrics metrics = new Metrics();
+    /**
+     * 本机端点（docker.host）在多主机列表中的名称
+     */
+    private String localName = "local";
+    /**
+     * 多主机并发查询时单个主机的默认超时（毫秒）
+     */
+    private Long fanOutTimeout = 5000L;
+    /**
+     * 额外的 Docker 端点（其他主机），docker.host 始终作为本机端点
+     */
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    /**
+     * 本机 Docker HTTP 传输层：普通请求与长连接流各用一个连接池
+     */
+    @Bean(destroyMethod = "close")
+    public RoutingDockerHttpClient dockerHttpClient() {
+        return createHttpClient(dockerClientConfig());
+    }
 
     @Bean
-    public DockerClient dockerClient() {
-        DockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
-                .withDockerHost(host)
-                .build();
+    public DockerClient dockerClient(RoutingDockerHttpClient dockerHttpClient) {
+        return DockerClientImpl.getInstance(dockerClientConfig(), dockerHttpClient);
+    }
 
-        ApacheDockerHttpClient.Builder httpClientBuilder = new ApacheDockerHttpClient.Builder()
-                .dockerHost(config.getDockerHost())
-                .maxConnections(maxConnections)
-                .connectionTimeout(Duration.ofMillis(connectionTimeout))
-                .responseTimeout(Duration.ofMillis(responseTimeout));
+    /**
+     * 按连接池配置为指定端点创建 HTTP 传输层，调用方负责关闭
+     */
+    public RoutingDockerHttpClient createHttpClient(DockerClientConfig config) {
+        Duration connectTimeout = Duration.ofMillis(connectionTimeout);
+        Duration idleTimeout = Duration.ofMillis(pool.getIdleTimeout());
+        Duration keepAlive = Duration.ofMillis(pool.getKeepAlive());
 
-        DockerHttpClient httpClient = httpClientBuilder.build();
-        return DockerClientImpl.getInstance(config, httpClient);
+        PooledDockerHttpClient requestClient = new PooledDockerHttpClient("request", config.getDockerHost(), config.getSSLConfig(),
+                maxConnections, connectTimeout, Duration.ofMillis(responseTimeout), idleTimeout, keepAlive);
+        // 流式请求可能长时间没有数据（如事件流），不设置响应超时
+        PooledDockerHttpClient streamingClient = new PooledDockerHttpClient("streaming", config.getDockerHost(), config.getSSLConfig(),
+                pool.getStreamMaxConnections(), connectTimeout, null, idleTimeout, keepAlive);
+        return new RoutingDockerHttpClient(requestClient, streamingClient);
+    }
+
+    private DockerClientConfig dockerClientConfig() {
+        return DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(host)
+                .build();
     }
 
     public String getHost() {
@@ -67,4 +113,1071 @@ public class DockerConfig {
     public void setMaxConnections(Integer maxConnections) {
         this.maxConnections = maxConnections;
     }
-} 
\ No newline at end of file
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    public Events getEvents() {
+        return events;
+    }
+
+    public void setEvents(Events events) {
+        this.events = events;
+    }
+
+    public Guard getGuard() {
+        return guard;
+    }
+
+    public void setGuard(Guard guard) {
+        this.guard = guard;
+    }
+
+    public Coalesce getCoalesce() {
+        return coalesce;
+    }
+
+    public void setCoalesce(Coalesce coalesce) {
+        this.coalesce = coalesce;
+    }
+
+    public ImageCheck getImageCheck() {
+        return imageCheck;
+    }
+
+    public void setImageCheck(ImageCheck imageCheck) {
+        this.imageCheck = imageCheck;
+    }
+
+    public RegistryCache getRegistryCache() {
+        return registryCache;
+    }
+
+    public void setRegistryCache(RegistryCache registryCache) {
+        this.registryCache = registryCache;
+    }
+
+    public Pull getPull() {
+        return pull;
+    }
+
+    public void setPull(Pull pull) {
+        this.pull = pull;
+    }
+
+    public Routes getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Routes routes) {
+        this.routes = routes;
+    }
+
+    public Prefetch getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(Prefetch prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    public void setStats(Stats stats) {
+        this.stats = stats;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public String getLocalName() {
+        return localName;
+    }
+
+    public void setLocalName(String localName) {
+        this.localName = localName;
+    }
+
+    public Long getFanOutTimeout() {
+        return fanOutTimeout;
+    }
+
+    public void setFanOutTimeout(Long fanOutTimeout) {
+        this.fanOutTimeout = fanOutTimeout;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(List<Endpoint> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * docker.pool.* 连接池配置，普通请求连接池大小沿用 docker.max-connections
+     */
+    public static class Pool {
+        /**
+         * 流式请求（事件、统计、日志跟随、拉取）连接池大小
+         */
+        private Integer streamMaxConnections = 50;
+
+        /**
+         * 空闲连接回收时间（毫秒）
+         */
+        private Long idleTimeout = 60000L;
+
+        /**
+         * 连接保活时间（毫秒）
+         */
+        private Long keepAlive = 30000L;
+
+        public Integer getStreamMaxConnections() {
+            return streamMaxConnections;
+        }
+
+        public void setStreamMaxConnections(Integer streamMaxConnections) {
+            this.streamMaxConnections = streamMaxConnections;
+        }
+
+        public Long getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Long idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Long getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(Long keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+    }
+
+    /**
+     * docker.events.* 事件订阅配置
+     */
+    public static class Events {
+        /**
+         * 断线超过该时长（毫秒）后重连，不再信任 since 续传，触发全量同步
+         */
+        private Long maxResumeGap = 30000L;
+
+        /**
+         * 重连最大退避时间（毫秒）
+         */
+        private Long maxReconnectDelay = 30000L;
+
+        public Long getMaxResumeGap() {
+            return maxResumeGap;
+        }
+
+        public void setMaxResumeGap(Long maxResumeGap) {
+            this.maxResumeGap = maxResumeGap;
+        }
+
+        public Long getMaxReconnectDelay() {
+            return maxReconnectDelay;
+        }
+
+        public void setMaxReconnectDelay(Long maxReconnectDelay) {
+            this.maxReconnectDelay = maxReconnectDelay;
+        }
+    }
+
+    /**
+     * docker.guard.* 调用隔离、超时与熔断配置
+     */
+    public static class Guard {
+        /**
+         * 连续失败多少次后熔断
+         */
+        private Integer failureThreshold = 5;
+
+        /**
+         * 熔断持续时间（毫秒），到期后用 ping 探测
+         */
+        private Long openDuration = 10000L;
+
+        /**
+         * ping 探测超时（毫秒）
+         */
+        private Long probeTimeout = 2000L;
+
+        /**
+         * 隔离舱已满时等待空位的时间（毫秒）
+         */
+        private Long acquireTimeout = 1000L;
+
+        /**
+         * 按操作分类覆盖默认限制，键为 lifecycle / inspect / list / stream
+         */
+        private Map<String, Limit> limits = new HashMap<>();
+
+        public Integer getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(Integer failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Long getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Long openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public Long getProbeTimeout() {
+            return probeTimeout;
+        }
+
+        public void setProbeTimeout(Long probeTimeout) {
+            this.probeTimeout = probeTimeout;
+        }
+
+        public Long getAcquireTimeout() {
+            return acquireTimeout;
+        }
+
+        public void setAcquireTimeout(Long acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        public Map<String, Limit> getLimits() {
+            return limits;
+        }
+
+        public void setLimits(Map<String, Limit> limits) {
+            this.limits = limits;
+        }
+    }
+
+    /**
+     * docker.coalesce.* 只读请求合并配置
+     */
+    public static class Coalesce {
+        /**
+         * 新鲜窗口（毫秒），窗口内相同的读取直接复用上次结果，0 表示只合并并发中的请求
+         */
+        private Long freshnessWindow = 0L;
+
+        public Long getFreshnessWindow() {
+            return freshnessWindow;
+        }
+
+        public void setFreshnessWindow(Long freshnessWindow) {
+            this.freshnessWindow = freshnessWindow;
+        }
+    }
+
+    /**
+     * docker.image-check.* 镜像更新检查配置
+     */
+    public static class ImageCheck {
+        /**
+         * 检查方式：digest 比较清单摘要（HEAD 请求），created 比较镜像创建时间；
+         * digest 方式下本地镜像没有 RepoDigests 或仓库未返回摘要时自动回退到 created
+         */
+        private String mode = "digest";
+
+        /**
+         * 并发检查的工作线程数
+         */
+        private Integer workers = 8;
+
+        /**
+         * 仓库返回 429 或 5xx 时的最大重试次数
+         */
+        private Integer maxRetries = 3;
+
+        /**
+         * 首次退避时间（毫秒），之后每次翻倍
+         */
+        private Long backoffInitial = 1000L;
+
+        /**
+         * 最大退避时间（毫秒）
+         */
+        private Long backoffMax = 60000L;
+
+        /**
+         * 增量检查周期（毫秒），每个周期只检查到期的镜像
+         */
+        private Long tickInterval = 60000L;
+
+        /**
+         * 每个周期最多检查的镜像数
+         */
+        private Integer maxPerTick = 50;
+
+        /**
+         * 初始检查间隔（毫秒），也是有运行中容器的镜像的最大间隔
+         */
+        private Long baseInterval = 3600000L;
+
+        /**
+         * 最小检查间隔（毫秒），远程频繁变化或检查失败时使用
+         */
+        private Long minInterval = 900000L;
+
+        /**
+         * 最大检查间隔（毫秒），长期不变的镜像逐渐放宽到此值
+         */
+        private Long maxInterval = 86400000L;
+
+        /**
+         * 按仓库地址设置请求预算，键为仓库地址（Docker Hub 为 docker.io），default 作用于未单独配置的仓库
+         */
+        private Map<String, RegistryBudget> registries = new HashMap<>();
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+
+        public Integer getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(Integer workers) {
+            this.workers = workers;
+        }
+
+        public Integer getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(Integer maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Long getBackoffInitial() {
+            return backoffInitial;
+        }
+
+        public void setBackoffInitial(Long backoffInitial) {
+            this.backoffInitial = backoffInitial;
+        }
+
+        public Long getBackoffMax() {
+            return backoffMax;
+        }
+
+        public void setBackoffMax(Long backoffMax) {
+            this.backoffMax = backoffMax;
+        }
+
+        public Long getTickInterval() {
+            return tickInterval;
+        }
+
+        public void setTickInterval(Long tickInterval) {
+            this.tickInterval = tickInterval;
+        }
+
+        public Integer getMaxPerTick() {
+            return maxPerTick;
+        }
+
+        public void setMaxPerTick(Integer maxPerTick) {
+            this.maxPerTick = maxPerTick;
+        }
+
+        public Long getBaseInterval() {
+            return baseInterval;
+        }
+
+        public void setBaseInterval(Long baseInterval) {
+            this.baseInterval = baseInterval;
+        }
+
+        public Long getMinInterval() {
+            return minInterval;
+        }
+
+        public void setMinInterval(Long minInterval) {
+            this.minInterval = minInterval;
+        }
+
+        public Long getMaxInterval() {
+            return maxInterval;
+        }
+
+        public void setMaxInterval(Long maxInterval) {
+            this.maxInterval = maxInterval;
+        }
+
+        public Map<String, RegistryBudget> getRegistries() {
+            return registries;
+        }
+
+        public void setRegistries(Map<String, RegistryBudget> registries) {
+            this.registries = registries;
+        }
+    }
+
+    /**
+     * docker.pull.* 镜像拉取配置
+     */
+    public static class Pull {
+        /**
+         * 拉取引擎：daemon 通过 Docker 守护进程拉取，skopeo 使用 skopeo copy
+         */
+        private String engine = "daemon";
+
+        /**
+         * 进度回调的最小间隔（毫秒）
+         */
+        private Long progressInterval = 250L;
+
+        /**
+         * 同时进行的拉取数，超出的请求按优先级排队
+         */
+        private Integer maxConcurrent = 3;
+
+        public String getEngine() {
+            return engine;
+        }
+
+        public void setEngine(String engine) {
+            this.engine = engine;
+        }
+
+        public Long getProgressInterval() {
+            return progressInterval;
+        }
+
+        public void setProgressInterval(Long progressInterval) {
+            this.progressInterval = progressInterval;
+        }
+
+        public Integer getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(Integer maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+
+    /**
+     * docker.stats.* 容器资源统计采集配置
+     */
+    public static class Stats {
+        /**
+         * 同时保持的统计长连接数上限，需小于 pool.stream-max-connections，超出的容器读取时单次采样
+         */
+        private Integer maxStreams = 40;
+
+        /**
+         * 按容器状态校正统计流的间隔（毫秒），弥补丢失的事件和意外断开的流
+         */
+        private Long reconcileInterval = 30000L;
+
+        /**
+         * 批量读取时没有统计流的容器单次采样的等待期限（毫秒）
+         */
+        private Long sampleTimeout = 3000L;
+
+        /**
+         * 批量读取时并行单次采样的线程上限，线程按没有统计流的容器数按需创建、空闲后回收，
+         * 不宜超过 guard.limits.stream.max-concurrent
+         */
+        private Integer sampleThreads = 16;
+
+        /**
+         * WebSocket 统计推送的最短间隔（毫秒），客户端接收跟得上时按此频率推送
+         */
+        private Long pushMinInterval = 1000L;
+
+        /**
+         * WebSocket 统计推送的最长间隔（毫秒），客户端接收过慢时逐步放慢到此频率
+         */
+        private Long pushMaxInterval = 10000L;
+
+        /**
+         * 发送统计推送的线程数，每个会话同一时刻最多占用一个
+         */
+        private Integer pushThreads = 4;
+
+        /**
+         * 采集方式：docker 使用 Docker 统计接口；cgroup 直接读取 cgroup v2 文件，读取不到的容器仍使用 Docker 统计接口
+         */
+        private String source = "docker";
+
+        /**
+         * cgroup v2 根目录，本程序运行在容器中时可挂载主机的 /sys/fs/cgroup 并指向挂载路径
+         */
+        private String cgroupRoot = "/sys/fs/cgroup";
+
+        /**
+         * proc 根目录，用于读取容器进程的网络计数，运行在容器中时需挂载主机的 /proc
+         */
+        private String procRoot = "/proc";
+
+        /**
+         * cgroup 采集间隔（毫秒）
+         */
+        private Long cgroupInterval = 1000L;
+
+        public Integer getMaxStreams() {
+            return maxStreams;
+        }
+
+        public void setMaxStreams(Integer maxStreams) {
+            this.maxStreams = maxStreams;
+        }
+
+        public Long getReconcileInterval() {
+            return reconcileInterval;
+        }
+
+        public void setReconcileInterval(Long reconcileInterval) {
+            this.reconcileInterval = reconcileInterval;
+        }
+
+        public Long getSampleTimeout() {
+            return sampleTimeout;
+        }
+
+        public void setSampleTimeout(Long sampleTimeout) {
+            this.sampleTimeout = sampleTimeout;
+        }
+
+        public Integer getSampleThreads() {
+            return sampleThreads;
+        }
+
+        public void setSampleThreads(Integer sampleThreads) {
+            this.sampleThreads = sampleThreads;
+        }
+
+        public Long getPushMinInterval() {
+            return pushMinInterval;
+        }
+
+        public void setPushMinInterval(Long pushMinInterval) {
+            this.pushMinInterval = pushMinInterval;
+        }
+
+        public Long getPushMaxInterval() {
+            return pushMaxInterval;
+        }
+
+        public void setPushMaxInterval(Long pushMaxInterval) {
+            this.pushMaxInterval = pushMaxInterval;
+        }
+
+        public Integer getPushThreads() {
+            return pushThreads;
+        }
+
+        public void setPushThreads(Integer pushThreads) {
+            this.pushThreads = pushThreads;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public void setSource(String source) {
+            this.source = source;
+        }
+
+        public String getCgroupRoot() {
+            return cgroupRoot;
+        }
+
+        public void setCgroupRoot(String cgroupRoot) {
+            this.cgroupRoot = cgroupRoot;
+        }
+
+        public String getProcRoot() {
+            return procRoot;
+        }
+
+        public void setProcRoot(String procRoot) {
+            this.procRoot = procRoot;
+        }
+
+        public Long getCgroupInterval() {
+            return cgroupInterval;
+        }
+
+        public void setCgroupInterval(Long cgroupInterval) {
+            this.cgroupInterval = cgroupInterval;
+        }
+    }
+
+    /**
+     * docker.metrics.* 容器指标时序存储配置
+     * 每个容器按秒、分钟、小时三种精度各保留一个定长环形缓冲，内存占用约为 max-containers × 各精度容量之和 × 76 字节
+     */
+    public static class Metrics {
+        private Boolean enabled = true;
+
+        /**
+         * 最多保留多少个容器的指标，超出时淘汰最久未更新的容器
+         */
+        private Integer maxContainers = 100;
+
+        /**
+         * 秒级精度保留的点数
+         */
+        private Integer secondSlots = 300;
+
+        /**
+         * 分钟级精度保留的点数
+         */
+        private Integer minuteSlots = 1440;
+
+        /**
+         * 小时级精度保留的点数
+         */
+        private Integer hourSlots = 720;
+
+        /**
+         * 查询未指定点数时返回的最大点数
+         */
+        private Integer defaultPoints = 300;
+
+        /**
+         * 是否把小时汇总写入 SQLite，重启后仍可查询
+         */
+        private Boolean persist = false;
+
+        /**
+         * 写入 SQLite 的间隔（毫秒）
+         */
+        private Long compactInterval = 600000L;
+
+        /**
+         * SQLite 中汇总记录的保留天数
+         */
+        private Integer retentionDays = 90;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMaxContainers() {
+            return maxContainers;
+        }
+
+        public void setMaxContainers(Integer maxContainers) {
+            this.maxContainers = maxContainers;
+        }
+
+        public Integer getSecondSlots() {
+            return secondSlots;
+        }
+
+        public void setSecondSlots(Integer secondSlots) {
+            this.secondSlots = secondSlots;
+        }
+
+        public Integer getMinuteSlots() {
+            return minuteSlots;
+        }
+
+        public void setMinuteSlots(Integer minuteSlots) {
+            this.minuteSlots = minuteSlots;
+        }
+
+        public Integer getHourSlots() {
+            return hourSlots;
+        }
+
+        public void setHourSlots(Integer hourSlots) {
+            this.hourSlots = hourSlots;
+        }
+
+        public Integer getDefaultPoints() {
+            return defaultPoints;
+        }
+
+        public void setDefaultPoints(Integer defaultPoints) {
+            this.defaultPoints = defaultPoints;
+        }
+
+        public Boolean getPersist() {
+            return persist;
+        }
+
+        public void setPersist(Boolean persist) {
+            this.persist = persist;
+        }
+
+        public Long getCompactInterval() {
+            return compactInterval;
+        }
+
+        public void setCompactInterval(Long compactInterval) {
+            this.compactInterval = compactInterval;
+        }
+
+        public Integer getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(Integer retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+    }
+
+    /**
+     * docker.prefetch.* 应用商店镜像预拉取配置
+     */
+    public static class Prefetch {
+        /**
+         * 安装前检查发现缺少镜像时，是否立即以低优先级开始拉取
+         */
+        private Boolean onCheck = true;
+
+        /**
+         * 是否在空闲时预拉取常用模板的镜像
+         */
+        private Boolean idleEnabled = false;
+
+        /**
+         * 空闲预拉取的检查间隔（毫秒）
+         */
+        private Long idleInterval = 1800000L;
+
+        /**
+         * 空闲预拉取覆盖的模板数（按排序权重）
+         */
+        private Integer popularLimit = 5;
+
+        public Boolean getOnCheck() {
+            return onCheck;
+        }
+
+        public void setOnCheck(Boolean onCheck) {
+            this.onCheck = onCheck;
+        }
+
+        public Boolean getIdleEnabled() {
+            return idleEnabled;
+        }
+
+        public void setIdleEnabled(Boolean idleEnabled) {
+            this.idleEnabled = idleEnabled;
+        }
+
+        public Long getIdleInterval() {
+            return idleInterval;
+        }
+
+        public void setIdleInterval(Long idleInterval) {
+            this.idleInterval = idleInterval;
+        }
+
+        public Integer getPopularLimit() {
+            return popularLimit;
+        }
+
+        public void setPopularLimit(Integer popularLimit) {
+            this.popularLimit = popularLimit;
+        }
+    }
+
+    /**
+     * docker.routes.* 访问镜像仓库的线路（直连、代理、镜像加速）选择配置
+     */
+    public static class Routes {
+        /**
+         * 探测各线路的间隔（毫秒）
+         */
+        private Long probeInterval = 300000L;
+
+        /**
+         * 延迟和吞吐量指数加权平均的权重，越大越看重最近的结果
+         */
+        private Double alpha = 0.3;
+
+        /**
+         * 线路失败后被视为不可用的时间（毫秒），连续失败时翻倍，探测成功后恢复
+         */
+        private Long failureCooldown = 60000L;
+
+        /**
+         * 按仓库地址配置的镜像加速地址，如 docker.io: [https://mirror.example.com]
+         */
+        private Map<String, List<String>> mirrors = new HashMap<>();
+
+        /**
+         * 使用 HTTP 访问的仓库地址（含端口），与 Docker 的 insecure-registries 一致；
+         * 守护进程配置的 insecure-registries 和 localhost 会自动加入
+         */
+        private List<String> insecureRegistries = new ArrayList<>();
+
+        public Long getProbeInterval() {
+            return probeInterval;
+        }
+
+        public void setProbeInterval(Long probeInterval) {
+            this.probeInterval = probeInterval;
+        }
+
+        public Double getAlpha() {
+            return alpha;
+        }
+
+        public void setAlpha(Double alpha) {
+            this.alpha = alpha;
+        }
+
+        public Long getFailureCooldown() {
+            return failureCooldown;
+        }
+
+        public void setFailureCooldown(Long failureCooldown) {
+            this.failureCooldown = failureCooldown;
+        }
+
+        public Map<String, List<String>> getMirrors() {
+            return mirrors;
+        }
+
+        public void setMirrors(Map<String, List<String>> mirrors) {
+            this.mirrors = mirrors;
+        }
+
+        public List<String> getInsecureRegistries() {
+            return insecureRegistries;
+        }
+
+        public void setInsecureRegistries(List<String> insecureRegistries) {
+            this.insecureRegistries = insecureRegistries;
+        }
+    }
+
+    /**
+     * docker.registry-cache.* 镜像仓库元数据缓存配置
+     */
+    public static class RegistryCache {
+        /**
+         * 内存 LRU 最多保留的条目数，超出部分仍可从数据库读取
+         */
+        private Integer maxEntries = 1000;
+
+        /**
+         * 清单摘要的有效期（毫秒）
+         */
+        private Long digestTtl = 300000L;
+
+        /**
+         * 镜像创建时间的有效期（毫秒）
+         */
+        private Long createdTtl = 600000L;
+
+        /**
+         * 查询失败结果的有效期（毫秒），期间直接返回上次的错误
+         */
+        private Long negativeTtl = 60000L;
+
+        public Integer getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(Integer maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Long getDigestTtl() {
+            return digestTtl;
+        }
+
+        public void setDigestTtl(Long digestTtl) {
+            this.digestTtl = digestTtl;
+        }
+
+        public Long getCreatedTtl() {
+            return createdTtl;
+        }
+
+        public void setCreatedTtl(Long createdTtl) {
+            this.createdTtl = createdTtl;
+        }
+
+        public Long getNegativeTtl() {
+            return negativeTtl;
+        }
+
+        public void setNegativeTtl(Long negativeTtl) {
+            this.negativeTtl = negativeTtl;
+        }
+    }
+
+    /**
+     * 单个镜像仓库的请求预算：并发上限 + 令牌桶
+     */
+    public static class RegistryBudget {
+        /**
+         * 同时进行的请求数上限
+         */
+        private Integer maxConcurrent = 4;
+
+        /**
+         * 每秒补充的令牌数，0 表示不限速
+         */
+        private Double rate = 5.0;
+
+        /**
+         * 令牌桶容量，允许的突发请求数
+         */
+        private Integer burst = 10;
+
+        public Integer getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(Integer maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public Double getRate() {
+            return rate;
+        }
+
+        public void setRate(Double rate) {
+            this.rate = rate;
+        }
+
+        public Integer getBurst() {
+            return burst;
+        }
+
+        public void setBurst(Integer burst) {
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * 单类操作的并发与超时限制
+     */
+    public static class Limit {
+        /**
+         * 最大并发数
+         */
+        private Integer maxConcurrent;
+
+        /**
+         * 单次调用截止时间（毫秒）
+         */
+        private Long deadline;
+
+        public Integer getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(Integer maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public Long getDeadline() {
+            return deadline;
+        }
+
+        public void setDeadline(Long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * docker.endpoints[*] 远程 Docker 端点配置
+     */
+    public static class Endpoint {
+        /**
+         * 端点名称，用于标记结果来自哪台主机
+         */
+        private String name;
+
+        /**
+         * 守护进程地址：unix:///var/run/docker.sock 或 tcp://192.168.1.10:2376
+         */
+        private String host;
+
+        /**
+         * tcp 地址是否启用 TLS 校验
+         */
+        private Boolean tlsVerify = false;
+
+        /**
+         * TLS 证书目录（包含 ca.pem、cert.pem、key.pem）
+         */
+        private String certPath;
+
+        /**
+         * 并发查询时该主机的超时（毫秒），为空时使用 docker.fan-out-timeout
+         */
+        private Long timeout;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public void setHost(String host) {
+            this.host = host;
+        }
+
+        public Boolean getTlsVerify() {
+            return tlsVerify;
+        }
+
+        public void setTlsVerify(Boolean tlsVerify) {
+            this.tlsVerify = tlsVerify;
+        }
+
+        public String getCertPath() {
+            return certPath;
+        }
+
+        public void setCertPath(String certPath) {
+            this.certPath = certPath;
+        }
+
+        public Long getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Long timeout) {
+            this.timeout = timeout;
+        }
+    }
+}
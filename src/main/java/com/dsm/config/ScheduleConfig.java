@@ -1,14 +1,43 @@
 package com.dsm.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
 /**
  * 定时任务配置
- * 启用Spring定时任务支持
+ * 启用Spring定时任务支持，并为 @Scheduled 任务设置独立的调度线程池，避免镜像检查等耗时任务阻塞其他定时任务。
+ * 线程数读取 spring.task.scheduling.pool.size：@EnableWebSocket 注册了 SockJS 的 TaskScheduler，
+ * Spring Boot 的自动配置因此不会生效，需要在这里自行创建
  */
 @Configuration
 @EnableScheduling
-public class ScheduleConfig {
-    // 启用定时任务即可，无需其他配置
-} 
\ No newline at end of file
+public class ScheduleConfig implements SchedulingConfigurer {
+
+    @Value("${spring.task.scheduling.pool.size:4}")
+    private int poolSize;
+
+    @Value("${spring.task.scheduling.thread-name-prefix:scheduling-}")
+    private String threadNamePrefix;
+
+    /**
+     * 只供 @Scheduled 任务使用，由容器负责初始化和关闭
+     */
+    @Bean
+    public ThreadPoolTaskScheduler scheduledTaskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, poolSize));
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setDaemon(true);
+        return scheduler;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setTaskScheduler(scheduledTaskScheduler());
+    }
+}
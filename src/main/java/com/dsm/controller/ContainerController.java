@@ -1,9 +1,12 @@
 package com.dsm.controller;
 
+import com.dsm.model.dto.ContainerBatchResultDTO;
 import com.dsm.model.dto.ContainerDTO;
 import com.dsm.pojo.dto.ContainerCreateDTO;
+import com.dsm.pojo.request.ContainerBatchRequest;
 import com.dsm.model.dto.JsonContainerRequest;
 import com.dsm.model.dto.ContainerStaticInfoDTO;
+import com.dsm.model.dto.MetricSeriesDTO;
 import com.dsm.model.dto.ResourceUsageDTO;
 import com.dsm.model.dockerApi.ContainerCreateRequest;
 import com.dsm.service.ContainerService;
@@ -18,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.Resource;
 import java.util.List;
+import java.util.Map;
 
 
 @RestController
@@ -72,6 +76,22 @@ public class ContainerController {
 
 
 
+    @Operation(summary = "获取所有容器统计信息", description = "一次返回所有运行中容器的CPU、内存和网络使用情况，按容器ID索引")
+    @GetMapping("/stats")
+    public ApiResponse<Map<String, ResourceUsageDTO>> getAllContainerStats() {
+        return ApiResponse.success(containerService.getAllContainerStats());
+    }
+
+    @Operation(summary = "获取容器指标历史", description = "按时间范围返回容器某项指标（cpu、memory、rx、tx）的降采样序列")
+    @GetMapping("/{id}/metrics")
+    public ApiResponse<MetricSeriesDTO> getContainerMetrics(@PathVariable String id,
+                                                            @RequestParam(defaultValue = "cpu") String metric,
+                                                            @RequestParam(required = false) Long from,
+                                                            @RequestParam(required = false) Long to,
+                                                            @RequestParam(required = false) Integer points) {
+        return ApiResponse.success(containerService.getContainerMetrics(id, metric, from, to, points));
+    }
+
     @Operation(summary = "获取容器统计信息", description = "根据ID获取容器的统计信息")
     @GetMapping("/{id}/stats")
     public ApiResponse<ResourceUsageDTO> getContainerStats(@PathVariable String id) {
@@ -109,6 +129,12 @@ public class ContainerController {
         return ApiResponse.success(containerService.getContainerLogs(id, tail, follow, timestamps));
     }
 
+    @Operation(summary = "批量操作容器", description = "按ID列表或标签选择器批量启动、停止、重启或删除容器，可按依赖关系分阶段并行执行")
+    @PostMapping("/batch")
+    public ApiResponse<ContainerBatchResultDTO> batchOperate(@RequestBody ContainerBatchRequest request) {
+        return ApiResponse.success(containerService.batchOperate(request));
+    }
+
 
 
 
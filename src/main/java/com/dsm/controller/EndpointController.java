@@ -0,0 +1,50 @@
+package com.dsm.controller;
+
+import com.dsm.model.dto.ContainerDTO;
+import com.dsm.model.dto.DockerEndpointDTO;
+import com.dsm.model.dto.FederatedResultDTO;
+import com.dsm.model.dto.ImageStatusDTO;
+import com.dsm.pojo.dto.NetworkInfoDTO;
+import com.dsm.service.EndpointService;
+import com.dsm.utils.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+@Tag(name = "多主机管理", description = "多个Docker端点的合并查询接口")
+@RestController
+@RequestMapping("/endpoints")
+public class EndpointController {
+
+    @Resource
+    private EndpointService endpointService;
+
+    @Operation(summary = "获取端点列表", description = "获取所有已注册的Docker端点")
+    @GetMapping
+    public ApiResponse<List<DockerEndpointDTO>> listEndpoints() {
+        return ApiResponse.success(endpointService.listEndpoints());
+    }
+
+    @Operation(summary = "获取所有主机的容器", description = "并发查询所有端点的容器并按主机标记合并")
+    @GetMapping("/containers")
+    public ApiResponse<FederatedResultDTO<ContainerDTO>> listContainers() {
+        return ApiResponse.success(endpointService.listContainers());
+    }
+
+    @Operation(summary = "获取所有主机的镜像", description = "并发查询所有端点的镜像并按主机标记合并")
+    @GetMapping("/images")
+    public ApiResponse<FederatedResultDTO<ImageStatusDTO>> listImages() {
+        return ApiResponse.success(endpointService.listImages());
+    }
+
+    @Operation(summary = "获取所有主机的网络", description = "并发查询所有端点的网络并按主机标记合并")
+    @GetMapping("/networks")
+    public ApiResponse<FederatedResultDTO<NetworkInfoDTO>> listNetworks() {
+        return ApiResponse.success(endpointService.listNetworks());
+    }
+}
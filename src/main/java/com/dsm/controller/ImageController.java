@@ -1,5 +1,7 @@
 package com.dsm.controller;
 
+import com.dsm.model.dto.ImagePullTaskDTO;
+import com.dsm.model.dto.ImageSnapshotDTO;
 import com.dsm.model.dto.ImageStatusDTO;
 import com.dsm.pojo.dto.image.ImageInspectDTO;
 import com.dsm.service.ImageService;
@@ -11,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
 import javax.annotation.Resource;
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 import java.util.Map;
 
@@ -39,10 +42,25 @@ public class ImageController {
 
 
 
-    @Operation(summary = "列出镜像", description = "获取所有镜像的列表（包含更新状态信息）")
+    @Operation(summary = "列出镜像", description = "获取所有镜像的列表（包含更新状态信息），响应头 X-Snapshot-Version / X-Snapshot-Stale 为快照版本和是否过期")
     @GetMapping()
-    public ApiResponse<List<ImageStatusDTO>> listImages() {
-        return ApiResponse.success(imageService.listImages());
+    public ApiResponse<List<ImageStatusDTO>> listImages(HttpServletResponse response) {
+        ImageSnapshotDTO snapshot = imageService.getImageSnapshot();
+        response.setHeader("X-Snapshot-Version", String.valueOf(snapshot.getVersion()));
+        response.setHeader("X-Snapshot-Stale", String.valueOf(snapshot.getStale()));
+        return ApiResponse.success(snapshot.getImages());
+    }
+
+    @Operation(summary = "镜像状态快照", description = "获取镜像列表快照，包含版本号、生成时间和是否过期")
+    @GetMapping("/snapshot")
+    public ApiResponse<ImageSnapshotDTO> getImageSnapshot() {
+        return ApiResponse.success(imageService.getImageSnapshot());
+    }
+
+    @Operation(summary = "镜像拉取队列", description = "获取进行中和排队中的镜像拉取及其字节进度")
+    @GetMapping("/pulls")
+    public ApiResponse<List<ImagePullTaskDTO>> listPullTasks() {
+        return ApiResponse.success(imageService.listPullTasks());
     }
 
     /**
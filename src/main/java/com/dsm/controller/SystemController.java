@@ -1,5 +1,14 @@
 package com.dsm.controller;
 
+import com.dsm.api.DockerService;
+import com.dsm.api.metrics.DockerOperationMetrics;
+import com.dsm.api.task.TaskRegistry;
+import com.dsm.exception.BusinessException;
+import com.dsm.model.dto.DockerCoalesceStatsDTO;
+import com.dsm.model.dto.DockerOperationMetricsDTO;
+import com.dsm.model.dto.DockerPoolStatsDTO;
+import com.dsm.model.dto.RegistryRouteDTO;
+import com.dsm.model.dto.RunningTaskDTO;
 import com.dsm.pojo.entity.Route;
 import com.dsm.pojo.entity.SystemSetting;
 import com.dsm.service.SystemSettingService;
@@ -23,6 +32,15 @@ public class SystemController {
     @Autowired
     private SystemSettingService systemSettingService;
 
+    @Autowired
+    private DockerService dockerService;
+
+    @Autowired
+    private DockerOperationMetrics dockerOperationMetrics;
+
+    @Autowired
+    private TaskRegistry taskRegistry;
+
 
     @Operation(summary = "设置系统配置", description = "设置系统配置项")
     @PostMapping("/settings")
@@ -79,4 +97,49 @@ public class SystemController {
     public ApiResponse<Map<String, Long>> testProxyLatency() {
         return ApiResponse.success(systemSettingService.testProxyLatency());
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "镜像仓库线路", description = "获取直连、代理、镜像加速各线路的延迟、吞吐量和可用状态，probe=true 时先立即探测")
+    @GetMapping("/routes")
+    public ApiResponse<List<RegistryRouteDTO>> getRegistryRoutes(@RequestParam(defaultValue = "false") boolean probe) {
+        return ApiResponse.success(systemSettingService.getRegistryRoutes(probe));
+    }
+
+    @Operation(summary = "Docker连接池状态", description = "获取Docker HTTP连接池的租用、等待、空闲连接数")
+    @GetMapping("/docker/pool")
+    public ApiResponse<List<DockerPoolStatsDTO>> getDockerPoolStats() {
+        return ApiResponse.success(dockerService.getConnectionPoolStats());
+    }
+
+    @Operation(summary = "Docker请求合并统计", description = "获取各只读操作的调用数及被合并的调用数")
+    @GetMapping("/docker/coalescing")
+    public ApiResponse<List<DockerCoalesceStatsDTO>> getDockerCoalesceStats() {
+        return ApiResponse.success(dockerService.getCoalesceStats());
+    }
+
+    @Operation(summary = "Docker操作耗时统计", description = "获取各Docker操作的调用次数、耗时分位数及按错误码统计的失败次数")
+    @GetMapping("/metrics/docker")
+    public ApiResponse<List<DockerOperationMetricsDTO>> getDockerMetrics() {
+        return ApiResponse.success(dockerOperationMetrics.snapshot());
+    }
+
+    @Operation(summary = "Docker操作耗时统计（Prometheus）", description = "以Prometheus文本格式输出Docker操作统计")
+    @GetMapping(value = "/metrics/docker/prometheus", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String getDockerMetricsPrometheus() {
+        return dockerOperationMetrics.toPrometheusText();
+    }
+
+    @Operation(summary = "进行中的任务", description = "获取进行中的拉取、更新、安装、检查任务")
+    @GetMapping("/tasks")
+    public ApiResponse<List<RunningTaskDTO>> listTasks() {
+        return ApiResponse.success(taskRegistry.listTasks());
+    }
+
+    @Operation(summary = "取消任务", description = "按任务ID取消，只结束该任务自身的子进程和连接")
+    @DeleteMapping("/tasks/{taskId}")
+    public ApiResponse<Void> cancelTask(@PathVariable String taskId) {
+        if (!taskRegistry.cancel(taskId)) {
+            throw new BusinessException("任务不存在或已结束");
+        }
+        return ApiResponse.success(null, "任务已取消");
+    }
+}
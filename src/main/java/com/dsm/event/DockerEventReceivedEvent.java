@@ -0,0 +1,19 @@
+package com.dsm.event;
+
+import com.github.dockerjava.api.model.Event;
+
+/**
+ * Docker 守护进程事件
+ * 由 DockerEventWatcher 从 /events 长连接收到后转发为 Spring 事件
+ */
+public class DockerEventReceivedEvent {
+    private final Event event;
+
+    public DockerEventReceivedEvent(Event event) {
+        this.event = event;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+}
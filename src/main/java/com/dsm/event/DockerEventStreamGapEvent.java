@@ -0,0 +1,20 @@
+package com.dsm.event;
+
+/**
+ * Docker 事件流断档事件
+ * 事件订阅（重新）建立后无法保证事件连续时发布，监听方需要做一次全量同步
+ */
+public class DockerEventStreamGapEvent {
+    private final long gapMillis;
+
+    public DockerEventStreamGapEvent(long gapMillis) {
+        this.gapMillis = gapMillis;
+    }
+
+    /**
+     * @return 断开时长（毫秒），首次订阅时为 -1
+     */
+    public long getGapMillis() {
+        return gapMillis;
+    }
+}
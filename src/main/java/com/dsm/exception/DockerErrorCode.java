@@ -9,6 +9,8 @@ public enum DockerErrorCode {
     IMAGE_PULL_FAILED("拉取镜像失败"),
     INVALID_CONFIG("容器配置无效"),
     DOCKER_DAEMON_UNAVAILABLE("Docker 守护进程不可用"),
+    DOCKER_OPERATION_TIMEOUT("Docker 操作超时"),
+    DOCKER_BUSY("Docker 请求过多，请稍后重试"),
     CONTAINER_NAME_CONFLICT("容器名称重复"),
     MOUNT_PATH_NOT_SHARED("映射宿主机路径不存在或者无权限"),
     UNKNOWN_ERROR("未知错误");
@@ -0,0 +1,52 @@
+package com.dsm.exception;
+
+/**
+ * 镜像仓库请求异常
+ * 携带 HTTP 状态码，便于调用方区分不存在、限流等情况；网络错误时状态码为 0
+ */
+public class RegistryException extends RuntimeException {
+
+    private final int statusCode;
+    /**
+     * 仓库通过 Retry-After 要求的等待时间（毫秒），未给出时为 0
+     */
+    private final long retryAfter;
+
+    public RegistryException(String message, int statusCode) {
+        this(message, statusCode, 0);
+    }
+
+    public RegistryException(String message, int statusCode, long retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public RegistryException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = 0;
+        this.retryAfter = 0;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return 是否值得退避后重试（限流或仓库服务端错误）
+     */
+    public boolean isRetryable() {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * @return 是否被仓库限流
+     */
+    public boolean isRateLimited() {
+        return statusCode == 429;
+    }
+}
@@ -0,0 +1,11 @@
+package com.dsm.exception;
+
+/**
+ * 任务被用户取消
+ */
+public class TaskCancelledException extends RuntimeException {
+
+    public TaskCancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,44 @@
+package com.dsm.mapper;
+
+import com.dsm.pojo.entity.ContainerMetricRecord;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 容器指标小时汇总Mapper接口
+ */
+@Mapper
+public interface ContainerMetricMapper {
+
+    /**
+     * 批量插入汇总记录，同一小时已有记录时按采样次数加权合并平均值，最大值取较大者，采样次数相加
+     *
+     * @param records 汇总记录
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("records") List<ContainerMetricRecord> records);
+
+    /**
+     * 按时间范围查询某个容器的某项指标，按时间升序
+     *
+     * @param containerId 容器ID
+     * @param metric      指标
+     * @param from        开始时间（毫秒时间戳，含）
+     * @param to          结束时间（毫秒时间戳，含）
+     * @return 汇总记录
+     */
+    List<ContainerMetricRecord> selectRange(@Param("containerId") String containerId,
+                                            @Param("metric") String metric,
+                                            @Param("from") long from,
+                                            @Param("to") long to);
+
+    /**
+     * 删除早于指定时间的记录
+     *
+     * @param before 截止时间（毫秒时间戳）
+     * @return 影响行数
+     */
+    int deleteBefore(@Param("before") long before);
+}
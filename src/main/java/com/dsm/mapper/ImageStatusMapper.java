@@ -44,6 +44,14 @@ public interface ImageStatusMapper {
      */
     int insert(ImageStatus imageStatus);
 
+    /**
+     * 按名称和标签插入镜像状态记录，已存在时只更新本地创建时间和检查时间
+     *
+     * @param imageStatus 镜像状态
+     * @return 影响行数
+     */
+    int upsertLocal(ImageStatus imageStatus);
+
     /**
      * 更新镜像状态记录
      *
@@ -66,6 +74,32 @@ public interface ImageStatusMapper {
                                @Param("needUpdate") Boolean needUpdate,
                                @Param("lastChecked") String lastChecked);
 
+    /**
+     * 更新镜像的远程清单摘要和更新状态
+     *
+     * @param id           主键ID
+     * @param remoteDigest 远程清单摘要
+     * @param needUpdate   是否需要更新
+     * @param lastChecked  检查时间（时间戳字符串）
+     * @return 影响行数
+     */
+    int updateRemoteDigest(@Param("id") Long id,
+                           @Param("remoteDigest") String remoteDigest,
+                           @Param("needUpdate") Boolean needUpdate,
+                           @Param("lastChecked") String lastChecked);
+
+    /**
+     * 更新检查间隔和下次检查时间
+     *
+     * @param id            主键ID
+     * @param checkInterval 检查间隔（毫秒）
+     * @param nextCheck     下次检查时间
+     * @return 影响行数
+     */
+    int updateCheckSchedule(@Param("id") Long id,
+                            @Param("checkInterval") Long checkInterval,
+                            @Param("nextCheck") String nextCheck);
+
     /**
      * 更新本地创建时间
      *
@@ -0,0 +1,36 @@
+package com.dsm.mapper;
+
+import com.dsm.pojo.entity.RegistryMetadataCacheEntry;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 镜像仓库元数据缓存Mapper接口
+ */
+@Mapper
+public interface RegistryMetadataCacheMapper {
+
+    /**
+     * 根据缓存键查询
+     *
+     * @param cacheKey 缓存键
+     * @return 缓存记录，不存在时为 null
+     */
+    RegistryMetadataCacheEntry selectByKey(@Param("cacheKey") String cacheKey);
+
+    /**
+     * 插入或覆盖缓存记录
+     *
+     * @param entry 缓存记录
+     * @return 影响行数
+     */
+    int upsert(RegistryMetadataCacheEntry entry);
+
+    /**
+     * 删除已过期的记录
+     *
+     * @param now 当前时间（毫秒时间戳）
+     * @return 影响行数
+     */
+    int deleteExpired(@Param("now") long now);
+}
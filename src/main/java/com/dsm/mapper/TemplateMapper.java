@@ -24,5 +24,10 @@ public interface TemplateMapper {
      */
     Template selectTemplateById(@Param("id") String id);
 
+    /**
+     * 按排序权重查询最常用的模板
+     */
+    List<Template> selectPopularTemplates(@Param("limit") int limit);
+
 
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 批量容器操作中单个容器的执行结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContainerBatchItemDTO {
+
+    /**
+     * 容器ID，未找到容器时为请求中的ID或名称
+     */
+    private String id;
+
+    /**
+     * 容器名称
+     */
+    private String name;
+
+    /**
+     * 执行状态：SUCCESS / FAILED / SKIPPED
+     */
+    private String status;
+
+    /**
+     * 结果说明或失败原因
+     */
+    private String message;
+
+    /**
+     * 所在执行阶段，同一阶段的容器并行执行
+     */
+    private Integer stage;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private Long elapsed;
+}
@@ -0,0 +1,44 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量容器操作结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContainerBatchResultDTO {
+
+    /**
+     * 操作类型
+     */
+    private String action;
+
+    private Integer total;
+
+    private Integer succeeded;
+
+    private Integer failed;
+
+    /**
+     * 因依赖的容器失败而跳过的数量
+     */
+    private Integer skipped;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private Long elapsed;
+
+    /**
+     * 各容器的执行结果
+     */
+    private List<ContainerBatchItemDTO> items;
+}
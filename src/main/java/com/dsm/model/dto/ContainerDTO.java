@@ -25,6 +25,10 @@ public class ContainerDTO implements Serializable {
     private ContainerHostConfigDTO hostConfig;
     private ContainerNetworkSettingsDTO networkSettings;
     private List<ContainerMountDTO> mounts;
+    /**
+     * 所在 Docker 端点名称（多主机查询时填充）
+     */
+    private String host;
 
 
     // 转换方法：将 DockerJava 的 Container 转换为自定义 DTO
@@ -0,0 +1,36 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Docker 只读请求合并统计
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DockerCoalesceStatsDTO {
+
+    /**
+     * 操作名称
+     */
+    private String operation;
+
+    /**
+     * 总调用数
+     */
+    private Long calls;
+
+    /**
+     * 与进行中的请求合并的调用数
+     */
+    private Long collapsed;
+
+    /**
+     * 命中新鲜窗口直接复用结果的调用数
+     */
+    private Long cached;
+}
@@ -0,0 +1,41 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Docker 端点信息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DockerEndpointDTO {
+
+    /**
+     * 端点名称
+     */
+    private String name;
+
+    /**
+     * 守护进程地址
+     */
+    private String host;
+
+    /**
+     * 是否启用 TLS
+     */
+    private Boolean tls;
+
+    /**
+     * 是否为本机端点
+     */
+    private Boolean local;
+
+    /**
+     * 并发查询超时（毫秒）
+     */
+    private Long timeout;
+}
@@ -0,0 +1,54 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * 单个 Docker 操作的延迟与错误统计，时间单位均为毫秒
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DockerOperationMetricsDTO {
+
+    /**
+     * 操作名称
+     */
+    private String operation;
+
+    /**
+     * 调用次数
+     */
+    private Long count;
+
+    /**
+     * 失败次数
+     */
+    private Long errorCount;
+
+    /**
+     * 平均耗时
+     */
+    private Double mean;
+
+    private Double p50;
+
+    private Double p95;
+
+    private Double p99;
+
+    /**
+     * 最大耗时
+     */
+    private Double max;
+
+    /**
+     * 按错误码统计的失败次数
+     */
+    private Map<String, Long> errors;
+}
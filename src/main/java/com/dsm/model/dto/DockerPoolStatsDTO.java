@@ -0,0 +1,46 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Docker HTTP 连接池实时状态
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DockerPoolStatsDTO {
+
+    /**
+     * 连接池名称：request（普通请求）/ streaming（长连接流）
+     */
+    private String name;
+
+    /**
+     * 正在使用中的连接数
+     */
+    private Integer leased;
+
+    /**
+     * 等待获取连接的请求数
+     */
+    private Integer pending;
+
+    /**
+     * 空闲可复用的连接数
+     */
+    private Integer available;
+
+    /**
+     * 最大连接数
+     */
+    private Integer max;
+
+    /**
+     * 累计请求数
+     */
+    private Long requestCount;
+}
@@ -0,0 +1,46 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 多主机查询中单个端点的执行结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EndpointStatusDTO {
+
+    /**
+     * 端点名称
+     */
+    private String name;
+
+    /**
+     * 守护进程地址
+     */
+    private String host;
+
+    /**
+     * 是否查询成功
+     */
+    private Boolean success;
+
+    /**
+     * 返回条目数
+     */
+    private Integer count;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private Long elapsed;
+
+    /**
+     * 失败或超时原因
+     */
+    private String error;
+}
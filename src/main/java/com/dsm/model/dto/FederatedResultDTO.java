@@ -0,0 +1,29 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 多主机合并查询结果
+ * 单个主机失败或超时不影响其他主机的数据，失败原因记录在 endpoints 中
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FederatedResultDTO<T> {
+
+    /**
+     * 合并后的数据，每条数据都带有来源主机
+     */
+    private List<T> items;
+
+    /**
+     * 各端点的执行情况
+     */
+    private List<EndpointStatusDTO> endpoints;
+}
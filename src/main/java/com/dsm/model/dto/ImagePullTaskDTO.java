@@ -0,0 +1,83 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 镜像拉取任务状态DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImagePullTaskDTO {
+
+    /**
+     * 任务ID
+     */
+    private String id;
+
+    /**
+     * 规范化后的镜像引用
+     */
+    private String reference;
+
+    /**
+     * 状态：QUEUED / RUNNING
+     */
+    private String state;
+
+    /**
+     * 优先级，越大越先执行
+     */
+    private Integer priority;
+
+    /**
+     * 排队位置，从 1 开始，进行中的任务为空
+     */
+    private Integer queuePosition;
+
+    /**
+     * 订阅进度的请求数
+     */
+    private Integer subscribers;
+
+    /**
+     * 进度百分比
+     */
+    private Integer percent;
+
+    /**
+     * 最近一次状态
+     */
+    private String status;
+
+    /**
+     * 已下载字节数
+     */
+    private Long currentBytes;
+
+    /**
+     * 已知的总字节数
+     */
+    private Long totalBytes;
+
+    /**
+     * 下载速度（字节/秒）
+     */
+    private Long bytesPerSecond;
+
+    /**
+     * 提交时间
+     */
+    private Date queuedAt;
+
+    /**
+     * 开始拉取时间
+     */
+    private Date startedAt;
+}
@@ -0,0 +1,40 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 镜像状态快照DTO
+ * 镜像列表由后台在镜像事件后重建，接口直接返回最近一次的快照
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageSnapshotDTO {
+
+    /**
+     * 快照版本号，每次重建递增
+     */
+    private Long version;
+
+    /**
+     * 快照生成时间
+     */
+    private Date builtAt;
+
+    /**
+     * 是否已有未反映到快照中的变化（正在或等待重建）
+     */
+    private Boolean stale;
+
+    /**
+     * 镜像状态列表
+     */
+    private List<ImageStatusDTO> images;
+}
@@ -14,7 +14,7 @@ import java.util.Date;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class ImageStatusDTO {
 
     /**
@@ -57,6 +57,11 @@ public class ImageStatusDTO {
      */
     private String remoteCreateTime;
 
+    /**
+     * 远程镜像清单摘要
+     */
+    private String remoteDigest;
+
     /**
      * 是否需要更新
      */
@@ -66,4 +71,9 @@ public class ImageStatusDTO {
      * 上次检查时间
      */
     private Date lastChecked;
+
+    /**
+     * 所在 Docker 端点名称（多主机查询时填充）
+     */
+    private String host;
 } 
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 指标时间序列中的一个点DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MetricPointDTO {
+
+    /**
+     * 时间段起始时间（毫秒时间戳）
+     */
+    private Long timestamp;
+
+    /**
+     * 时间段内的平均值
+     */
+    private Double avg;
+
+    /**
+     * 时间段内的最大值
+     */
+    private Double max;
+}
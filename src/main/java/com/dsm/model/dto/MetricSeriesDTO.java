@@ -0,0 +1,38 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 容器指标时间序列DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MetricSeriesDTO {
+
+    /**
+     * 容器ID
+     */
+    private String containerId;
+
+    /**
+     * 指标：cpu、memory、rx、tx
+     */
+    private String metric;
+
+    /**
+     * 每个点代表的时长（毫秒）
+     */
+    private Long resolution;
+
+    /**
+     * 按时间升序排列的点
+     */
+    private List<MetricPointDTO> points;
+}
@@ -0,0 +1,63 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 镜像仓库线路状态DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RegistryRouteDTO {
+
+    /**
+     * 仓库地址
+     */
+    private String registry;
+
+    /**
+     * 线路：direct、proxy 或 mirror:主机
+     */
+    private String route;
+
+    /**
+     * 线路类型：DIRECT / PROXY / MIRROR
+     */
+    private String type;
+
+    /**
+     * 是否可用（不在失败冷却期内）
+     */
+    private Boolean available;
+
+    /**
+     * 延迟的加权平均（毫秒），尚无数据时为空
+     */
+    private Long latency;
+
+    /**
+     * 吞吐量的加权平均（字节/秒），尚无数据时为空
+     */
+    private Long throughput;
+
+    /**
+     * 连续失败次数
+     */
+    private Integer failures;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String lastError;
+
+    /**
+     * 最近一次更新时间
+     */
+    private Date lastUpdated;
+}
@@ -39,9 +39,29 @@ public class ResourceUsageDTO {
      */
     private Long networkTx;
 
+    /**
+     * 块设备读取总量（单位：字节）。
+     */
+    private Long blockRead;
+
+    /**
+     * 块设备写入总量（单位：字节）。
+     */
+    private Long blockWrite;
+
     /**
      * 容器是否在运行中。
      * 如果 Docker 返回的时间戳存在，则容器正在运行。
      */
     private Boolean running;
+
+    /**
+     * 采样时间（毫秒时间戳）。
+     */
+    private Long timestamp;
+
+    /**
+     * 批量读取时单次采样未在期限内完成为 true，此时容器仍在运行但各项指标为空。
+     */
+    private Boolean timedOut;
 }
\ No newline at end of file
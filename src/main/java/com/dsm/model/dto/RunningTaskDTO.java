@@ -0,0 +1,43 @@
+package com.dsm.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * 进行中的长时间任务DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RunningTaskDTO {
+
+    /**
+     * 任务ID，取消时使用
+     */
+    private String id;
+
+    /**
+     * 任务类型：PULL / UPDATE / INSTALL / CHECK
+     */
+    private String type;
+
+    /**
+     * 任务说明，如镜像引用或应用ID
+     */
+    private String description;
+
+    /**
+     * 开始时间
+     */
+    private Date startedAt;
+
+    /**
+     * 是否已请求取消
+     */
+    private Boolean cancelled;
+}
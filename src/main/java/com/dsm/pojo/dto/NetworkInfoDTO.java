@@ -59,4 +59,7 @@ public class NetworkInfoDTO {
     @JsonProperty("nameStr")
     private String nameStr; // 英文转中文
 
+    @JsonProperty("host")
+    private String host; // 所在 Docker 端点名称（多主机查询时填充）
+
 }
\ No newline at end of file
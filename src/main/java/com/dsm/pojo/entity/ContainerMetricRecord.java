@@ -0,0 +1,46 @@
+package com.dsm.pojo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 容器指标的小时汇总记录
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContainerMetricRecord {
+
+    /**
+     * 容器ID
+     */
+    private String containerId;
+
+    /**
+     * 指标，如 cpu、memory、rx、tx
+     */
+    private String metric;
+
+    /**
+     * 小时起始时间（毫秒时间戳）
+     */
+    private Long slotTime;
+
+    /**
+     * 该小时内的平均值
+     */
+    private Double avgValue;
+
+    /**
+     * 该小时内的最大值
+     */
+    private Double maxValue;
+
+    /**
+     * 该小时内的采样次数
+     */
+    private Integer sampleCount;
+}
@@ -40,6 +40,11 @@ public class ImageStatus {
      */
     private String remoteCreateTime;
 
+    /**
+     * 远程镜像清单摘要
+     */
+    private String remoteDigest;
+
     /**
      * 是否需要更新
      */
@@ -50,6 +55,16 @@ public class ImageStatus {
      */
     private String lastChecked;
 
+    /**
+     * 自适应检查间隔（毫秒）
+     */
+    private Long checkInterval;
+
+    /**
+     * 下次检查时间 - 存储为ISO8601格式日期字符串，为空表示尽快检查
+     */
+    private String nextCheck;
+
     /**
      * 创建时间 - 存储为ISO8601格式日期字符串
      */
@@ -0,0 +1,42 @@
+package com.dsm.pojo.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 镜像仓库元数据缓存记录
+ * error 不为空时表示一次失败的查询（否定缓存）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RegistryMetadataCacheEntry {
+
+    /**
+     * 类型|镜像引用|平台
+     */
+    private String cacheKey;
+
+    /**
+     * 缓存值：清单摘要或创建时间
+     */
+    private String value;
+
+    /**
+     * 失败时的错误信息
+     */
+    private String error;
+
+    /**
+     * 失败时仓库返回的状态码
+     */
+    private Integer statusCode;
+
+    /**
+     * 过期时间（毫秒时间戳）
+     */
+    private Long expiresAt;
+}
@@ -0,0 +1,33 @@
+package com.dsm.pojo.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量容器操作请求参数
+ */
+@Data
+@Schema(description = "批量容器操作请求参数")
+public class ContainerBatchRequest {
+
+    @Schema(description = "操作类型：start / stop / restart / remove")
+    private String action;
+
+    @Schema(description = "容器ID或名称列表")
+    private List<String> ids;
+
+    @Schema(description = "标签选择器，容器需包含全部标签才会被选中")
+    private Map<String, String> labels;
+
+    @Schema(description = "最大并行数，默认 4")
+    private Integer parallelism;
+
+    @Schema(description = "依赖关系：容器ID或名称 -> 需要先启动的容器ID或名称列表；停止和删除时按相反顺序执行")
+    private Map<String, List<String>> dependsOn;
+
+    @Schema(description = "是否按 docker compose 的 depends_on 标签自动推导依赖关系")
+    private Boolean composeDependencies;
+}
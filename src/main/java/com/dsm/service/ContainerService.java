@@ -1,11 +1,15 @@
 package com.dsm.service;
 
 import com.dsm.model.dockerApi.ContainerCreateRequest;
+import com.dsm.model.dto.ContainerBatchResultDTO;
 import com.dsm.model.dto.ContainerDTO;
 import com.dsm.model.dto.ContainerStaticInfoDTO;
+import com.dsm.model.dto.MetricSeriesDTO;
 import com.dsm.model.dto.ResourceUsageDTO;
+import com.dsm.pojo.request.ContainerBatchRequest;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 容器服务接口
@@ -35,6 +39,25 @@ public interface ContainerService {
      */
     ResourceUsageDTO getContainerStats(String containerId);
 
+    /**
+     * 获取所有运行中容器的统计信息
+     *
+     * @return 容器ID -> 容器统计信息
+     */
+    Map<String, ResourceUsageDTO> getAllContainerStats();
+
+    /**
+     * 获取容器某项指标的历史序列
+     *
+     * @param containerId 容器ID
+     * @param metric      指标：cpu、memory、rx、tx
+     * @param from        开始时间（毫秒时间戳），可为空
+     * @param to          结束时间（毫秒时间戳），可为空
+     * @param points      最多返回的点数，可为空
+     * @return 指标序列
+     */
+    MetricSeriesDTO getContainerMetrics(String containerId, String metric, Long from, Long to, Integer points);
+
     /**
      * 获取容器配置信息
      *
@@ -79,5 +102,11 @@ public interface ContainerService {
      */
     String createContainer(ContainerCreateRequest request);
 
-
-}
\ No newline at end of file
+    /**
+     * 批量执行容器启动、停止、重启或删除
+     *
+     * @param request 批量操作请求
+     * @return 各容器的执行结果及耗时
+     */
+    ContainerBatchResultDTO batchOperate(ContainerBatchRequest request);
+}
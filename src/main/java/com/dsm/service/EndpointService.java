@@ -0,0 +1,44 @@
+package com.dsm.service;
+
+import com.dsm.model.dto.ContainerDTO;
+import com.dsm.model.dto.DockerEndpointDTO;
+import com.dsm.model.dto.FederatedResultDTO;
+import com.dsm.model.dto.ImageStatusDTO;
+import com.dsm.pojo.dto.NetworkInfoDTO;
+
+import java.util.List;
+
+/**
+ * 多主机 Docker 端点服务接口
+ * 在所有已注册端点上并发查询并合并结果
+ */
+public interface EndpointService {
+
+    /**
+     * 获取所有已注册的端点
+     *
+     * @return 端点列表
+     */
+    List<DockerEndpointDTO> listEndpoints();
+
+    /**
+     * 获取所有主机上的容器
+     *
+     * @return 按主机标记的容器列表及各主机执行情况
+     */
+    FederatedResultDTO<ContainerDTO> listContainers();
+
+    /**
+     * 获取所有主机上的镜像
+     *
+     * @return 按主机标记的镜像列表及各主机执行情况
+     */
+    FederatedResultDTO<ImageStatusDTO> listImages();
+
+    /**
+     * 获取所有主机上的网络
+     *
+     * @return 按主机标记的网络列表及各主机执行情况
+     */
+    FederatedResultDTO<NetworkInfoDTO> listNetworks();
+}
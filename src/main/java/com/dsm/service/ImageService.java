@@ -1,7 +1,11 @@
 package com.dsm.service;
 
+import com.dsm.api.task.CancellationToken;
+import com.dsm.model.dto.ImagePullTaskDTO;
+import com.dsm.model.dto.ImageSnapshotDTO;
 import com.dsm.model.dto.ImageStatusDTO;
 import com.dsm.pojo.dto.image.ImageInspectDTO;
+import com.dsm.websocket.callback.ImageCheckCallback;
 
 import java.util.List;
 import java.util.Map;
@@ -17,10 +21,40 @@ public interface ImageService {
 
     void checkAllImagesStatus();
 
+    /**
+     * 并发检查所有镜像更新状态
+     *
+     * @param callback 进度回调，每个镜像检查完成或失败时调用，可为 null
+     */
+    void checkAllImagesStatus(ImageCheckCallback callback);
+
+    /**
+     * 并发检查所有镜像更新状态，可取消
+     *
+     * @param callback 进度回调，可为 null
+     * @param token    取消令牌，取消时未开始的检查不再执行
+     * @throws com.dsm.exception.TaskCancelledException 检查被取消
+     */
+    void checkAllImagesStatus(ImageCheckCallback callback, CancellationToken token);
+
     Map<String, Object> updateImage(String image, String tag);
 
     List<ImageStatusDTO> listImages();
 
+    /**
+     * 获取镜像状态快照，附带版本号和是否过期
+     *
+     * @return 镜像状态快照
+     */
+    ImageSnapshotDTO getImageSnapshot();
+
+    /**
+     * 获取进行中和排队中的镜像拉取
+     *
+     * @return 拉取任务列表，进行中的在前
+     */
+    List<ImagePullTaskDTO> listPullTasks();
+
     /**
      * 获取镜像详情
      *
@@ -1,6 +1,7 @@
 package com.dsm.service;
 
 import com.dsm.pojo.dto.NetworkInfoDTO;
+import com.github.dockerjava.api.model.Network;
 
 import java.util.List;
 import java.util.Map;
@@ -14,6 +15,13 @@ public interface NetworkService {
      */
     List<NetworkInfoDTO> listNetworks() ;
 
+    /**
+     * 将 Docker 网络转换为展示用的DTO
+     * @param networks Docker 网络列表
+     * @return 网络列表
+     */
+    List<NetworkInfoDTO> convertNetworks(List<Network> networks);
+
     /**
      * 获取网络详情
      * @param networkId 网络ID
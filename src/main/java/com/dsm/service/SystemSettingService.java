@@ -1,5 +1,6 @@
 package com.dsm.service;
 
+import com.dsm.model.dto.RegistryRouteDTO;
 import com.dsm.pojo.entity.SystemSetting;
 
 import java.util.List;
@@ -8,6 +9,14 @@ import java.util.Map;
 public interface SystemSettingService {
     Map<String, Long> testProxyLatency();
 
+    /**
+     * 获取各镜像仓库线路（直连、代理、镜像加速）的评分
+     *
+     * @param probe 是否先立即探测一次所有线路
+     * @return 按仓库分组、从优到劣排列的线路
+     */
+    List<RegistryRouteDTO> getRegistryRoutes(boolean probe);
+
     String get(String key);
 
     void set(String key, String value);
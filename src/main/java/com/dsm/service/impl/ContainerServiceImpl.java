@@ -1,11 +1,18 @@
 package com.dsm.service.impl;
 
 import com.dsm.api.DockerService;
+import com.dsm.api.stats.ContainerMetric;
+import com.dsm.api.stats.ContainerMetricsStore;
 import com.dsm.exception.BusinessException;
+import com.dsm.exception.DockerOperationException;
 import com.dsm.model.dockerApi.ContainerCreateRequest;
+import com.dsm.model.dto.ContainerBatchItemDTO;
+import com.dsm.model.dto.ContainerBatchResultDTO;
 import com.dsm.model.dto.ContainerDTO;
 import com.dsm.model.dto.ContainerStaticInfoDTO;
+import com.dsm.model.dto.MetricSeriesDTO;
 import com.dsm.model.dto.ResourceUsageDTO;
+import com.dsm.pojo.request.ContainerBatchRequest;
 import com.dsm.pojo.request.ContainerUpdateRequest;
 import com.dsm.service.ContainerService;
 import com.dsm.utils.ContainerStaticInfoConverter;
@@ -17,8 +24,22 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -29,9 +50,34 @@ import java.util.stream.Collectors;
 @Service
 public class ContainerServiceImpl implements ContainerService {
 
+    private static final Set<String> BATCH_ACTIONS = Set.of("start", "stop", "restart", "remove");
+    private static final int DEFAULT_BATCH_PARALLELISM = 4;
+    private static final int MAX_BATCH_PARALLELISM = 8;
+    private static final String COMPOSE_PROJECT_LABEL = "com.docker.compose.project";
+    private static final String COMPOSE_SERVICE_LABEL = "com.docker.compose.service";
+    private static final String COMPOSE_DEPENDS_ON_LABEL = "com.docker.compose.depends_on";
+
     @Autowired
     private DockerService dockerService;
 
+    @Autowired
+    private ContainerMetricsStore containerMetricsStore;
+
+    /**
+     * 批量操作共用的线程池，单个请求的并行数由信号量另行限制
+     */
+    private final AtomicInteger batchThreadIndex = new AtomicInteger();
+    private final ExecutorService batchExecutor = Executors.newFixedThreadPool(MAX_BATCH_PARALLELISM, r -> {
+        Thread thread = new Thread(r, "container-batch-" + batchThreadIndex.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void destroy() {
+        batchExecutor.shutdownNow();
+    }
+
     /**
      * 获取容器列表
      *
@@ -57,6 +103,16 @@ public class ContainerServiceImpl implements ContainerService {
 
     }
 
+    @Override
+    public Map<String, ResourceUsageDTO> getAllContainerStats() {
+        return dockerService.getAllContainerStats();
+    }
+
+    @Override
+    public MetricSeriesDTO getContainerMetrics(String containerId, String metric, Long from, Long to, Integer points) {
+        return containerMetricsStore.query(containerId, ContainerMetric.of(metric), from, to, points);
+    }
+
     @Override
     public ContainerStaticInfoDTO getContainerConfig(String containerId) {
         // 获取容器详细信息
@@ -71,9 +127,7 @@ public class ContainerServiceImpl implements ContainerService {
 
     @Override
     public void stopContainer(String containerId) {
-        ResourceUsageDTO containerStats = dockerService.getContainerStats(containerId);
-        Boolean running = containerStats.getRunning();
-        if (running) {
+        if (dockerService.isContainerRunning(containerId)) {
             dockerService.stopContainer(containerId);
         }
     }
@@ -131,8 +185,7 @@ public class ContainerServiceImpl implements ContainerService {
      * @return 容器对象，如果未找到则返回null
      */
     private Container findContainerByIdOrName(String containerIdOrName) {
-        List<Container> containers = dockerService.listContainers();
-        return containers.stream().filter(container -> container.getId().equals(containerIdOrName) || Arrays.asList(container.getNames()).contains(containerIdOrName) || Arrays.asList(container.getNames()).contains("/" + containerIdOrName)).findFirst().orElse(null);
+        return dockerService.findContainer(containerIdOrName);
     }
 
     @Override
@@ -156,8 +209,7 @@ public class ContainerServiceImpl implements ContainerService {
 
 
     public boolean isContainerRunning(String containerId) {
-        Container container = findContainerByIdOrName(containerId);
-        return container != null && "running".equals(container.getState());
+        return dockerService.isContainerRunning(containerId);
     }
 
     /**
@@ -180,4 +232,230 @@ public class ContainerServiceImpl implements ContainerService {
             LogUtil.logSysError("恢复原容器状态失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public ContainerBatchResultDTO batchOperate(ContainerBatchRequest request) {
+        String action = request.getAction() != null ? request.getAction().toLowerCase() : null;
+        if (action == null || !BATCH_ACTIONS.contains(action)) {
+            throw new BusinessException("不支持的批量操作: " + request.getAction());
+        }
+        long start = System.currentTimeMillis();
+
+        // 1. 解析目标容器：ID/名称列表与标签选择器取并集
+        List<ContainerBatchItemDTO> items = new ArrayList<>();
+        Map<String, Container> targets = new LinkedHashMap<>();
+        if (request.getIds() != null) {
+            for (String idOrName : request.getIds()) {
+                Container container = dockerService.findContainer(idOrName);
+                if (container == null) {
+                    items.add(ContainerBatchItemDTO.builder().id(idOrName).status("FAILED").message("容器不存在").elapsed(0L).build());
+                } else {
+                    targets.putIfAbsent(container.getId(), container);
+                }
+            }
+        }
+        if (request.getLabels() != null && !request.getLabels().isEmpty()) {
+            for (Container container : dockerService.listContainers()) {
+                Map<String, String> labels = container.getLabels() != null ? container.getLabels() : Collections.emptyMap();
+                boolean matched = request.getLabels().entrySet().stream().allMatch(e -> e.getValue() == null ? labels.containsKey(e.getKey()) : e.getValue().equals(labels.get(e.getKey())));
+                if (matched) {
+                    targets.putIfAbsent(container.getId(), container);
+                }
+            }
+        }
+        if (targets.isEmpty() && items.isEmpty()) {
+            throw new BusinessException("未选中任何容器");
+        }
+
+        // 2. 按依赖关系分阶段，同一阶段内并行执行
+        Map<String, Set<String>> prerequisites = buildPrerequisites(targets, request, action);
+        List<List<Container>> stages = planStages(targets, prerequisites);
+        int parallelism = request.getParallelism() != null ? Math.max(1, Math.min(request.getParallelism(), MAX_BATCH_PARALLELISM)) : DEFAULT_BATCH_PARALLELISM;
+        Semaphore permits = new Semaphore(parallelism);
+        Set<String> failedIds = ConcurrentHashMap.newKeySet();
+
+        for (int i = 0; i < stages.size(); i++) {
+            int stage = i + 1;
+            Map<Container, Future<ContainerBatchItemDTO>> futures = new LinkedHashMap<>();
+            for (Container container : stages.get(i)) {
+                if (prerequisites.get(container.getId()).stream().anyMatch(failedIds::contains)) {
+                    failedIds.add(container.getId());
+                    items.add(ContainerBatchItemDTO.builder().id(container.getId()).name(containerName(container)).status("SKIPPED")
+                            .message("依赖的容器执行失败，已跳过").stage(stage).elapsed(0L).build());
+                    continue;
+                }
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new BusinessException("批量操作被中断");
+                }
+                futures.put(container, batchExecutor.submit(() -> {
+                    try {
+                        return runBatchAction(action, container, stage);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Map.Entry<Container, Future<ContainerBatchItemDTO>> entry : futures.entrySet()) {
+                ContainerBatchItemDTO item;
+                try {
+                    item = entry.getValue().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new BusinessException("批量操作被中断");
+                } catch (ExecutionException e) {
+                    item = ContainerBatchItemDTO.builder().id(entry.getKey().getId()).name(containerName(entry.getKey())).status("FAILED")
+                            .message(e.getCause() != null ? e.getCause().getMessage() : e.getMessage()).stage(stage).elapsed(0L).build();
+                }
+                if ("FAILED".equals(item.getStatus())) {
+                    failedIds.add(entry.getKey().getId());
+                }
+                items.add(item);
+            }
+        }
+
+        int succeeded = (int) items.stream().filter(item -> "SUCCESS".equals(item.getStatus())).count();
+        int failed = (int) items.stream().filter(item -> "FAILED".equals(item.getStatus())).count();
+        int skipped = items.size() - succeeded - failed;
+        LogUtil.logSysInfo("批量" + action + "容器完成: 成功 " + succeeded + "，失败 " + failed + "，跳过 " + skipped);
+        return ContainerBatchResultDTO.builder().action(action).total(items.size()).succeeded(succeeded).failed(failed).skipped(skipped)
+                .elapsed(System.currentTimeMillis() - start).items(items).build();
+    }
+
+    private ContainerBatchItemDTO runBatchAction(String action, Container container, int stage) {
+        long start = System.currentTimeMillis();
+        String id = container.getId();
+        String status = "SUCCESS";
+        String message;
+        try {
+            switch (action) {
+                case "start":
+                    if (dockerService.isContainerRunning(id)) {
+                        message = "容器已在运行中";
+                    } else {
+                        dockerService.startContainer(id);
+                        message = "启动成功";
+                    }
+                    break;
+                case "stop":
+                    if (!dockerService.isContainerRunning(id)) {
+                        message = "容器已停止";
+                    } else {
+                        dockerService.stopContainer(id);
+                        message = "停止成功";
+                    }
+                    break;
+                case "restart":
+                    dockerService.restartContainer(id);
+                    message = "重启成功";
+                    break;
+                default:
+                    dockerService.removeContainer(id);
+                    message = "删除成功";
+                    break;
+            }
+        } catch (DockerOperationException e) {
+            status = "FAILED";
+            message = e.getDetail();
+        } catch (Exception e) {
+            status = "FAILED";
+            message = e.getMessage();
+        }
+        return ContainerBatchItemDTO.builder().id(id).name(containerName(container)).status(status).message(message).stage(stage)
+                .elapsed(System.currentTimeMillis() - start).build();
+    }
+
+    /**
+     * 计算每个容器在本次操作中需要先完成的容器
+     * 启动/重启时依赖先执行，停止/删除时依赖方先执行
+     */
+    private Map<String, Set<String>> buildPrerequisites(Map<String, Container> targets, ContainerBatchRequest request, String action) {
+        // 容器ID -> 它依赖的容器ID（仅限本次选中的容器）
+        Map<String, Set<String>> dependsOn = new HashMap<>();
+        targets.keySet().forEach(id -> dependsOn.put(id, new HashSet<>()));
+
+        if (request.getDependsOn() != null) {
+            request.getDependsOn().forEach((dependent, dependencies) -> {
+                String dependentId = resolveTarget(targets, dependent);
+                if (dependentId == null || dependencies == null) {
+                    return;
+                }
+                for (String dependency : dependencies) {
+                    String dependencyId = resolveTarget(targets, dependency);
+                    if (dependencyId != null && !dependencyId.equals(dependentId)) {
+                        dependsOn.get(dependentId).add(dependencyId);
+                    }
+                }
+            });
+        }
+
+        if (Boolean.TRUE.equals(request.getComposeDependencies())) {
+            // project:service -> 容器ID
+            Map<String, String> services = new HashMap<>();
+            for (Container container : targets.values()) {
+                Map<String, String> labels = container.getLabels();
+                if (labels != null && labels.containsKey(COMPOSE_SERVICE_LABEL)) {
+                    services.put(labels.get(COMPOSE_PROJECT_LABEL) + ":" + labels.get(COMPOSE_SERVICE_LABEL), container.getId());
+                }
+            }
+            for (Container container : targets.values()) {
+                Map<String, String> labels = container.getLabels();
+                String dependsOnLabel = labels != null ? labels.get(COMPOSE_DEPENDS_ON_LABEL) : null;
+                if (dependsOnLabel == null || dependsOnLabel.isEmpty()) {
+                    continue;
+                }
+                // 格式：db:service_started:false,redis:service_healthy:true
+                for (String entry : dependsOnLabel.split(",")) {
+                    String service = entry.split(":")[0].trim();
+                    String dependencyId = services.get(labels.get(COMPOSE_PROJECT_LABEL) + ":" + service);
+                    if (dependencyId != null && !dependencyId.equals(container.getId())) {
+                        dependsOn.get(container.getId()).add(dependencyId);
+                    }
+                }
+            }
+        }
+
+        if ("start".equals(action) || "restart".equals(action)) {
+            return dependsOn;
+        }
+        Map<String, Set<String>> reversed = new HashMap<>();
+        targets.keySet().forEach(id -> reversed.put(id, new HashSet<>()));
+        dependsOn.forEach((dependent, dependencies) -> dependencies.forEach(dependency -> reversed.get(dependency).add(dependent)));
+        return reversed;
+    }
+
+    /**
+     * 按前置关系分层，每层只依赖之前的层
+     */
+    private List<List<Container>> planStages(Map<String, Container> targets, Map<String, Set<String>> prerequisites) {
+        List<List<Container>> stages = new ArrayList<>();
+        Set<String> done = new HashSet<>();
+        while (done.size() < targets.size()) {
+            List<Container> stage = targets.values().stream()
+                    .filter(c -> !done.contains(c.getId()) && done.containsAll(prerequisites.get(c.getId())))
+                    .collect(Collectors.toList());
+            if (stage.isEmpty()) {
+                String cycle = targets.values().stream().filter(c -> !done.contains(c.getId())).map(this::containerName).collect(Collectors.joining(", "));
+                throw new BusinessException("容器依赖关系存在循环: " + cycle);
+            }
+            stage.forEach(c -> done.add(c.getId()));
+            stages.add(stage);
+        }
+        return stages;
+    }
+
+    private String resolveTarget(Map<String, Container> targets, String idOrName) {
+        Container container = dockerService.findContainer(idOrName);
+        return container != null && targets.containsKey(container.getId()) ? container.getId() : null;
+    }
+
+    private String containerName(Container container) {
+        String[] names = container.getNames();
+        if (names == null || names.length == 0) {
+            return container.getId();
+        }
+        return names[0].startsWith("/") ? names[0].substring(1) : names[0];
+    }
+}
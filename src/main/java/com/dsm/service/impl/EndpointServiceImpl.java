@@ -0,0 +1,113 @@
+package com.dsm.service.impl;
+
+import com.dsm.api.DockerEndpoint;
+import com.dsm.api.DockerEndpointRegistry;
+import com.dsm.api.DockerService;
+import com.dsm.model.dto.ContainerDTO;
+import com.dsm.model.dto.DockerEndpointDTO;
+import com.dsm.model.dto.FederatedResultDTO;
+import com.dsm.model.dto.ImageStatusDTO;
+import com.dsm.pojo.dto.NetworkInfoDTO;
+import com.dsm.service.EndpointService;
+import com.dsm.service.ImageService;
+import com.dsm.service.NetworkService;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Image;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 多主机 Docker 端点服务实现类
+ * 本机端点沿用原有的缓存和数据库状态，远程端点直接查询其守护进程
+ */
+@Service
+public class EndpointServiceImpl implements EndpointService {
+
+    @Resource
+    private DockerEndpointRegistry endpointRegistry;
+
+    @Resource
+    private DockerService dockerService;
+
+    @Resource
+    private ImageService imageService;
+
+    @Resource
+    private NetworkService networkService;
+
+    @Override
+    public List<DockerEndpointDTO> listEndpoints() {
+        return endpointRegistry.getEndpoints().stream()
+                .map(endpoint -> DockerEndpointDTO.builder()
+                        .name(endpoint.getName())
+                        .host(endpoint.getHost())
+                        .tls(endpoint.isTls())
+                        .local(endpoint.isLocal())
+                        .timeout(endpoint.getTimeout())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public FederatedResultDTO<ContainerDTO> listContainers() {
+        return endpointRegistry.fanOut(endpoint -> {
+            List<Container> containers = endpoint.isLocal()
+                    ? dockerService.listContainers()
+                    : endpoint.getClient().listContainersCmd().withShowAll(true).exec();
+            return containers.stream().map(container -> {
+                ContainerDTO dto = ContainerDTO.convertToDTO(container);
+                dto.setHost(endpoint.getName());
+                return dto;
+            }).collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public FederatedResultDTO<ImageStatusDTO> listImages() {
+        return endpointRegistry.fanOut(endpoint -> {
+            List<ImageStatusDTO> images = endpoint.isLocal() ? imageService.listImages() : listRemoteImages(endpoint);
+            images.forEach(image -> image.setHost(endpoint.getName()));
+            return images;
+        });
+    }
+
+    @Override
+    public FederatedResultDTO<NetworkInfoDTO> listNetworks() {
+        return endpointRegistry.fanOut(endpoint -> {
+            List<NetworkInfoDTO> networks = endpoint.isLocal()
+                    ? networkService.listNetworks()
+                    : networkService.convertNetworks(endpoint.getClient().listNetworksCmd().exec());
+            networks.forEach(network -> network.setHost(endpoint.getName()));
+            return networks;
+        });
+    }
+
+    /**
+     * 远程主机的镜像没有本地数据库中的更新状态，只返回基本信息
+     */
+    private List<ImageStatusDTO> listRemoteImages(DockerEndpoint endpoint) {
+        List<ImageStatusDTO> result = new ArrayList<>();
+        for (Image image : endpoint.getClient().listImagesCmd().exec()) {
+            if (image.getRepoTags() == null) {
+                continue;
+            }
+            for (String repoTag : image.getRepoTags()) {
+                if ("<none>:<none>".equals(repoTag)) {
+                    continue;
+                }
+                // 仓库地址可能带端口，按最后一个冒号拆分标签
+                int index = repoTag.lastIndexOf(':');
+                boolean hasTag = index > repoTag.lastIndexOf('/');
+                String name = hasTag ? repoTag.substring(0, index) : repoTag;
+                String tag = hasTag ? repoTag.substring(index + 1) : "latest";
+                result.add(ImageStatusDTO.builder().id(image.getId()).name(name).tag(tag).size(image.getSize()).created(image.getCreated() != null ? new Date(image.getCreated() * 1000L) : null).build());
+            }
+        }
+        return result;
+    }
+}
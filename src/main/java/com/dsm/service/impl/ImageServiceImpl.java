@@ -1,36 +1,62 @@
 package com.dsm.service.impl;
 
 import com.dsm.api.DockerService;
-import com.dsm.config.AppConfig;
+import com.dsm.api.pull.ImagePullManager;
+import com.dsm.api.registry.RegistryClient;
+import com.dsm.api.task.CancellationToken;
+import com.dsm.api.task.TaskHandle;
+import com.dsm.api.task.TaskRegistry;
+import com.dsm.api.task.TaskType;
+import com.dsm.config.DockerConfig;
 import com.dsm.exception.BusinessException;
+import com.dsm.exception.TaskCancelledException;
+import com.dsm.exception.RegistryException;
 import com.dsm.mapper.ImageStatusMapper;
+import com.dsm.event.DockerEventReceivedEvent;
+import com.dsm.model.dto.ImagePullTaskDTO;
+import com.dsm.model.dto.ImageSnapshotDTO;
 import com.dsm.model.dto.ImageStatusDTO;
 import com.dsm.pojo.dto.image.*;
 import com.dsm.pojo.entity.ImageStatus;
 import com.dsm.service.ImageService;
 import com.dsm.utils.LogUtil;
+import com.dsm.websocket.callback.ImageCheckCallback;
 import com.dsm.websocket.callback.PullImageCallback;
-import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.GraphDriver;
 import com.github.dockerjava.api.command.InspectImageResponse;
+import com.github.dockerjava.api.model.Container;
 import com.github.dockerjava.api.model.ContainerConfig;
+import com.github.dockerjava.api.model.EventType;
 import com.github.dockerjava.api.model.ExposedPort;
 import com.github.dockerjava.api.model.Image;
-import com.github.dockerjava.core.DockerClientBuilder;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -45,8 +71,62 @@ public class ImageServiceImpl implements ImageService {
     private DockerService dockerService;
     @Resource
     private ImageStatusMapper imageStatusMapper;
-    @Autowired
-    private AppConfig appConfig;
+    @Resource
+    private RegistryClient registryClient;
+    @Resource
+    private DockerConfig dockerConfig;
+    @Resource
+    private SqlSessionFactory sqlSessionFactory;
+    @Resource
+    private PlatformTransactionManager transactionManager;
+    @Resource
+    private ImagePullManager imagePullManager;
+    @Resource
+    private TaskRegistry taskRegistry;
+
+    private final AtomicInteger checkThreadIndex = new AtomicInteger();
+    private ExecutorService checkExecutor;
+    /**
+     * 上次同步到数据库时本地镜像的签名
+     */
+    private volatile String syncedImagesSignature;
+
+    /**
+     * 镜像状态快照，GET /images 直接返回
+     */
+    private volatile ImageSnapshotDTO imageSnapshot;
+    private final Object snapshotLock = new Object();
+    private final AtomicLong snapshotVersion = new AtomicLong();
+    private final AtomicBoolean snapshotDirty = new AtomicBoolean();
+    private final AtomicBoolean snapshotRebuilding = new AtomicBoolean();
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "image-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 同步镜像记录用的批量执行器，在 transactionTemplate 的事务中使用，语句在提交时一次刷出
+     */
+    private ImageStatusMapper batchImageStatusMapper;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        batchImageStatusMapper = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH).getMapper(ImageStatusMapper.class);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        checkExecutor = Executors.newFixedThreadPool(Math.max(1, dockerConfig.getImageCheck().getWorkers()), r -> {
+            Thread thread = new Thread(r, "image-check-" + checkThreadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        checkExecutor.shutdownNow();
+        snapshotExecutor.shutdownNow();
+    }
 
 
     @Override
@@ -81,46 +161,296 @@ public class ImageServiceImpl implements ImageService {
 
 
     /**
-     * 每小时定时检查所有镜像更新状态
+     * 手动检查所有镜像更新状态，定时检查由 checkDueImagesStatus 按到期时间增量进行
      */
-    @Scheduled(fixedRate = 60 * 60 * 1000)
     @Override
     public void checkAllImagesStatus() {
-        LogUtil.logSysInfo("开始定时检查所有镜像更新状态...");
+        checkAllImagesStatus(null);
+    }
+
+    /**
+     * 并发检查所有镜像更新状态
+     * 每个镜像一个任务，由工作线程池并发执行；对仓库的请求受 RegistryRateLimiter 按仓库限制并发和速率
+     */
+    @Override
+    public void checkAllImagesStatus(ImageCheckCallback callback) {
+        checkAllImagesStatus(callback, CancellationToken.NONE);
+    }
+
+    @Override
+    public void checkAllImagesStatus(ImageCheckCallback callback, CancellationToken token) {
+        LogUtil.logSysInfo("开始检查所有镜像更新状态...");
         try {
             // 首先同步宿主机所有镜像到数据库
-            syncAllLocalImagesToDb();
+            List<Image> images = dockerService.listImages();
+            syncAllLocalImagesToDb(images);
+            syncedImagesSignature = imagesSignature(images);
 
-            // 然后查询所有镜像记录进行更新检查
+            // 然后查询所有镜像记录进行更新检查，有运行中容器的镜像排在前面
+            Set<String> running = runningImages(images);
             List<ImageStatus> imageRecords = imageStatusMapper.selectAll();
-
+            imageRecords.sort(Comparator.comparing(record -> !running.contains(record.getName() + ":" + record.getTag())));
             LogUtil.logSysInfo("找到 " + imageRecords.size() + " 条镜像记录需要检查");
-            for (ImageStatus record : imageRecords) {
+            runChecks(imageRecords, running, callback, token);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LogUtil.logSysError("检查镜像更新状态被中断");
+        } catch (TaskCancelledException e) {
+            throw e;
+        } catch (Exception e) {
+            LogUtil.logSysError("检查镜像更新状态失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 增量检查到期的镜像
+     * 每个周期只取 next_check 已到的记录，按有运行中容器优先、过期越久越优先的顺序，最多处理 max-per-tick 个，
+     * 把原来每小时一次的全量检查摊平到各个周期；每轮登记为 CHECK 任务，可以在任务列表中查看和取消
+     */
+    @Scheduled(initialDelayString = "${docker.image-check.tick-interval:60000}", fixedDelayString = "${docker.image-check.tick-interval:60000}")
+    public void checkDueImagesStatus() {
+        try {
+            // 本地镜像有变化时才重新同步，避免每个周期都写数据库
+            List<Image> images = dockerService.listImages();
+            String signature = imagesSignature(images);
+            if (!signature.equals(syncedImagesSignature)) {
+                syncAllLocalImagesToDb(images);
+                syncedImagesSignature = signature;
+                requestSnapshotRebuild();
+            }
+
+            Set<String> running = runningImages(images);
+            LocalDateTime now = LocalDateTime.now();
+            PriorityQueue<ImageStatus> queue = new PriorityQueue<>(Comparator
+                    .comparing((ImageStatus record) -> !running.contains(record.getName() + ":" + record.getTag()))
+                    .thenComparing(record -> parseNextCheck(record.getNextCheck()), Comparator.nullsFirst(Comparator.naturalOrder())));
+            for (ImageStatus record : imageStatusMapper.selectAll()) {
+                LocalDateTime nextCheck = parseNextCheck(record.getNextCheck());
+                if (nextCheck == null || !nextCheck.isAfter(now)) {
+                    queue.add(record);
+                }
+            }
+            if (queue.isEmpty()) {
+                return;
+            }
+            int limit = Math.max(1, dockerConfig.getImageCheck().getMaxPerTick());
+            List<ImageStatus> due = new ArrayList<>();
+            while (!queue.isEmpty() && due.size() < limit) {
+                due.add(queue.poll());
+            }
+            LogUtil.logSysInfo("本轮到期需要检查的镜像 " + (due.size() + queue.size()) + " 个，处理 " + due.size() + " 个");
+            try (TaskHandle handle = taskRegistry.register(TaskType.CHECK, "定时检查镜像更新（" + due.size() + " 个）")) {
+                runChecks(due, running, null, handle.getToken());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TaskCancelledException e) {
+            LogUtil.logSysInfo("本轮定时镜像检查已取消");
+        } catch (Exception e) {
+            LogUtil.logSysError("增量检查镜像更新状态失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按给定顺序把镜像提交到检查线程池并等待全部完成，完成后更新各自的下次检查时间；
+     * 取消时撤下尚未开始的检查并中断进行中的检查，已完成的结果保留
+     */
+    private void runChecks(List<ImageStatus> records, Set<String> running, ImageCheckCallback callback, CancellationToken token) throws InterruptedException, ExecutionException {
+        long startTime = System.currentTimeMillis();
+        int total = records.size();
+        AtomicInteger checked = new AtomicInteger();
+        AtomicInteger updatable = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<Future<?>> futures = new CopyOnWriteArrayList<>();
+        Runnable cancelRegistration = token.onCancel(() -> futures.forEach(future -> future.cancel(true)));
+        for (ImageStatus record : records) {
+            if (token.isCancelled()) {
+                break;
+            }
+            futures.add(checkExecutor.submit(() -> {
+                if (token.isCancelled()) {
+                    return;
+                }
+                String image = record.getName() + ":" + record.getTag();
+                String previousDigest = record.getRemoteDigest();
+                String previousCreateTime = record.getRemoteCreateTime();
                 try {
-                    String name = record.getName();
-                    String tag = record.getTag();
-                    String storedLocalCreateTime = record.getLocalCreateTime();
-                    Long id = record.getId();
-                    String remoteCreateTime = dockerService.getRemoteImageCreateTime(name, tag);
-                    Instant localInstant = Instant.parse(storedLocalCreateTime);
-                    Instant remoteInstant = Instant.parse(remoteCreateTime);
-
-                    LogUtil.logSysInfo("通过HTTP获取到远程镜像创建时间: " + remoteCreateTime);
-                    LogUtil.logSysInfo("通过DOKCER取到本地镜像创建时间: " + storedLocalCreateTime);
-                    // 如果远程时间晚于本地时间，说明需要更新
-                    boolean needUpdate = remoteInstant.isAfter(localInstant);
-                    // 更新数据库记录 - 使用ISO格式日期
-                    String currentTime = getCurrentIsoDateTime();
-                    imageStatusMapper.updateRemoteCreateTime(id, remoteCreateTime, needUpdate, currentTime);
-                    LogUtil.logSysInfo("镜像 " + name + ":" + tag + " 检查完成 - 需要更新: " + needUpdate);
+                    boolean needUpdate = checkImageStatus(record);
+                    if (needUpdate) {
+                        updatable.incrementAndGet();
+                    }
+                    boolean changed = (previousDigest != null && !previousDigest.equals(record.getRemoteDigest()))
+                            || (previousCreateTime != null && !previousCreateTime.equals(record.getRemoteCreateTime()));
+                    scheduleNextCheck(record, changed, running.contains(image), false, 0);
+                    int done = checked.incrementAndGet();
+                    if (callback != null) {
+                        callback.onChecked(done, total, image, needUpdate);
+                    }
                 } catch (Exception e) {
-                    LogUtil.logSysError("检查镜像状态异常: " + record.getName() + ":" + record.getTag() + ", 错误: " + e.getMessage());
+                    failed.incrementAndGet();
+                    int done = checked.incrementAndGet();
+                    // 限流或仓库服务端错误：更新状态未知，保留上次的结果，按 Retry-After 推迟下次检查
+                    boolean throttled = e instanceof RegistryException && ((RegistryException) e).isRetryable();
+                    String error = throttled ? "仓库限流或暂不可用，更新状态未知: " + e.getMessage() : e.getMessage();
+                    LogUtil.logSysError("检查镜像状态异常: " + image + ", 错误: " + error);
+                    scheduleNextCheck(record, false, running.contains(image), true, throttled ? ((RegistryException) e).getRetryAfter() : 0);
+                    if (callback != null) {
+                        callback.onFailed(done, total, image, error);
+                    }
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (CancellationException e) {
+                    // 已被取消令牌撤下
+                }
+            }
+        } finally {
+            cancelRegistration.run();
+        }
+        requestSnapshotRebuild();
+        if (token.isCancelled()) {
+            LogUtil.logSysInfo("镜像更新状态检查已取消，已完成 " + checked.get() + "/" + total + " 个");
+            throw new TaskCancelledException("镜像更新状态检查已取消");
+        }
+        LogUtil.logSysInfo("镜像更新状态检查完成，共 " + total + " 个，需要更新 " + updatable.get() + " 个，失败 " + failed.get() + " 个，耗时 " + (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    /**
+     * 自适应调整检查间隔：远程有变化时间隔减半，没有变化时放大 1.5 倍，限制在 [min-interval, max-interval]；
+     * 有运行中容器的镜像间隔不超过 base-interval；检查失败时保持间隔，min-interval 和仓库要求的 Retry-After 中较长者之后重试
+     *
+     * @param retryAfter 仓库通过 Retry-After 要求的等待时间（毫秒），没有时为 0
+     */
+    private void scheduleNextCheck(ImageStatus record, boolean changed, boolean running, boolean failed, long retryAfter) {
+        DockerConfig.ImageCheck config = dockerConfig.getImageCheck();
+        long interval = record.getCheckInterval() != null ? record.getCheckInterval() : config.getBaseInterval();
+        long delay;
+        if (failed) {
+            delay = Math.max(config.getMinInterval(), retryAfter);
+        } else {
+            interval = changed ? interval / 2 : interval * 3 / 2;
+            interval = Math.max(config.getMinInterval(), Math.min(config.getMaxInterval(), interval));
+            delay = running ? Math.min(interval, config.getBaseInterval()) : interval;
+        }
+        String nextCheck = LocalDateTime.now().plus(Duration.ofMillis(delay)).format(ISO_FORMATTER);
+        imageStatusMapper.updateCheckSchedule(record.getId(), interval, nextCheck);
+    }
+
+    /**
+     * 有运行中容器的镜像（name:tag）
+     */
+    private Set<String> runningImages(List<Image> images) {
+        Set<String> runningImageIds = dockerService.listContainers().stream()
+                .filter(container -> "running".equals(container.getState()))
+                .map(Container::getImageId)
+                .collect(Collectors.toSet());
+        Set<String> result = new HashSet<>();
+        for (Image image : images) {
+            if (image.getRepoTags() != null && runningImageIds.contains(image.getId())) {
+                result.addAll(Arrays.asList(image.getRepoTags()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 本地镜像标签与ID的签名，用于判断上次同步之后是否有变化
+     * 直接使用排序后的 标签@ID 列表而不是哈希值，不会因为哈希碰撞漏掉同步
+     */
+    private String imagesSignature(List<Image> images) {
+        Set<String> entries = new TreeSet<>();
+        for (Image image : images) {
+            if (image.getRepoTags() != null) {
+                for (String repoTag : image.getRepoTags()) {
+                    entries.add(repoTag + "@" + image.getId());
                 }
             }
-            LogUtil.logSysInfo("所有镜像更新状态检查完成");
+        }
+        return String.join("\n", entries);
+    }
+
+    /**
+     * 拆分 name:tag，仓库地址中的端口号不当作标签
+     */
+    private static String[] splitRepoTag(String repoTag) {
+        int colon = repoTag.lastIndexOf(':');
+        if (colon > repoTag.lastIndexOf('/')) {
+            return new String[]{repoTag.substring(0, colon), repoTag.substring(colon + 1)};
+        }
+        return new String[]{repoTag, "latest"};
+    }
+
+    private LocalDateTime parseNextCheck(String nextCheck) {
+        if (nextCheck == null || nextCheck.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(nextCheck, ISO_FORMATTER);
         } catch (Exception e) {
-            LogUtil.logSysError("检查镜像更新状态失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 检查单个镜像并写回数据库，优先比较摘要，不可用时比较创建时间
+     *
+     * @return 是否需要更新
+     */
+    private boolean checkImageStatus(ImageStatus record) {
+        String name = record.getName();
+        String tag = record.getTag();
+        Boolean digestResult = checkByDigest(record);
+        if (digestResult != null) {
+            return digestResult;
+        }
+        String storedLocalCreateTime = record.getLocalCreateTime();
+        String remoteCreateTime = dockerService.getRemoteImageCreateTime(name, tag);
+        Instant localInstant = Instant.parse(storedLocalCreateTime);
+        Instant remoteInstant = Instant.parse(remoteCreateTime);
+
+        LogUtil.logSysInfo("通过HTTP获取到远程镜像创建时间: " + remoteCreateTime);
+        LogUtil.logSysInfo("通过DOKCER取到本地镜像创建时间: " + storedLocalCreateTime);
+        // 如果远程时间晚于本地时间，说明需要更新
+        boolean needUpdate = remoteInstant.isAfter(localInstant);
+        // 更新数据库记录 - 使用ISO格式日期
+        String currentTime = getCurrentIsoDateTime();
+        imageStatusMapper.updateRemoteCreateTime(record.getId(), remoteCreateTime, needUpdate, currentTime);
+        record.setRemoteCreateTime(remoteCreateTime);
+        LogUtil.logSysInfo("镜像 " + name + ":" + tag + " 检查完成 - 需要更新: " + needUpdate);
+        return needUpdate;
+    }
+
+    /**
+     * 通过比较清单摘要检查镜像更新：一次 HEAD 请求取得远程摘要，与本地 RepoDigests 比较
+     *
+     * @return 是否需要更新；本地镜像没有 RepoDigests 或仓库没有返回摘要响应头时返回 null，由调用方回退到创建时间比较
+     * @throws RegistryException 仓库请求失败；限流和服务端错误时不回退到创建时间（那会向同一个仓库发更多请求），本次结果未知
+     */
+    private Boolean checkByDigest(ImageStatus record) {
+        if (!"digest".equalsIgnoreCase(dockerConfig.getImageCheck().getMode())) {
+            return null;
+        }
+        String name = record.getName();
+        String tag = record.getTag();
+        List<String> localDigests = dockerService.getLocalImageRepoDigests(name, tag);
+        if (localDigests.isEmpty()) {
+            LogUtil.logSysInfo("镜像 " + name + ":" + tag + " 没有仓库摘要，改用创建时间比较");
+            return null;
+        }
+        String remoteDigest = dockerService.getRemoteImageDigest(name, tag);
+        if (remoteDigest == null) {
+            LogUtil.logSysInfo("镜像 " + name + ":" + tag + " 仓库未返回摘要，改用创建时间比较");
+            return null;
         }
+        boolean needUpdate = !localDigests.contains(remoteDigest);
+        imageStatusMapper.updateRemoteDigest(record.getId(), remoteDigest, needUpdate, getCurrentIsoDateTime());
+        record.setRemoteDigest(remoteDigest);
+        LogUtil.logSysInfo("镜像 " + name + ":" + tag + " 摘要检查完成 - 需要更新: " + needUpdate);
+        return needUpdate;
     }
 
     @Override
@@ -133,7 +463,7 @@ public class ImageServiceImpl implements ImageService {
 
             // 拉取镜像
             StringBuilder pullOutput = new StringBuilder();
-            dockerService.pullImage(imageName, tag, new PullImageCallback() {
+            imagePullManager.pull(imageName, tag, TaskType.UPDATE, ImagePullManager.PRIORITY_UPDATE, new PullImageCallback() {
                 @Override
                 public void onProgress(int progress, String status) {
                     pullOutput.append(status).append("\n");
@@ -168,21 +498,94 @@ public class ImageServiceImpl implements ImageService {
         }
     }
 
+    @Override
+    public List<ImagePullTaskDTO> listPullTasks() {
+        return imagePullManager.listTasks();
+    }
+
+    /**
+     * 获取镜像状态列表（来自快照的副本，调用方可以修改）
+     */
     @Override
     public List<ImageStatusDTO> listImages() {
-        LogUtil.logSysInfo("获取镜像状态列表");
+        return getImageSnapshot().getImages().stream().map(image -> image.toBuilder().build()).collect(Collectors.toList());
+    }
+
+    /**
+     * 获取镜像状态快照
+     * 读取不触发同步；首次访问时同步构建一次，之后由镜像事件和检查结果在后台重建
+     */
+    @Override
+    public ImageSnapshotDTO getImageSnapshot() {
+        ImageSnapshotDTO snapshot = imageSnapshot;
+        if (snapshot == null) {
+            try {
+                rebuildSnapshot();
+            } catch (Exception e) {
+                LogUtil.logSysError("获取镜像状态列表失败: " + e.getMessage());
+                throw new BusinessException("获取镜像状态列表失败");
+            }
+            snapshot = imageSnapshot;
+        } else if (snapshotDirty.get() && !snapshotRebuilding.get()) {
+            // 上次后台重建失败后没有新的触发，由读取补一次
+            requestSnapshotRebuild();
+        }
+        return ImageSnapshotDTO.builder().version(snapshot.getVersion()).builtAt(snapshot.getBuiltAt()).stale(snapshotDirty.get()).images(snapshot.getImages()).build();
+    }
+
+    /**
+     * 本地镜像拉取、打标签、删除后重建快照
+     */
+    @EventListener
+    public void onDockerEvent(DockerEventReceivedEvent event) {
+        if (event.getEvent().getType() == EventType.IMAGE) {
+            requestSnapshotRebuild();
+        }
+    }
+
+    /**
+     * 标记快照过期并安排后台重建，重建期间的多次请求合并为一次
+     */
+    private void requestSnapshotRebuild() {
+        snapshotDirty.set(true);
+        if (snapshotRebuilding.compareAndSet(false, true)) {
+            snapshotExecutor.execute(this::drainSnapshotRebuilds);
+        }
+    }
+
+    private void drainSnapshotRebuilds() {
+        boolean failed = false;
         try {
-            // 先同步宿主机镜像到数据库，确保显示最新数据
-            syncAllLocalImagesToDb();
+            while (!failed && snapshotDirty.getAndSet(false)) {
+                try {
+                    rebuildSnapshot();
+                } catch (Exception e) {
+                    snapshotDirty.set(true);
+                    failed = true;
+                    LogUtil.logSysError("重建镜像状态快照失败: " + e.getMessage());
+                }
+            }
+        } finally {
+            snapshotRebuilding.set(false);
+        }
+        // 退出循环和释放标记之间到达的请求
+        if (!failed && snapshotDirty.get()) {
+            requestSnapshotRebuild();
+        }
+    }
 
-            // 获取所有本地镜像
+    /**
+     * 同步宿主机镜像到数据库，再与状态记录合并生成新快照
+     */
+    private void rebuildSnapshot() {
+        synchronized (snapshotLock) {
+            // 获取所有本地镜像，先同步到数据库
             List<Image> images = dockerService.listImages();
-
-            // 获取数据库中的所有镜像状态记录
-            List<ImageStatus> dbRecords = imageStatusMapper.selectAll();
+            syncAllLocalImagesToDb(images);
+            syncedImagesSignature = imagesSignature(images);
 
             // 构建数据库记录的映射表，键为"name:tag"
-            Map<String, ImageStatus> dbRecordsMap = dbRecords.stream().collect(Collectors.toMap(record -> record.getName() + ":" + record.getTag(), record -> record, (existing, replacement) -> existing // 如果有重复，保留第一个
+            Map<String, ImageStatus> dbRecordsMap = imageStatusMapper.selectAll().stream().collect(Collectors.toMap(record -> record.getName() + ":" + record.getTag(), record -> record, (existing, replacement) -> existing // 如果有重复，保留第一个
             ));
 
             // 合并本地镜像和数据库记录
@@ -193,11 +596,11 @@ public class ImageServiceImpl implements ImageService {
                 if (repoTags != null) {
                     for (String repoTag : repoTags) {
                         if (!"<none>:<none>".equals(repoTag)) {
-                            String[] parts = repoTag.split(":");
+                            String[] parts = splitRepoTag(repoTag);
                             String name = parts[0];
-                            String tag = parts.length > 1 ? parts[1] : "latest";
+                            String tag = parts[1];
 
-                            ImageStatusDTO imageStatusDTO = ImageStatusDTO.builder().id(image.getId()).name(name).tag(tag).size(image.getSize()).created(new Date(image.getCreated() * 1000L)).build();
+                            ImageStatusDTO imageStatusDTO = ImageStatusDTO.builder().id(image.getId()).name(name).tag(tag).size(image.getSize()).created(image.getCreated() != null ? new Date(image.getCreated() * 1000L) : null).build();
 
                             // 添加状态信息
                             ImageStatus statusRecord = dbRecordsMap.get(name + ":" + tag);
@@ -206,6 +609,7 @@ public class ImageServiceImpl implements ImageService {
                                 imageStatusDTO.setStatusId(statusRecord.getId());
                                 imageStatusDTO.setLocalCreateTime(statusRecord.getLocalCreateTime());
                                 imageStatusDTO.setRemoteCreateTime(statusRecord.getRemoteCreateTime());
+                                imageStatusDTO.setRemoteDigest(statusRecord.getRemoteDigest());
 
                                 // 将ISO格式日期字符串转换为Date对象
                                 String lastCheckedStr = statusRecord.getLastChecked();
@@ -219,10 +623,7 @@ public class ImageServiceImpl implements ImageService {
                 }
             }
 
-            return result;
-        } catch (Exception e) {
-            LogUtil.logSysError("获取镜像状态列表失败: " + e.getMessage());
-            throw new BusinessException("获取镜像状态列表失败");
+            imageSnapshot = ImageSnapshotDTO.builder().version(snapshotVersion.incrementAndGet()).builtAt(new Date()).stale(false).images(Collections.unmodifiableList(result)).build();
         }
     }
 
@@ -260,6 +661,7 @@ public class ImageServiceImpl implements ImageService {
                 imageStatusMapper.update(existingRecord);
                 LogUtil.logSysInfo("已更新镜像状态记录: " + imageName + ":" + tag);
             }
+            requestSnapshotRebuild();
 
             result.put("success", true);
             result.put("message", "成功同步镜像信息");
@@ -279,151 +681,90 @@ public class ImageServiceImpl implements ImageService {
      * 保证数据库记录与宿主机镜像同步
      */
     public void syncAllLocalImagesToDb() {
-        LogUtil.logSysInfo("开始同步宿主机所有镜像到数据库...");
         try {
-            // 获取所有本地镜像
-            List<Image> images = dockerService.listImages();
-            int syncCount = 0;
-            int skipCount = 0;
-            for (Image image : images) {
-                String[] repoTags = image.getRepoTags();
-                if (repoTags != null) {
-                    for (String repoTag : repoTags) {
-                        // 跳过<none>:<none>这样的镜像
-                        if (!"<none>:<none>".equals(repoTag)) {
-                            String[] parts = repoTag.split(":");
-                            String name = parts[0];
-                            String tag = parts.length > 1 ? parts[1] : "latest";
-
-                            try {
-                                // 检查数据库是否已有记录
-                                ImageStatus existingRecord = imageStatusMapper.selectByNameAndTag(name, tag);
-
-                                // 获取本地镜像创建时间
-                                String localCreateTime = dockerService.getLocalImageCreateTime(name, tag);
-
-                                if (localCreateTime == null || localCreateTime.isEmpty()) {
-                                    LogUtil.logSysInfo("镜像 " + name + ":" + tag + " 无法获取有效创建时间，跳过同步");
-                                    skipCount++;
-                                    continue;
-                                }
-
-                                // 当前ISO格式日期
-                                String currentTime = getCurrentIsoDateTime();
-
-                                if (existingRecord == null) {
-                                    // 插入新记录
-                                    ImageStatus imageStatus = ImageStatus.builder().name(name).tag(tag).localCreateTime(localCreateTime).remoteCreateTime(localCreateTime) // 初始设置与本地相同，表示不需要更新
-                                            .needUpdate(false).lastChecked(currentTime).build();
-
-                                    imageStatusMapper.insert(imageStatus);
-                                    LogUtil.logSysInfo("已创建镜像状态记录: " + name + ":" + tag);
-                                    syncCount++;
-                                } else if (!localCreateTime.equals(existingRecord.getLocalCreateTime())) {
-                                    // 仅当创建时间不同时更新记录，避免不必要的数据库操作
-                                    existingRecord.setLocalCreateTime(localCreateTime);
-                                    existingRecord.setLastChecked(currentTime);
-                                    imageStatusMapper.update(existingRecord);
-                                    LogUtil.logSysInfo("已更新镜像状态记录: " + name + ":" + tag);
-                                    syncCount++;
-                                } else {
-                                    LogUtil.logSysInfo("镜像 " + name + ":" + tag + " 无变化，跳过更新");
-                                    skipCount++;
-                                }
-                            } catch (Exception e) {
-                                LogUtil.logSysError("同步镜像 " + name + ":" + tag + " 失败: " + e.getMessage());
-                            }
-                        }
-                    }
-                }
-            }
-
-            LogUtil.logSysInfo("同步宿主机镜像完成 - 同步: " + syncCount + ", 跳过: " + skipCount);
+            syncAllLocalImagesToDb(dockerService.listImages());
         } catch (Exception e) {
             LogUtil.logSysError("同步宿主机镜像失败: " + e.getMessage());
         }
     }
 
-    public String getRemoteImageCreateTime(String imageName, String tag) {
-        try {
-            List<String> command = new ArrayList<>();
-            command.add("skopeo");
-            command.add("inspect");
-            // 检查当前系统架构
-            String osName = System.getProperty("os.name").toLowerCase();
-            String osArch = System.getProperty("os.arch").toLowerCase();
-            // 只有在Mac的ARM架构(M系列芯片)上才需要指定架构参数
-            if (osName.contains("mac") && (osArch.contains("aarch64") || osArch.contains("arm64"))) {
-                LogUtil.logSysInfo("检测到Mac ARM架构，强制指定arm64/linux架构参数");
-                command.add("--override-arch");
-                command.add("arm64");
-                command.add("--override-os");
-                command.add("linux");
+    /**
+     * 按一次镜像列表同步数据库
+     * 与一次 selectAll 的结果在内存中比对出新增、变更和已删除的标签，
+     * 再用批量执行器在一个事务里写入：新增和变更走 INSERT ... ON CONFLICT(name, tag) DO UPDATE，已不存在的标签删除记录
+     *
+     * @param images 本地镜像列表
+     */
+    private void syncAllLocalImagesToDb(List<Image> images) {
+        Map<String, ImageStatus> existing = new HashMap<>();
+        for (ImageStatus record : imageStatusMapper.selectAll()) {
+            existing.put(record.getName() + ":" + record.getTag(), record);
+        }
+
+        String currentTime = getCurrentIsoDateTime();
+        List<ImageStatus> upserts = new ArrayList<>();
+        Set<String> present = new HashSet<>();
+        int inserted = 0;
+        for (Image image : images) {
+            String[] repoTags = image.getRepoTags();
+            if (repoTags == null) {
+                continue;
             }
-            // 添加 --insecure-policy 和 --tls-verify=false 参数
-            command.add("--insecure-policy");
-            command.add("--tls-verify=false");
-            command.add("docker://" + imageName + ":" + tag);
-
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            // 设置代理（如果启用）
-            String proxyUrl = appConfig.getProxyUrl();
-            boolean useProxy = proxyUrl != null && !proxyUrl.isEmpty();
-            if (useProxy) {
-
-                Map<String, String> env = processBuilder.environment();
-                env.put("HTTP_PROXY", proxyUrl);
-                env.put("HTTPS_PROXY", proxyUrl);
+            // 同一镜像的所有标签共享创建时间，按镜像ID缓存，只在首次遇到该ID时 inspect
+            String localCreateTime = null;
+            try {
+                localCreateTime = dockerService.getImageCreateTime(image.getId());
+            } catch (Exception e) {
+                LogUtil.logSysError("获取镜像 " + image.getId() + " 创建时间失败: " + e.getMessage());
             }
-
-            // 打印完整命令行
-            LogUtil.logSysInfo("执行镜像检查命令: " + String.join(" ", command));
-            Process process = processBuilder.start();
-
-            StringBuilder output = new StringBuilder();
-            StringBuilder errorOutput = new StringBuilder();
-
-            // 读取标准输出
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
+            for (String repoTag : repoTags) {
+                // 跳过<none>:<none>这样的镜像
+                if ("<none>:<none>".equals(repoTag)) {
+                    continue;
                 }
-            }
-
-            // 读取错误输出
-            try (BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()))) {
-                String line;
-                while ((line = errorReader.readLine()) != null) {
-                    errorOutput.append(line).append("\n");
+                String[] parts = splitRepoTag(repoTag);
+                String name = parts[0];
+                String tag = parts[1];
+                String key = name + ":" + tag;
+                // 取不到创建时间的标签也算存在，不能删除它的记录
+                present.add(key);
+                if (localCreateTime == null || localCreateTime.isEmpty()) {
+                    continue;
+                }
+                ImageStatus record = existing.get(key);
+                if (record == null) {
+                    // 新记录的远程时间初始与本地相同，表示不需要更新
+                    upserts.add(ImageStatus.builder().name(name).tag(tag).localCreateTime(localCreateTime).remoteCreateTime(localCreateTime).needUpdate(false).lastChecked(currentTime).build());
+                    inserted++;
+                } else if (!localCreateTime.equals(record.getLocalCreateTime())) {
+                    // 仅当创建时间不同时更新记录，冲突时只覆盖本地创建时间和检查时间
+                    upserts.add(ImageStatus.builder().name(name).tag(tag).localCreateTime(localCreateTime).remoteCreateTime(localCreateTime).needUpdate(false).lastChecked(currentTime).build());
                 }
             }
+        }
+        List<Long> deletes = existing.entrySet().stream()
+                .filter(entry -> !present.contains(entry.getKey()))
+                .map(entry -> entry.getValue().getId())
+                .collect(Collectors.toList());
 
-            // 等待命令完成，最多等待30秒
-            boolean completed = process.waitFor(30, TimeUnit.SECONDS);
-            if (!completed) {
-                process.destroyForcibly();
-                throw new RuntimeException("获取远程镜像创建时间超时");
+        if (upserts.isEmpty() && deletes.isEmpty()) {
+            return;
+        }
+        // 由 Spring 管理的事务关闭自动提交，任一语句失败时整体回滚
+        transactionTemplate.executeWithoutResult(status -> {
+            for (ImageStatus record : upserts) {
+                batchImageStatusMapper.upsertLocal(record);
             }
-
-            int exitCode = process.exitValue();
-            if (exitCode != 0) {
-                LogUtil.logSysError("skopeo命令执行失败，退出码: " + exitCode + ", 错误输出: " + errorOutput);
-                throw new RuntimeException("获取远程镜像创建时间失败，退出码: " + exitCode + ", 错误输出: " + errorOutput);
+            for (Long id : deletes) {
+                batchImageStatusMapper.deleteById(id);
             }
+        });
+        LogUtil.logSysInfo("同步宿主机镜像完成 - 新增: " + inserted + ", 更新: " + (upserts.size() - inserted) + ", 删除: " + deletes.size());
+    }
 
-            // 解析JSON输出以提取创建时间
-            String outputStr = output.toString();
-            int createTimeIndex = outputStr.indexOf("\"Created\":");
-            if (createTimeIndex >= 0) {
-                int startPos = outputStr.indexOf("\"", createTimeIndex + 10) + 1;
-                int endPos = outputStr.indexOf("\"", startPos);
-                if (startPos > 0 && endPos > startPos) {
-                    String createTime = outputStr.substring(startPos, endPos);
-                    return createTime;
-                }
-            }
-            throw new RuntimeException("无法从输出中解析镜像创建时间");
+    public String getRemoteImageCreateTime(String imageName, String tag) {
+        try {
+            return registryClient.getCreated(imageName, tag);
         } catch (Exception e) {
             LogUtil.logSysError("获取远程镜像创建时间失败: " + e.getMessage());
             throw new RuntimeException("获取远程镜像创建时间失败: " + e.getMessage());
@@ -450,56 +791,19 @@ public class ImageServiceImpl implements ImageService {
     }
 
     public String getLocalImageCreateTime(String imageName, String tag) {
-        LogUtil.logSysInfo("获取本地镜像创建时间: " + imageName + ":" + tag);
         try {
-            // 找到镜像
-            List<Image> images = dockerService.listImages();
-            String fullName = imageName + ":" + tag;
-
-            Optional<Image> targetImage = images.stream().filter(image -> image.getRepoTags() != null && Arrays.asList(image.getRepoTags()).contains(fullName)).findFirst();
-
-            if (!targetImage.isPresent()) {
-                LogUtil.logSysInfo("未找到本地镜像: " + fullName);
+            String createTime = dockerService.getLocalImageCreateTime(imageName, tag);
+            if (createTime == null || createTime.isEmpty()) {
+                LogUtil.logSysInfo("未找到本地镜像或无法提取有效创建时间: " + imageName + ":" + tag);
                 return null;
             }
-
-            // 获取镜像详情
-            InspectImageResponse imageInfo = dockerService.getInspectImage(targetImage.get().getId());
-            String createTime = imageInfo.getCreated();
-
-            // 如果创建时间包含 "T"，则使用该值作为创建时间
-            if (createTime != null && !createTime.isEmpty()) {
-                LogUtil.logSysInfo("获取到本地镜像创建时间: " + createTime);
-                return createTime;
-            }
-
-            LogUtil.logSysInfo("无法从镜像中提取有效创建时间");
-            return null;
+            return createTime;
         } catch (Exception e) {
             LogUtil.logSysError("获取本地镜像创建时间失败: " + e.getMessage());
             throw new RuntimeException("获取本地镜像创建时间失败: " + e.getMessage());
         }
     }
 
-    // 获取本地镜像的 CreateTime（Docker API）
-    public String getDockerApiCreateTime(String imageName) {
-        DockerClient dockerClient = DockerClientBuilder.getInstance().build();
-        List<Image> images = dockerClient.listImagesCmd().exec();
-
-        String targetRepo = imageName.split(":")[0];
-        for (Image image : images) {
-            String[] repoDigests = image.getRepoDigests();
-            if (repoDigests != null) {
-                for (String digest : repoDigests) {
-                    if (digest.startsWith(targetRepo + "@")) {
-                        return digest.split("@")[1]; // 返回 T
-                    }
-                }
-            }
-        }
-        return "❌ 未找到本地镜像（或无 createTime）";
-    }
-
     private String getCurrentIsoDateTime() {
         return LocalDateTime.now().format(ISO_FORMATTER);
     }
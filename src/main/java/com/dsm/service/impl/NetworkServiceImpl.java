@@ -32,8 +32,11 @@ public class NetworkServiceImpl implements NetworkService {
 
     @Override
     public List<NetworkInfoDTO> listNetworks() {
-        List<Network> networks = dockerService.listNetworks();
+        return convertNetworks(dockerService.listNetworks());
+    }
 
+    @Override
+    public List<NetworkInfoDTO> convertNetworks(List<Network> networks) {
         List<NetworkInfoDTO> result = new ArrayList<>();
         for (Network network : networks) {
             NetworkInfoDTO dto = new NetworkInfoDTO();
@@ -1,8 +1,11 @@
 package com.dsm.service.impl;
 
+import com.dsm.api.registry.RegistryClient;
+import com.dsm.api.registry.RegistryRouteSelector;
 import com.dsm.config.AppConfig;
 import com.dsm.event.SystemSettingChangedEvent;
 import com.dsm.mapper.SystemSettingMapper;
+import com.dsm.model.dto.RegistryRouteDTO;
 import com.dsm.service.SystemSettingService;
 import com.dsm.utils.LogUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +14,7 @@ import org.springframework.stereotype.Service;
 
 import java.net.*;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -25,6 +29,12 @@ public class SystemSettingServiceImpl implements SystemSettingService {
     @Autowired
     private AppConfig appConfig;
 
+    @Autowired
+    private RegistryClient registryClient;
+
+    @Autowired
+    private RegistryRouteSelector routeSelector;
+
     @Override
     public Map<String, Long> testProxyLatency() {
 
@@ -103,6 +113,14 @@ public class SystemSettingServiceImpl implements SystemSettingService {
         return result;
     }
 
+    @Override
+    public List<RegistryRouteDTO> getRegistryRoutes(boolean probe) {
+        if (probe) {
+            registryClient.probeRoutes();
+        }
+        return routeSelector.snapshot();
+    }
+
     @Override
     public String get(String key) {
         return systemSettingMapper.getSettingValue(key);
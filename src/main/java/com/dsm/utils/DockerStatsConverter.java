@@ -1,6 +1,8 @@
 package com.dsm.utils;
 
 import com.dsm.model.dto.ResourceUsageDTO;
+import com.github.dockerjava.api.model.BlkioStatEntry;
+import com.github.dockerjava.api.model.BlkioStatsConfig;
 import com.github.dockerjava.api.model.CpuStatsConfig;
 import com.github.dockerjava.api.model.MemoryStatsConfig;
 import com.github.dockerjava.api.model.StatisticNetworksConfig;
@@ -38,6 +40,21 @@ public class DockerStatsConverter {
         dto.setNetworkRx(rx);
         dto.setNetworkTx(tx);
 
+        // 块设备读写统计（cgroup v1 为 Read/Write，v2 为 read/write）
+        long blockRead = 0L, blockWrite = 0L;
+        BlkioStatsConfig blkio = stats.getBlkioStats();
+        if (blkio != null && blkio.getIoServiceBytesRecursive() != null) {
+            for (BlkioStatEntry entry : blkio.getIoServiceBytesRecursive()) {
+                if ("read".equalsIgnoreCase(entry.getOp())) {
+                    blockRead += getSafe(entry.getValue());
+                } else if ("write".equalsIgnoreCase(entry.getOp())) {
+                    blockWrite += getSafe(entry.getValue());
+                }
+            }
+        }
+        dto.setBlockRead(blockRead);
+        dto.setBlockWrite(blockWrite);
+
         // 容器状态
         dto.setRunning(stats.getRead() != null);
 
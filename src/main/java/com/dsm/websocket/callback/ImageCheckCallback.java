@@ -0,0 +1,24 @@
+package com.dsm.websocket.callback;
+
+/**
+ * 镜像更新检查进度回调接口
+ */
+public interface ImageCheckCallback {
+    /**
+     * 单个镜像检查完成
+     * @param checked 已完成数量（含失败）
+     * @param total 总数
+     * @param image 镜像名称（name:tag）
+     * @param needUpdate 是否需要更新
+     */
+    void onChecked(int checked, int total, String image, boolean needUpdate);
+
+    /**
+     * 单个镜像检查失败
+     * @param checked 已完成数量（含失败）
+     * @param total 总数
+     * @param image 镜像名称（name:tag）
+     * @param error 错误信息
+     */
+    void onFailed(int checked, int total, String image, String error);
+}
@@ -1,5 +1,7 @@
 package com.dsm.websocket.callback;
 
+import com.dsm.api.pull.PullProgress;
+
 /**
  * 拉取镜像回调接口
  */
@@ -10,6 +12,14 @@ public interface PullImageCallback {
      * @param status 状态信息
      */
     void onProgress(int progress, String status);
+
+    /**
+     * 带字节数和速度的进度回调，默认转为百分比回调
+     * @param progress 拉取进度
+     */
+    default void onProgress(PullProgress progress) {
+        onProgress(progress.getPercent(), progress.getStatus());
+    }
     
     /**
      * 完成回调
@@ -4,6 +4,7 @@ import com.dsm.websocket.model.DockerWebSocketMessage;
 import com.dsm.websocket.sender.DockerWebSocketMessageSender;
 import com.dsm.websocket.service.DockerImageService;
 import com.dsm.websocket.service.DockerInstallService;
+import com.dsm.websocket.service.DockerStatsService;
 import com.dsm.websocket.service.DockerValidationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,6 +24,9 @@ public class DockerMessageDispatcher {
     @Autowired
     private DockerValidationService validationService;
 
+    @Autowired
+    private DockerStatsService statsService;
+
     @Autowired
     private DockerWebSocketMessageSender messageSender;
 
@@ -50,6 +54,15 @@ public class DockerMessageDispatcher {
                 case "CHECK_IMAGE_UPDATES"://检查镜像更新
                     imageService.handleCheckImageUpdates(session, message);
                     break;
+                case "CANCEL_TASK"://取消拉取、更新、安装、检查任务
+                    imageService.handleCancelTask(session, message);
+                    break;
+                case "SUBSCRIBE_STATS"://订阅容器实时统计
+                    statsService.handleSubscribeStats(session, message);
+                    break;
+                case "UNSUBSCRIBE_STATS"://取消订阅容器实时统计
+                    statsService.handleUnsubscribeStats(session, message);
+                    break;
                 default:
                     log.warn("未知的消息类型: {}", message.getType());
             }
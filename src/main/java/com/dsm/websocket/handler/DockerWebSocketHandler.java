@@ -3,13 +3,16 @@ package com.dsm.websocket.handler;
 import com.alibaba.fastjson.JSON;
 import com.dsm.websocket.dispatcher.DockerMessageDispatcher;
 import com.dsm.websocket.model.DockerWebSocketMessage;
+import com.dsm.websocket.service.DockerStatsService;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.util.Map;
@@ -32,15 +35,25 @@ public class DockerWebSocketHandler extends TextWebSocketHandler {
     @Autowired
     private DockerMessageDispatcher messageDispatcher;
 
+    @Autowired
+    private DockerStatsService statsService;
+
+    @Value("${websocket.send-time-limit:10000}")
+    private int sendTimeLimit;
+
+    @Value("${websocket.send-buffer-limit:1048576}")
+    private int sendBufferLimit;
+
     /**
      * 连接建立时的处理
+     * 会话包装为 ConcurrentWebSocketSessionDecorator，多个线程发送时排队由一个线程写出，其他发送方不会被慢客户端阻塞
      *
      * @param session WebSocket会话
      */
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         String sessionId = session.getId();
-        SESSIONS.put(sessionId, session);
+        SESSIONS.put(sessionId, new ConcurrentWebSocketSessionDecorator(session, sendTimeLimit, sendBufferLimit));
         log.info("WebSocket连接已建立: {}", sessionId);
     }
 
@@ -54,7 +67,7 @@ public class DockerWebSocketHandler extends TextWebSocketHandler {
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
         try {
             DockerWebSocketMessage wsMessage = JSON.parseObject(message.getPayload(), DockerWebSocketMessage.class);
-            messageDispatcher.dispatch(session, wsMessage);
+            messageDispatcher.dispatch(SESSIONS.getOrDefault(session.getId(), session), wsMessage);
         } catch (Exception e) {
             log.error("处理消息时发生错误", e);
         }
@@ -69,7 +82,8 @@ public class DockerWebSocketHandler extends TextWebSocketHandler {
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         String sessionId = session.getId();
-        SESSIONS.remove(sessionId);
+        WebSocketSession decorated = SESSIONS.remove(sessionId);
+        statsService.removeSession(decorated != null ? decorated : session);
         log.info("WebSocket连接已关闭: {}", sessionId);
     }
 } 
\ No newline at end of file
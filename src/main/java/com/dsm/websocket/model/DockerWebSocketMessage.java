@@ -27,6 +27,10 @@ public class DockerWebSocketMessage {
      * - INSTALL_START: 开始安装
      * - INSTALL_PROGRESS: 安装进度
      * - INSTALL_LOG: 安装日志
+     *
+     * 统计推送：
+     * - SUBSCRIBE_STATS / UNSUBSCRIBE_STATS: 订阅 / 取消订阅容器实时统计，data 为容器ID数组
+     * - STATS: 统计推送，data 为 容器ID -> 有变化的字段
      */
     @Schema(description = "消息类型", example = "PULL_IMAGE")
     private String type;
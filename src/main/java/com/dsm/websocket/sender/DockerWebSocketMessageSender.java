@@ -6,6 +6,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 
 import java.io.IOException;
 import java.util.UUID;
@@ -17,15 +19,31 @@ public class DockerWebSocketMessageSender {
     
     /**
      * 发送消息
+     * 会话由 DockerWebSocketHandler 包装为 ConcurrentWebSocketSessionDecorator，并发发送时排队写出，不阻塞调用方；
+     * 未包装的会话不支持并发发送，按会话串行
      *
      * @param session WebSocket会话
      * @param message WebSocket消息
+     * @return 是否发送成功
      */
-    public void sendMessage(WebSocketSession session, DockerWebSocketMessage message) {
+    public boolean sendMessage(WebSocketSession session, DockerWebSocketMessage message) {
         try {
-            session.sendMessage(new TextMessage(JSON.toJSONString(message)));
-        } catch (IOException e) {
+            TextMessage textMessage = new TextMessage(JSON.toJSONString(message));
+            if (session instanceof ConcurrentWebSocketSessionDecorator) {
+                session.sendMessage(textMessage);
+            } else {
+                synchronized (session) {
+                    session.sendMessage(textMessage);
+                }
+            }
+            return true;
+        } catch (SessionLimitExceededException e) {
+            // 发送超时或积压超限，装饰器已关闭该会话
+            log.warn("会话 {} 接收过慢，已关闭: {}", session.getId(), e.getMessage());
+            return false;
+        } catch (IOException | IllegalStateException e) {
             log.error("发送消息失败", e);
+            return false;
         }
     }
 
@@ -36,15 +54,12 @@ public class DockerWebSocketMessageSender {
      * @param errorMessage 错误信息
      */
     public void sendErrorMessage(WebSocketSession session, String errorMessage) {
-        try {
-            DockerWebSocketMessage message = new DockerWebSocketMessage();
-            message.setType("ERROR");
-            message.setTaskId(UUID.randomUUID().toString());
-            message.setData(errorMessage);
-            session.sendMessage(new TextMessage(JSON.toJSONString(message)));
-        } catch (IOException e) {
-            log.error("发送错误消息失败", e);
-        }
+        DockerWebSocketMessage message = new DockerWebSocketMessage();
+        message.setType("ERROR");
+        message.setTaskId(UUID.randomUUID().toString());
+        message.setData(errorMessage);
+        // 与其他消息一样按会话串行发送，拉取回调和统计推送可能同时写同一会话
+        sendMessage(session, message);
     }
     
     /**
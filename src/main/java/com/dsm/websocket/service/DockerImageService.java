@@ -3,10 +3,20 @@ package com.dsm.websocket.service;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.dsm.api.DockerService;
+import com.dsm.api.pull.ImagePrefetcher;
+import com.dsm.api.pull.ImagePullManager;
+import com.dsm.api.pull.PullProgress;
+import com.dsm.api.pull.PullSubscription;
+import com.dsm.api.task.TaskHandle;
+import com.dsm.api.task.TaskRegistry;
+import com.dsm.api.task.TaskType;
+import com.dsm.exception.TaskCancelledException;
 import com.dsm.service.ImageService;
+import com.dsm.websocket.callback.ImageCheckCallback;
 import com.dsm.websocket.callback.PullImageCallback;
 import com.dsm.websocket.model.DockerWebSocketMessage;
 import com.dsm.websocket.sender.DockerWebSocketMessageSender;
+import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.Image;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,48 +36,58 @@ public class DockerImageService {
     @Autowired
     private ImageService imageService;
     @Autowired
+    private ImagePullManager imagePullManager;
+    @Autowired
+    private TaskRegistry taskRegistry;
+    @Autowired
+    private ImagePrefetcher imagePrefetcher;
+    @Autowired
     private DockerWebSocketMessageSender messageSender;
 
     public void handlePullImage(WebSocketSession session, DockerWebSocketMessage message) {
         @SuppressWarnings("unchecked") Map<String, Object> data = (Map<String, Object>) message.getData();
         String imageName = (String) data.get("imageName");
-        String taskId = UUID.randomUUID().toString();
-
-        // 发送开始消息
-        messageSender.sendMessage(session, new DockerWebSocketMessage("PULL_START", taskId, Map.of("imageName", imageName)));
-
-        // 异步执行拉取操作
-        CompletableFuture.runAsync(() -> {
-            try {
-                // 解析镜像名称和标签
-                String[] parts = imageName.split(":");
-                String image = parts[0];
-                String tag = parts.length > 1 ? parts[1] : "latest";
-
-                // 使用DockerService的pullImage方法
-                dockerService.pullImage(image, tag, new PullImageCallback() {
-                    @Override
-                    public void onProgress(int progress, String status) {
-                        // 发送进度消息
-                        messageSender.sendMessage(session, new DockerWebSocketMessage("PULL_PROGRESS", taskId, Map.of("progress", progress, "status", status)));
-                    }
 
-                    @Override
-                    public void onComplete() {
-                        // 发送完成消息
-                        messageSender.sendMessage(session, new DockerWebSocketMessage("PULL_COMPLETE", taskId, Map.of("status", "success")));
-                    }
+        try {
+            // 解析镜像名称和标签
+            String[] parts = imageName.split(":");
+            String image = parts[0];
+            String tag = parts.length > 1 ? parts[1] : "latest";
 
-                    @Override
-                    public void onError(String error) {
-                        // 发送错误消息
-                        messageSender.sendErrorMessage(session, error);
-                    }
-                });
-            } catch (Exception e) {
-                messageSender.sendErrorMessage(session, e.getMessage());
-            }
-        });
+            // 交给拉取管理器排队，同一镜像已在拉取时加入该任务；taskId 是本次请求的订阅ID，取消只退订本次请求
+            PullSubscription subscription = imagePullManager.submit(image, tag, TaskType.PULL, ImagePullManager.PRIORITY_INTERACTIVE, null);
+            String taskId = subscription.getId();
+
+            // 发送开始消息
+            messageSender.sendMessage(session, new DockerWebSocketMessage("PULL_START", taskId, Map.of("imageName", imageName)));
+
+            subscription.subscribe(new PullImageCallback() {
+                @Override
+                public void onProgress(int progress, String status) {
+                    // 发送进度消息
+                    messageSender.sendMessage(session, new DockerWebSocketMessage("PULL_PROGRESS", taskId, Map.of("progress", progress, "status", status)));
+                }
+
+                @Override
+                public void onProgress(PullProgress progress) {
+                    messageSender.sendMessage(session, new DockerWebSocketMessage("PULL_PROGRESS", taskId, progressData(progress)));
+                }
+
+                @Override
+                public void onComplete() {
+                    // 发送完成消息
+                    messageSender.sendMessage(session, new DockerWebSocketMessage("PULL_COMPLETE", taskId, Map.of("status", "success")));
+                }
+
+                @Override
+                public void onError(String error) {
+                    // 发送错误消息
+                    messageSender.sendErrorMessage(session, error);
+                }
+            });
+        } catch (Exception e) {
+            messageSender.sendErrorMessage(session, e.getMessage());
+        }
     }
 
     public void handleInstallCheckImages(WebSocketSession session, DockerWebSocketMessage message) {
@@ -76,6 +96,7 @@ public class DockerImageService {
             JSONArray images = (JSONArray) data.get("images");
 
             List<Map<String, Object>> results = new ArrayList<>();
+            List<String> missing = new ArrayList<>();
 
             for (Object obj : images) {
                 JSONObject image = (JSONObject) obj;
@@ -92,8 +113,13 @@ public class DockerImageService {
                     dockerService.getInspectImage(fullImageName);
                     result.put("exists", true);
                 } catch (Exception e) {
+                    // 只有守护进程明确返回不存在才算缺少；超时、熔断等错误不代表镜像不存在，作为检查失败返回
+                    if (!isNotFound(e)) {
+                        throw e;
+                    }
                     result.put("exists", false);
                     result.put("error", e.getMessage());
+                    missing.add(fullImageName);
                 }
 
                 results.add(result);
@@ -101,6 +127,8 @@ public class DockerImageService {
 
             // 发送检查结果
             messageSender.sendMessage(session, new DockerWebSocketMessage("INSTALL_CHECK_IMAGES_RESULT", message.getTaskId(), results));
+            // 用户很可能接着安装，缺少的镜像先在后台开始拉取
+            imagePrefetcher.prefetchMissing(missing);
         } catch (Exception e) {
             log.error("检查镜像失败", e);
             messageSender.sendErrorMessage(session, "检查镜像失败: " + e.getMessage());
@@ -122,36 +150,36 @@ public class DockerImageService {
             @SuppressWarnings("unchecked") Map<String, String> data = (Map<String, String>) message.getData();
             String image = data.get("image");
             String tag = data.getOrDefault("tag", "latest");
-            String taskId = UUID.randomUUID().toString();
+
+            // 交给拉取管理器排队，同一镜像已在拉取时加入该任务；taskId 是本次请求的订阅ID，取消只退订本次请求
+            PullSubscription subscription = imagePullManager.submit(image, tag, TaskType.UPDATE, ImagePullManager.PRIORITY_UPDATE, null);
+            String taskId = subscription.getId();
 
             // 发送开始消息
             messageSender.sendMessage(session, new DockerWebSocketMessage("UPDATE_START", taskId, Map.of("image", image, "tag", tag)));
 
-            // 异步执行更新操作
-            CompletableFuture.runAsync(() -> {
-                try {
-                    // 使用DockerService的pullImage方法
-                    dockerService.pullImage(image, tag, new PullImageCallback() {
-                        @Override
-                        public void onProgress(int progress, String status) {
-                            // 发送进度消息
-                            messageSender.sendMessage(session, new DockerWebSocketMessage("UPDATE_PROGRESS", taskId, Map.of("progress", progress, "status", status)));
-                        }
+            subscription.subscribe(new PullImageCallback() {
+                @Override
+                public void onProgress(int progress, String status) {
+                    // 发送进度消息
+                    messageSender.sendMessage(session, new DockerWebSocketMessage("UPDATE_PROGRESS", taskId, Map.of("progress", progress, "status", status)));
+                }
 
-                        @Override
-                        public void onComplete() {
-                            // 发送完成消息
-                            messageSender.sendMessage(session, new DockerWebSocketMessage("UPDATE_COMPLETE", taskId, Map.of("status", "success")));
-                        }
+                @Override
+                public void onProgress(PullProgress progress) {
+                    messageSender.sendMessage(session, new DockerWebSocketMessage("UPDATE_PROGRESS", taskId, progressData(progress)));
+                }
 
-                        @Override
-                        public void onError(String error) {
-                            // 发送错误消息
-                            messageSender.sendErrorMessage(session, error);
-                        }
-                    });
-                } catch (Exception e) {
-                    messageSender.sendErrorMessage(session, e.getMessage());
+                @Override
+                public void onComplete() {
+                    // 发送完成消息
+                    messageSender.sendMessage(session, new DockerWebSocketMessage("UPDATE_COMPLETE", taskId, Map.of("status", "success")));
+                }
+
+                @Override
+                public void onError(String error) {
+                    // 发送错误消息
+                    messageSender.sendErrorMessage(session, error);
                 }
             });
         } catch (Exception e) {
@@ -168,20 +196,33 @@ public class DockerImageService {
      */
     public void handleCheckImageUpdates(WebSocketSession session, DockerWebSocketMessage message) {
         try {
-            String taskId = UUID.randomUUID().toString();
+            TaskHandle handle = taskRegistry.register(TaskType.CHECK, "检查全部镜像更新");
+            String taskId = handle.getId();
 
             // 发送开始消息
             messageSender.sendMessage(session, new DockerWebSocketMessage("CHECK_UPDATES_START", taskId, null));
 
             // 异步执行检查操作
             CompletableFuture.runAsync(() -> {
-                try {
+                try (handle) {
                     // 直接调用checkAllImagesStatus方法
                     Map<String, Object> result = new HashMap<>();
-                    imageService.checkAllImagesStatus();
+                    imageService.checkAllImagesStatus(new ImageCheckCallback() {
+                        @Override
+                        public void onChecked(int checked, int total, String image, boolean needUpdate) {
+                            messageSender.sendMessage(session, new DockerWebSocketMessage("CHECK_UPDATES_PROGRESS", taskId, Map.of("checked", checked, "total", total, "image", image, "needUpdate", needUpdate)));
+                        }
+
+                        @Override
+                        public void onFailed(int checked, int total, String image, String error) {
+                            messageSender.sendMessage(session, new DockerWebSocketMessage("CHECK_UPDATES_PROGRESS", taskId, Map.of("checked", checked, "total", total, "image", image, "error", String.valueOf(error))));
+                        }
+                    }, handle.getToken());
                     result.put("result", true);
                     // 发送检查结果
                     messageSender.sendMessage(session, new DockerWebSocketMessage("CHECK_UPDATES_COMPLETE", taskId, result));
+                } catch (TaskCancelledException e) {
+                    messageSender.sendMessage(session, new DockerWebSocketMessage("TASK_CANCELLED", taskId, Map.of("type", TaskType.CHECK.name())));
                 } catch (Exception e) {
                     messageSender.sendErrorMessage(session, e.getMessage());
                 }
@@ -192,6 +233,49 @@ public class DockerImageService {
         }
     }
 
+    /**
+     * 处理取消任务请求
+     *
+     * @param session WebSocket会话
+     * @param message WebSocket消息，data.taskId 为要取消的任务ID
+     */
+    public void handleCancelTask(WebSocketSession session, DockerWebSocketMessage message) {
+        @SuppressWarnings("unchecked") Map<String, Object> data = (Map<String, Object>) message.getData();
+        String taskId = data != null ? (String) data.get("taskId") : message.getTaskId();
+        if (taskId != null && taskRegistry.cancel(taskId)) {
+            messageSender.sendMessage(session, new DockerWebSocketMessage("CANCEL_TASK_RESULT", taskId, Map.of("success", true)));
+        } else {
+            messageSender.sendErrorMessage(session, "任务不存在或已结束: " + taskId);
+        }
+    }
+
+    /**
+     * 异常链中是否有 Docker 返回的 404（包装在 DockerOperationException 中）
+     */
+    private static boolean isNotFound(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NotFoundException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 拉取进度消息内容，兼容原有的 progress / status 字段
+     */
+    private Map<String, Object> progressData(PullProgress progress) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("progress", progress.getPercent());
+        data.put("status", progress.getStatus());
+        data.put("currentBytes", progress.getCurrentBytes());
+        data.put("totalBytes", progress.getTotalBytes());
+        data.put("bytesPerSecond", progress.getBytesPerSecond());
+        data.put("layersDone", progress.getLayersDone());
+        data.put("layersTotal", progress.getLayersTotal());
+        return data;
+    }
+
     /**
      * 检查所有镜像的更新状态
      *
@@ -211,7 +295,7 @@ public class DockerImageService {
 
                     try {
                         // 获取本地镜像创建时间
-                        String localCreateTime = dockerService.getLocalImageCreateTime(imageName, tag);
+                        String localCreateTime = dockerService.getImageCreateTime(image.getId());
                         // 获取远程镜像创建时间
                         String remoteCreateTime = dockerService.getRemoteImageCreateTime(imageName, tag);
 
@@ -2,9 +2,16 @@ package com.dsm.websocket.service;
 
 import com.alibaba.fastjson.JSON;
 import com.dsm.api.DockerService;
+import com.dsm.api.pull.ImagePrefetcher;
+import com.dsm.api.pull.PullProgress;
+import com.dsm.api.task.TaskHandle;
+import com.dsm.api.task.TaskRegistry;
+import com.dsm.api.task.TaskType;
+import com.dsm.exception.TaskCancelledException;
 import com.dsm.mapper.TemplateMapper;
 import com.dsm.pojo.entity.Template;
 import com.dsm.utils.JsonPlaceholderReplacerUtil;
+import com.dsm.websocket.callback.PullImageCallback;
 import com.dsm.websocket.model.DockerWebSocketMessage;
 import com.dsm.websocket.sender.DockerWebSocketMessageSender;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -15,7 +22,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.WebSocketSession;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
@@ -30,7 +44,49 @@ public class DockerInstallService {
     @Autowired
     private DockerService dockerService;
 
+    @Autowired
+    private TaskRegistry taskRegistry;
+
+    @Autowired
+    private ImagePrefetcher imagePrefetcher;
+
+    private final AtomicInteger threadIndex = new AtomicInteger();
+    /**
+     * 安装在这里执行，可能要等待整个镜像拉取，不能占用 WebSocket 接收线程，否则同一会话的取消等消息都要排在安装之后
+     */
+    private ExecutorService installer;
+
+    @PostConstruct
+    public void init() {
+        installer = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "install-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        installer.shutdownNow();
+    }
+
+    /**
+     * 登记安装任务后立即返回，安装在 installer 线程中执行，可按任务ID取消
+     */
     public void handleInstallStart(WebSocketSession session, DockerWebSocketMessage message) {
+        @SuppressWarnings("unchecked") Map<String, Object> data = (Map<String, Object>) message.getData();
+        String appId = data != null ? (String) data.get("appId") : null;
+        // 登记为可取消任务，取消时停止等待镜像拉取，不再创建尚未创建的容器
+        TaskHandle handle = taskRegistry.register(message.getTaskId(), TaskType.INSTALL, appId);
+        try {
+            installer.execute(() -> install(session, message, handle));
+        } catch (RejectedExecutionException e) {
+            handle.close();
+            messageSender.sendErrorMessage(session, "处理安装请求失败: 服务正在停止");
+        }
+    }
+
+    private void install(WebSocketSession session, DockerWebSocketMessage message, TaskHandle handle) {
         try {
             @SuppressWarnings("unchecked") Map<String, Object> data = (Map<String, Object>) message.getData();
             String appId = (String) data.get("appId");
@@ -82,12 +138,27 @@ public class DockerInstallService {
             
             // 使用for循环遍历services节点
             for (JsonNode serviceConfig : servicesNode) {
+                if (handle.getToken().isCancelled()) {
+                    messageSender.sendLog(session, "error", "安装已取消");
+                    messageSender.sendMessage(session, new DockerWebSocketMessage("TASK_CANCELLED", handle.getId(), Map.of("type", TaskType.INSTALL.name())));
+                    return;
+                }
                 try {
                     String serviceName = serviceConfig.get("name").asText();
                     messageSender.sendLog(session, "info", String.format("正在处理服务 [%s] 的配置...", serviceName));
 
                     JsonNode template = serviceConfig.get("template");
 
+                    // 镜像不在本地时先拉取；检查阶段已开始的预拉取会被提升优先级后直接复用，取消安装时退订该拉取
+                    String image = template.path("image").asText("");
+                    if (!image.isEmpty()) {
+                        long pullStart = System.currentTimeMillis();
+                        if (imagePrefetcher.ensureLocal(image, handle.getToken(), pullProgress(session, handle.getId(), serviceName, image))) {
+                            messageSender.sendLog(session, "success", String.format("服务 [%s] 的镜像 %s 拉取完成，耗时 %dms", serviceName, image, System.currentTimeMillis() - pullStart));
+                        }
+                    }
+                    // 拉取期间可能已被取消，创建容器前再检查一次
+                    handle.getToken().throwIfCancelled();
 
                     // 生成容器启动命令
                     CreateContainerCmd containerCmd = dockerService.getCmdByTempJson(template);
@@ -101,6 +172,14 @@ public class DockerInstallService {
                     String containerId = dockerService.startContainerWithCmd(containerCmd);
                     messageSender.sendLog(session, "success", String.format("服务 [%s] 的容器创建成功", serviceName));
                     
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    messageSender.sendLog(session, "error", "安装被中断");
+                    return;
+                } catch (TaskCancelledException e) {
+                    messageSender.sendLog(session, "error", "安装已取消");
+                    messageSender.sendMessage(session, new DockerWebSocketMessage("TASK_CANCELLED", handle.getId(), Map.of("type", TaskType.INSTALL.name())));
+                    return;
                 } catch (Exception e) {
                     log.error("处理服务配置时发生错误", e);
                     messageSender.sendLog(session, "error", String.format("处理服务配置时发生错误: %s", e.getMessage()));
@@ -115,9 +194,44 @@ public class DockerInstallService {
             log.error("处理安装请求失败", e);
             messageSender.sendLog(session, "error", "处理安装请求失败: " + e.getMessage());
             messageSender.sendErrorMessage(session, "处理安装请求失败: " + e.getMessage());
+        } finally {
+            handle.close();
         }
     }
 
+    /**
+     * 安装时拉取镜像的进度以 INSTALL_PROGRESS 推送给会话；失败由 ensureLocal 抛出，在服务的错误日志中体现
+     */
+    private PullImageCallback pullProgress(WebSocketSession session, String taskId, String serviceName, String image) {
+        return new PullImageCallback() {
+            @Override
+            public void onProgress(int progress, String status) {
+                onProgress(PullProgress.of(progress, status));
+            }
+
+            @Override
+            public void onProgress(PullProgress progress) {
+                Map<String, Object> data = new HashMap<>();
+                data.put("service", serviceName);
+                data.put("image", image);
+                data.put("progress", progress.getPercent());
+                data.put("status", progress.getStatus());
+                data.put("currentBytes", progress.getCurrentBytes());
+                data.put("totalBytes", progress.getTotalBytes());
+                data.put("bytesPerSecond", progress.getBytesPerSecond());
+                messageSender.sendMessage(session, new DockerWebSocketMessage("INSTALL_PROGRESS", taskId, data));
+            }
+
+            @Override
+            public void onComplete() {
+            }
+
+            @Override
+            public void onError(String error) {
+            }
+        };
+    }
+
     /**
      * 从数据库获取应用模板
      *
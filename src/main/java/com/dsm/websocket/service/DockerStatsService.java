@@ -0,0 +1,312 @@
+package com.dsm.websocket.service;
+
+import com.dsm.api.ContainerStateCache;
+import com.dsm.api.stats.ContainerStatsCollector;
+import com.dsm.config.DockerConfig;
+import com.dsm.model.dto.ResourceUsageDTO;
+import com.dsm.websocket.model.DockerWebSocketMessage;
+import com.dsm.websocket.sender.DockerWebSocketMessageSender;
+import com.github.dockerjava.api.model.Container;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 容器统计实时推送
+ * 所有会话共用 ContainerStatsCollector 的统计流，推送时只读取内存中的最近一次采样；
+ * 每个会话只推送与上次发送相比有变化的字段，推送间隔按该会话发送缓冲的积压在
+ * docker.stats.push-min-interval 和 push-max-interval 之间自适应：之前的消息还没写出就跳过并放慢，缓冲清空时逐步加快。
+ * 订阅时为还没有采集源的运行中容器开启采集，统计流已达上限的容器在订阅结果的 unavailable 中列出，
+ * 并推送一帧 {"available": false}，之后有了采集源再推送数据
+ */
+@Slf4j
+@Service
+public class DockerStatsService {
+
+    private static final long TICK_INTERVAL = 250;
+
+    @Autowired
+    private ContainerStatsCollector containerStatsCollector;
+    @Autowired
+    private ContainerStateCache containerStateCache;
+    @Autowired
+    private DockerConfig dockerConfig;
+    @Autowired
+    private DockerWebSocketMessageSender messageSender;
+
+    /**
+     * 会话ID -> 订阅
+     */
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger threadIndex = new AtomicInteger();
+    private ScheduledExecutorService ticker;
+    private ExecutorService pusher;
+
+    @PostConstruct
+    public void init() {
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stats-push-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pusher = Executors.newFixedThreadPool(Math.max(1, dockerConfig.getStats().getPushThreads()), r -> {
+            Thread thread = new Thread(r, "stats-push-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, TICK_INTERVAL, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ticker.shutdownNow();
+        pusher.shutdownNow();
+    }
+
+    /**
+     * 订阅容器统计，可多次调用追加容器
+     * data 为容器ID/名称数组，或 {"containerIds": [...]}
+     */
+    public void handleSubscribeStats(WebSocketSession session, DockerWebSocketMessage message) {
+        List<String> missing = new ArrayList<>();
+        List<String> ids = resolve(containerIds(message.getData()), missing);
+        Subscription subscription = subscriptions.computeIfAbsent(session.getId(),
+                key -> new Subscription(session, message.getTaskId(), dockerConfig.getStats().getPushMinInterval()));
+        List<String> unavailable = new ArrayList<>();
+        for (String id : ids) {
+            // 未运行的容器由 peekLatest 返回 running=false，不算不可用
+            if (!containerStatsCollector.watch(id) && containerStatsCollector.peekLatest(id) == null) {
+                unavailable.add(id);
+            }
+        }
+        subscription.containerIds.addAll(ids);
+        // 新订阅的容器立即推送一次完整数据
+        subscription.nextDue = 0;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("containerIds", new ArrayList<>(subscription.containerIds));
+        result.put("missing", missing);
+        result.put("unavailable", unavailable);
+        messageSender.sendMessage(session, new DockerWebSocketMessage("SUBSCRIBE_STATS_RESULT", subscription.taskId, result));
+        if (!unavailable.isEmpty()) {
+            Map<String, Object> frame = new LinkedHashMap<>();
+            for (String id : unavailable) {
+                frame.put(id, Map.of("available", false));
+            }
+            messageSender.sendMessage(session, new DockerWebSocketMessage("STATS", subscription.taskId, frame));
+        }
+    }
+
+    /**
+     * 取消订阅指定容器，未指定容器时取消该会话的全部订阅
+     */
+    public void handleUnsubscribeStats(WebSocketSession session, DockerWebSocketMessage message) {
+        Collection<String> requested = containerIds(message.getData());
+        Subscription subscription = subscriptions.get(session.getId());
+        if (subscription != null) {
+            if (requested.isEmpty()) {
+                subscriptions.remove(session.getId());
+                subscription.containerIds.clear();
+            } else {
+                for (String id : resolve(requested, new ArrayList<>())) {
+                    subscription.containerIds.remove(id);
+                    subscription.lastSent.remove(id);
+                }
+                if (subscription.containerIds.isEmpty()) {
+                    subscriptions.remove(session.getId(), subscription);
+                }
+            }
+        }
+        List<String> remaining = subscription != null ? new ArrayList<>(subscription.containerIds) : new ArrayList<>();
+        messageSender.sendMessage(session, new DockerWebSocketMessage("UNSUBSCRIBE_STATS_RESULT", message.getTaskId(),
+                Map.of("containerIds", remaining)));
+    }
+
+    /**
+     * 会话关闭时清理订阅
+     */
+    public void removeSession(WebSocketSession session) {
+        subscriptions.remove(session.getId());
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        DockerConfig.Stats config = dockerConfig.getStats();
+        for (Subscription subscription : subscriptions.values()) {
+            if (now < subscription.nextDue) {
+                continue;
+            }
+            if (!subscription.inFlight.compareAndSet(false, true)) {
+                // 上一帧还没发完，客户端接收跟不上，放慢推送，期间的变化合并到下一帧
+                subscription.interval = Math.min(config.getPushMaxInterval(), subscription.interval * 2);
+                subscription.nextDue = now + subscription.interval;
+                continue;
+            }
+            subscription.nextDue = now + subscription.interval;
+            try {
+                pusher.execute(() -> push(subscription, config));
+            } catch (RejectedExecutionException e) {
+                subscription.inFlight.set(false);
+            }
+        }
+    }
+
+    private void push(Subscription subscription, DockerConfig.Stats config) {
+        try {
+            if (!subscription.session.isOpen()) {
+                subscriptions.remove(subscription.session.getId(), subscription);
+                return;
+            }
+            long interval = subscription.interval;
+            if (bufferedBytes(subscription.session) > 0) {
+                // 之前的消息（统计或拉取进度等）还积压在发送缓冲中，客户端接收跟不上，跳过本帧并放慢，期间的变化合并到下一帧
+                subscription.interval = Math.min(config.getPushMaxInterval(), interval * 2);
+                return;
+            }
+            subscription.interval = Math.max(config.getPushMinInterval(), interval * 3 / 4);
+            Map<String, double[]> values = new LinkedHashMap<>();
+            Map<String, Map<String, Object>> frame = subscription.delta(containerStatsCollector, values);
+            if (frame.isEmpty()) {
+                return;
+            }
+            if (!messageSender.sendMessage(subscription.session, new DockerWebSocketMessage("STATS", subscription.taskId, frame))) {
+                // 发送失败时不记录，下一帧仍按上次成功发送的值计算变化
+                return;
+            }
+            subscription.commit(values);
+        } catch (Exception e) {
+            log.debug("推送容器统计失败: {}, {}", subscription.session.getId(), e.getMessage());
+        } finally {
+            subscription.inFlight.set(false);
+        }
+    }
+
+    /**
+     * 会话发送缓冲中尚未写出的字节数，未包装的会话视为没有积压
+     */
+    private static int bufferedBytes(WebSocketSession session) {
+        return session instanceof ConcurrentWebSocketSessionDecorator ? ((ConcurrentWebSocketSessionDecorator) session).getBufferSize() : 0;
+    }
+
+    private List<String> resolve(Collection<String> requested, List<String> missing) {
+        List<String> ids = new ArrayList<>();
+        for (String idOrName : requested) {
+            Container container = containerStateCache.findContainer(idOrName);
+            if (container != null) {
+                ids.add(container.getId());
+            } else {
+                missing.add(idOrName);
+            }
+        }
+        return ids;
+    }
+
+    private static Collection<String> containerIds(Object data) {
+        Object ids = data instanceof Map ? ((Map<?, ?>) data).get("containerIds") : data;
+        List<String> result = new ArrayList<>();
+        if (ids instanceof Collection) {
+            for (Object id : (Collection<?>) ids) {
+                if (id != null) {
+                    result.add(id.toString());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 单个会话的订阅，以及每个容器上次发送的字段值
+     */
+    private static class Subscription {
+        private static final String[] FIELDS = {"cpuPercent", "memoryUsage", "memoryLimit", "networkRx", "networkTx", "running"};
+
+        private final WebSocketSession session;
+        private final String taskId;
+        private final Set<String> containerIds = ConcurrentHashMap.newKeySet();
+        private final Map<String, double[]> lastSent = new ConcurrentHashMap<>();
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        private volatile long interval;
+        private volatile long nextDue;
+
+        Subscription(WebSocketSession session, String taskId, long interval) {
+            this.session = session;
+            this.taskId = taskId;
+            this.interval = interval;
+        }
+
+        /**
+         * 计算与上次发送相比有变化的字段，容器ID -> 字段 -> 值；没有变化的容器不出现
+         *
+         * @param values 输出有变化的容器本次的字段值，发送成功后交给 commit
+         */
+        Map<String, Map<String, Object>> delta(ContainerStatsCollector collector, Map<String, double[]> values) {
+            Map<String, Map<String, Object>> frame = new LinkedHashMap<>();
+            for (String id : containerIds) {
+                ResourceUsageDTO usage = collector.peekLatest(id);
+                if (usage == null) {
+                    continue;
+                }
+                double[] current = {
+                        Math.round((usage.getCpuPercent() != null ? usage.getCpuPercent() : 0) * 100) / 100.0,
+                        usage.getMemoryUsage() != null ? usage.getMemoryUsage() : 0,
+                        usage.getMemoryLimit() != null ? usage.getMemoryLimit() : 0,
+                        usage.getNetworkRx() != null ? usage.getNetworkRx() : 0,
+                        usage.getNetworkTx() != null ? usage.getNetworkTx() : 0,
+                        Boolean.TRUE.equals(usage.getRunning()) ? 1 : 0
+                };
+                double[] previous = lastSent.get(id);
+                Map<String, Object> changed = new LinkedHashMap<>();
+                for (int i = 0; i < FIELDS.length; i++) {
+                    if (previous == null || previous[i] != current[i]) {
+                        changed.put(FIELDS[i], value(i, current[i]));
+                    }
+                }
+                if (!changed.isEmpty()) {
+                    frame.put(id, changed);
+                    values.put(id, current);
+                }
+            }
+            return frame;
+        }
+
+        /**
+         * 记录已发送的字段值，发送期间已退订的容器不再记录
+         */
+        void commit(Map<String, double[]> values) {
+            values.forEach((id, current) -> {
+                if (containerIds.contains(id)) {
+                    lastSent.put(id, current);
+                }
+            });
+        }
+
+        private static Object value(int field, double value) {
+            if (field == 0) {
+                return value;
+            }
+            if (field == FIELDS.length - 1) {
+                return value != 0;
+            }
+            return (long) value;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.dsm.api.pull;
+
+import com.dsm.api.DockerService;
+import com.dsm.api.task.CancellationToken;
+import com.dsm.api.task.TaskRegistry;
+import com.dsm.api.task.TaskType;
+import com.dsm.config.DockerConfig;
+import com.dsm.exception.TaskCancelledException;
+import com.dsm.websocket.callback.PullImageCallback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ImagePullManagerTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch engineCancelled = new CountDownLatch(1);
+
+    private TaskRegistry taskRegistry;
+    private ImagePullManager manager;
+
+    @BeforeEach
+    void setUp() {
+        DockerService dockerService = mock(DockerService.class);
+        // 模拟拉取引擎：一直拉取，直到测试放行或取消令牌被触发
+        doAnswer(invocation -> {
+            PullImageCallback callback = invocation.getArgument(2);
+            CancellationToken token = invocation.getArgument(3);
+            token.onCancel(() -> {
+                engineCancelled.countDown();
+                release.countDown();
+            });
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            if (token.isCancelled()) {
+                throw new TaskCancelledException("镜像拉取已取消");
+            }
+            callback.onComplete();
+            return null;
+        }).when(dockerService).pullImage(anyString(), anyString(), any(PullImageCallback.class), any(CancellationToken.class));
+
+        taskRegistry = new TaskRegistry();
+        manager = new ImagePullManager();
+        ReflectionTestUtils.setField(manager, "dockerService", dockerService);
+        ReflectionTestUtils.setField(manager, "dockerConfig", new DockerConfig());
+        ReflectionTestUtils.setField(manager, "taskRegistry", taskRegistry);
+        manager.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        manager.destroy();
+    }
+
+    @Test
+    void cancellingOneSubscriberKeepsSharedPullForOthers() throws Exception {
+        PullSubscription first = manager.submit("nginx", "1.25", TaskType.PULL, ImagePullManager.PRIORITY_INTERACTIVE, null);
+        PullSubscription second = manager.submit("nginx", "1.25", TaskType.UPDATE, ImagePullManager.PRIORITY_UPDATE, null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertSame(first.getTask(), second.getTask());
+        assertEquals(2, first.getTask().getSubscriberCount());
+        assertEquals(2, taskRegistry.listTasks().size());
+
+        assertTrue(taskRegistry.cancel(first.getId()));
+
+        ExecutionException cancelled = assertThrows(ExecutionException.class, () -> first.getCompletion().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TaskCancelledException.class, cancelled.getCause());
+        assertFalse(engineCancelled.await(200, TimeUnit.MILLISECONDS));
+        assertFalse(first.getTask().getToken().isCancelled());
+
+        release.countDown();
+        second.getCompletion().get(5, TimeUnit.SECONDS);
+        assertTrue(taskRegistry.listTasks().isEmpty());
+    }
+
+    @Test
+    void cancellingLastSubscriberCancelsPull() throws Exception {
+        PullSubscription first = manager.submit("nginx", "1.25", TaskType.PULL, ImagePullManager.PRIORITY_INTERACTIVE, null);
+        PullSubscription second = manager.submit("nginx", "1.25", TaskType.PULL, ImagePullManager.PRIORITY_INTERACTIVE, null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(first.cancel());
+        assertFalse(engineCancelled.await(200, TimeUnit.MILLISECONDS));
+        assertTrue(second.cancel());
+
+        assertTrue(engineCancelled.await(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.getTask().getCompletion().get(5, TimeUnit.SECONDS));
+        assertTrue(manager.isIdle());
+    }
+}
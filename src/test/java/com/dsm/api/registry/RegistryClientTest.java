@@ -0,0 +1,177 @@
+package com.dsm.api.registry;
+
+import com.dsm.api.DockerClientWrapper;
+import com.dsm.config.AppConfig;
+import com.dsm.config.DockerConfig;
+import com.dsm.mapper.RegistryMetadataCacheMapper;
+import com.github.dockerjava.api.model.Info;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用 JDK 自带的 HttpServer 模拟镜像仓库，验证 RegistryClient 的 token 认证、多架构清单选择和摘要响应头
+ */
+class RegistryClientTest {
+
+    private static final String TOKEN = "test-token";
+    private static final String LIST_DIGEST = "sha256:list";
+
+    private HttpServer server;
+    private String registry;
+    private DockerClientWrapper dockerClientWrapper;
+    private RegistryClient client;
+
+    private final AtomicInteger tokenRequests = new AtomicInteger();
+    private final List<String> tokenQueries = new CopyOnWriteArrayList<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        registry = "127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/token", this::handleToken);
+        server.createContext("/v2/", this::handleRegistry);
+        server.start();
+
+        DockerConfig dockerConfig = new DockerConfig();
+        AppConfig appConfig = new AppConfig();
+        dockerClientWrapper = mock(DockerClientWrapper.class);
+        when(dockerClientWrapper.getInfo()).thenReturn(new Info().withArchitecture("aarch64"));
+
+        RegistryPlatform platform = new RegistryPlatform();
+        ReflectionTestUtils.setField(platform, "dockerClientWrapper", dockerClientWrapper);
+        ReflectionTestUtils.setField(platform, "dockerConfig", dockerConfig);
+
+        RegistryRateLimiter rateLimiter = new RegistryRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "dockerConfig", dockerConfig);
+
+        RegistryMetadataCache metadataCache = new RegistryMetadataCache();
+        ReflectionTestUtils.setField(metadataCache, "dockerConfig", dockerConfig);
+        ReflectionTestUtils.setField(metadataCache, "registryMetadataCacheMapper", mock(RegistryMetadataCacheMapper.class));
+        ReflectionTestUtils.setField(metadataCache, "platform", platform);
+
+        RegistryRouteSelector routeSelector = new RegistryRouteSelector();
+        ReflectionTestUtils.setField(routeSelector, "dockerConfig", dockerConfig);
+        ReflectionTestUtils.setField(routeSelector, "appConfig", appConfig);
+        ReflectionTestUtils.setField(routeSelector, "platform", platform);
+
+        client = new RegistryClient();
+        ReflectionTestUtils.setField(client, "appConfig", appConfig);
+        ReflectionTestUtils.setField(client, "dockerConfig", dockerConfig);
+        ReflectionTestUtils.setField(client, "rateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(client, "metadataCache", metadataCache);
+        ReflectionTestUtils.setField(client, "routeSelector", routeSelector);
+        ReflectionTestUtils.setField(client, "platform", platform);
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void fetchesTokenFromBearerChallengeAndReusesIt() {
+        ImageReference ref = ImageReference.parse(registry + "/team/app", "1.0");
+
+        RegistryManifest manifest = client.getManifest(ref);
+        client.getManifest(ref);
+
+        assertTrue(manifest.isIndex());
+        assertEquals(LIST_DIGEST, manifest.getDigest());
+        assertEquals(1, tokenRequests.get());
+        assertTrue(tokenQueries.get(0).contains("scope=repository:team/app:pull"));
+        assertTrue(tokenQueries.get(0).contains("service=test-registry"));
+    }
+
+    @Test
+    void selectsManifestForDaemonArchitecture() {
+        String created = client.getCreated(registry + "/team/app", "1.0");
+
+        assertEquals("2024-02-02T00:00:00Z", created);
+        assertTrue(requests.contains("GET /v2/team/app/manifests/sha256:arm64"));
+        assertFalse(requests.contains("GET /v2/team/app/manifests/sha256:amd64"));
+    }
+
+    @Test
+    void readsDigestHeaderWithHeadRequest() {
+        String digest = client.getManifestDigest(ImageReference.parse(registry + "/team/app", "1.0"));
+
+        assertEquals(LIST_DIGEST, digest);
+        assertTrue(requests.contains("HEAD /v2/team/app/manifests/1.0"));
+        assertFalse(requests.contains("GET /v2/team/app/manifests/1.0"));
+    }
+
+    private void handleToken(HttpExchange exchange) throws IOException {
+        tokenRequests.incrementAndGet();
+        tokenQueries.add(URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8));
+        respond(exchange, 200, "application/json", "{\"token\":\"" + TOKEN + "\",\"expires_in\":300}");
+    }
+
+    private void handleRegistry(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requests.add(exchange.getRequestMethod() + " " + path);
+        if (!("Bearer " + TOKEN).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            exchange.getResponseHeaders().add("WWW-Authenticate", "Bearer realm=\"http://" + registry + "/token\",service=\"test-registry\",scope=\"repository:team/app:pull\"");
+            respond(exchange, 401, "application/json", "{\"errors\":[{\"code\":\"UNAUTHORIZED\"}]}");
+            return;
+        }
+        switch (path) {
+            case "/v2/team/app/manifests/1.0":
+                exchange.getResponseHeaders().add("Docker-Content-Digest", LIST_DIGEST);
+                respond(exchange, 200, RegistryClient.MEDIA_TYPE_MANIFEST_LIST, "{\"schemaVersion\":2,\"manifests\":["
+                        + platformEntry("sha256:amd64", "amd64") + "," + platformEntry("sha256:arm64", "arm64") + "]}");
+                break;
+            case "/v2/team/app/manifests/sha256:amd64":
+                respond(exchange, 200, RegistryClient.MEDIA_TYPE_MANIFEST_V2, "{\"schemaVersion\":2,\"config\":{\"digest\":\"sha256:config-amd64\"}}");
+                break;
+            case "/v2/team/app/manifests/sha256:arm64":
+                respond(exchange, 200, RegistryClient.MEDIA_TYPE_MANIFEST_V2, "{\"schemaVersion\":2,\"config\":{\"digest\":\"sha256:config-arm64\"}}");
+                break;
+            case "/v2/team/app/blobs/sha256:config-amd64":
+                respond(exchange, 200, "application/json", "{\"created\":\"2024-01-01T00:00:00Z\",\"architecture\":\"amd64\"}");
+                break;
+            case "/v2/team/app/blobs/sha256:config-arm64":
+                respond(exchange, 200, "application/json", "{\"created\":\"2024-02-02T00:00:00Z\",\"architecture\":\"arm64\"}");
+                break;
+            default:
+                respond(exchange, 404, "application/json", "{\"errors\":[{\"code\":\"MANIFEST_UNKNOWN\"}]}");
+        }
+    }
+
+    private static String platformEntry(String digest, String architecture) {
+        return "{\"digest\":\"" + digest + "\",\"mediaType\":\"" + RegistryClient.MEDIA_TYPE_MANIFEST_V2
+                + "\",\"platform\":{\"os\":\"linux\",\"architecture\":\"" + architecture + "\"}}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+}
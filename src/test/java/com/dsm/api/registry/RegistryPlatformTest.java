@@ -0,0 +1,66 @@
+package com.dsm.api.registry;
+
+import com.dsm.api.DockerClientWrapper;
+import com.dsm.config.DockerConfig;
+import com.github.dockerjava.api.model.Info;
+import com.github.dockerjava.api.model.InfoRegistryConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RegistryPlatformTest {
+
+    private DockerConfig dockerConfig;
+    private DockerClientWrapper dockerClientWrapper;
+    private RegistryPlatform platform;
+
+    @BeforeEach
+    void setUp() {
+        dockerConfig = new DockerConfig();
+        dockerClientWrapper = mock(DockerClientWrapper.class);
+        platform = new RegistryPlatform();
+        ReflectionTestUtils.setField(platform, "dockerClientWrapper", dockerClientWrapper);
+        ReflectionTestUtils.setField(platform, "dockerConfig", dockerConfig);
+    }
+
+    @Test
+    void followsDaemonInsecureRegistriesAndConfig() {
+        InfoRegistryConfig registryConfig = new InfoRegistryConfig()
+                .withIndexConfigs(Map.of(
+                        "registry.lan:5000", new InfoRegistryConfig.IndexConfig().withSecure(false),
+                        "docker.io", new InfoRegistryConfig.IndexConfig().withSecure(true)))
+                .withInsecureRegistryCIDRs(List.of("127.0.0.0/8", "10.1.0.0/16"));
+        when(dockerClientWrapper.getInfo()).thenReturn(new Info().withArchitecture("x86_64").withRegistryConfig(registryConfig));
+        dockerConfig.getRoutes().getInsecureRegistries().add("nas.local:5000");
+
+        assertEquals("amd64", platform.architecture());
+        assertTrue(platform.isInsecure("registry.lan:5000"));
+        assertTrue(platform.isInsecure("nas.local:5000"));
+        assertTrue(platform.isInsecure("10.1.2.3:5000"));
+        assertTrue(platform.isInsecure("localhost:5000"));
+        assertFalse(platform.isInsecure("10.2.0.1:5000"));
+        assertFalse(platform.isInsecure("docker.io"));
+        assertFalse(platform.isInsecure("ghcr.io"));
+    }
+
+    @Test
+    void fallsBackToJvmArchitectureWhenDaemonUnavailable() {
+        when(dockerClientWrapper.getInfo()).thenThrow(new RuntimeException("daemon down"));
+
+        assertEquals(RegistryPlatform.normalizeArchitecture(System.getProperty("os.arch")), platform.architecture());
+        assertFalse(platform.isInsecure("registry.lan:5000"));
+        // 失败不会永久缓存，但重试间隔内不会反复请求守护进程
+        verify(dockerClientWrapper, times(1)).getInfo();
+    }
+}
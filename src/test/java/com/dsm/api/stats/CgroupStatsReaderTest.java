@@ -0,0 +1,152 @@
+package com.dsm.api.stats;
+
+import com.dsm.api.DockerClientWrapper;
+import com.dsm.config.DockerConfig;
+import com.dsm.model.dto.ResourceUsageDTO;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.HostConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 在临时目录中构造 cgroup v2 和 /proc 文件，验证 CgroupStatsReader 的解析
+ */
+class CgroupStatsReaderTest {
+
+    private static final String CONTAINER_ID = "abc123";
+    private static final long PID = 4242;
+    private static final String NET_DEV = "Inter-|   Receive                                                |  Transmit\n"
+            + " face |bytes    packets errs drop fifo frame compressed multicast|bytes    packets errs drop fifo colls carrier compressed\n"
+            + "    lo:  1000      10    0    0    0     0          0         0     1000      10    0    0    0     0       0          0\n"
+            + "  eth0:  5000      50    0    0    0     0          0         0     7000      70    0    0    0     0       0          0\n"
+            + "  eth1:   500       5    0    0    0     0          0         0      700       7    0    0    0     0       0          0\n";
+
+    @TempDir
+    Path temp;
+
+    private Path containerDir;
+    private Path procRoot;
+    private DockerClientWrapper dockerClientWrapper;
+    private CgroupStatsReader reader;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path cgroupRoot = temp.resolve("cgroup");
+        containerDir = cgroupRoot.resolve("docker").resolve(CONTAINER_ID);
+        procRoot = temp.resolve("proc");
+        Files.createDirectories(containerDir);
+        Files.createDirectories(procRoot.resolve(String.valueOf(PID)).resolve("net"));
+        write(cgroupRoot.resolve("cgroup.controllers"), "cpu io memory\n");
+        write(containerDir.resolve("cpu.stat"), "usage_usec 1000000\nuser_usec 800000\nsystem_usec 200000\n");
+        write(containerDir.resolve("memory.current"), "104857600\n");
+        write(containerDir.resolve("memory.max"), "536870912\n");
+        write(containerDir.resolve("io.stat"), "8:0 rbytes=100 wbytes=200 rios=1 wios=2 dbytes=0 dios=0\n"
+                + "8:16 rbytes=300 wbytes=400 rios=3 wios=4 dbytes=0 dios=0\n");
+        write(procRoot.resolve(String.valueOf(PID)).resolve("net").resolve("dev"), NET_DEV);
+        write(procRoot.resolve("meminfo"), "MemTotal:        2048 kB\nMemFree:         1024 kB\n");
+
+        DockerConfig dockerConfig = new DockerConfig();
+        dockerConfig.getStats().setCgroupRoot(cgroupRoot.toString());
+        dockerConfig.getStats().setProcRoot(procRoot.toString());
+        dockerClientWrapper = mock(DockerClientWrapper.class);
+        inspectWithNetworkMode("bridge");
+
+        reader = new CgroupStatsReader();
+        ReflectionTestUtils.setField(reader, "dockerConfig", dockerConfig);
+        ReflectionTestUtils.setField(reader, "dockerClientWrapper", dockerClientWrapper);
+    }
+
+    @Test
+    void firstReadReturnsNullThenParsesAllCounters() throws Exception {
+        assertTrue(reader.isAvailable());
+        try (CgroupStatsReader.Handle handle = reader.open(CONTAINER_ID)) {
+            assertNotNull(handle);
+            // 第一次读取没有上一次的 CPU 计数
+            assertNull(handle.read());
+
+            write(containerDir.resolve("cpu.stat"), "usage_usec 1500000\nuser_usec 1200000\nsystem_usec 300000\n");
+            Thread.sleep(10);
+            ResourceUsageDTO usage = handle.read();
+
+            assertNotNull(usage);
+            assertTrue(usage.getCpuPercent() > 0);
+            assertEquals(104857600L, usage.getMemoryUsage());
+            assertEquals(536870912L, usage.getMemoryLimit());
+            // 多个设备的 io.stat 累加
+            assertEquals(400L, usage.getBlockRead());
+            assertEquals(600L, usage.getBlockWrite());
+            // 不计入 lo
+            assertEquals(5500L, usage.getNetworkRx());
+            assertEquals(7700L, usage.getNetworkTx());
+            assertTrue(usage.getRunning());
+        }
+    }
+
+    @Test
+    void unlimitedMemoryReportsHostTotal() throws Exception {
+        write(containerDir.resolve("memory.max"), "max\n");
+        try (CgroupStatsReader.Handle handle = reader.open(CONTAINER_ID)) {
+            assertNotNull(handle);
+            handle.read();
+            ResourceUsageDTO usage = handle.read();
+
+            assertNotNull(usage);
+            assertEquals(2048L * 1024, usage.getMemoryLimit());
+        }
+    }
+
+    @Test
+    void unlimitedMemoryWithoutHostTotalFallsBackToDocker() throws Exception {
+        write(containerDir.resolve("memory.max"), "max\n");
+        Files.delete(procRoot.resolve("meminfo"));
+
+        assertNull(reader.open(CONTAINER_ID));
+
+        // 读取失败不缓存，meminfo 可读后再次打开成功
+        write(procRoot.resolve("meminfo"), "MemTotal:        4096 kB\n");
+        try (CgroupStatsReader.Handle handle = reader.open(CONTAINER_ID)) {
+            assertNotNull(handle);
+        }
+    }
+
+    @Test
+    void sharedNetworkNamespaceReportsNoTraffic() throws Exception {
+        inspectWithNetworkMode("host");
+        try (CgroupStatsReader.Handle handle = reader.open(CONTAINER_ID)) {
+            assertNotNull(handle);
+            handle.read();
+            ResourceUsageDTO usage = handle.read();
+
+            assertNotNull(usage);
+            assertEquals(0L, usage.getNetworkRx());
+            assertEquals(0L, usage.getNetworkTx());
+            assertEquals(400L, usage.getBlockRead());
+        }
+    }
+
+    private void inspectWithNetworkMode(String networkMode) {
+        InspectContainerResponse inspect = mock(InspectContainerResponse.class, RETURNS_DEEP_STUBS);
+        when(inspect.getState().getPidLong()).thenReturn(PID);
+        when(inspect.getHostConfig()).thenReturn(new HostConfig().withNetworkMode(networkMode));
+        when(dockerClientWrapper.inspectContainerCmd(CONTAINER_ID)).thenReturn(inspect);
+    }
+
+    private static void write(Path path, String content) throws IOException {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
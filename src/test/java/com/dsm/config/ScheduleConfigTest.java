@@ -0,0 +1,68 @@
+package com.dsm.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 与 @EnableWebSocket 一样另有一个 TaskScheduler 时，@Scheduled 任务仍使用 ScheduleConfig 的线程池并行执行
+ */
+class ScheduleConfigTest {
+
+    private static final CountDownLatch BOTH_RUNNING = new CountDownLatch(2);
+    private static final Set<String> THREADS = ConcurrentHashMap.newKeySet();
+
+    @Test
+    void scheduledTasksRunConcurrentlyOnOwnPool() throws Exception {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(ScheduleConfig.class, Jobs.class)) {
+            assertTrue(BOTH_RUNNING.await(5, TimeUnit.SECONDS));
+            assertEquals(2, THREADS.size());
+            assertTrue(THREADS.stream().allMatch(name -> name.startsWith("scheduling-")));
+        }
+    }
+
+    @Configuration
+    static class Jobs {
+
+        /**
+         * 模拟 @EnableWebSocket 注册的 defaultSockJsTaskScheduler
+         */
+        @Bean
+        public TaskScheduler defaultSockJsTaskScheduler() {
+            ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+            scheduler.setThreadNamePrefix("sockjs-");
+            return scheduler;
+        }
+
+        @Scheduled(fixedDelay = 60000)
+        public void first() throws InterruptedException {
+            block();
+        }
+
+        @Scheduled(fixedDelay = 60000)
+        public void second() throws InterruptedException {
+            block();
+        }
+
+        /**
+         * 两个任务都在运行时才返回，单线程调度会在这里超时
+         */
+        private static void block() throws InterruptedException {
+            THREADS.add(Thread.currentThread().getName());
+            BOTH_RUNNING.countDown();
+            BOTH_RUNNING.await(5, TimeUnit.SECONDS);
+        }
+    }
+}